@@ -0,0 +1,19 @@
+package com.arister.config;
+
+import com.arister.common.grpc.GrpcMetricsInterceptor;
+import net.devh.boot.grpc.common.util.InterceptorOrder;
+import net.devh.boot.grpc.server.interceptor.GrpcGlobalServerInterceptor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+
+@Configuration
+public class GrpcMetricsConfig {
+
+    @Bean
+    @GrpcGlobalServerInterceptor
+    @Order(InterceptorOrder.ORDER_TRACING_METRICS)
+    public GrpcMetricsInterceptor grpcMetricsInterceptor() {
+        return new GrpcMetricsInterceptor();
+    }
+}
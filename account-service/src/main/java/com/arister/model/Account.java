@@ -1,21 +1,26 @@
 package com.arister.model;
 
 import com.arister.common.model.BaseEntity;
+import com.arister.common.money.MinorUnitsConverter;
 import com.arister.enums.AccountStatus;
 import com.arister.enums.AccountType;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.Formula;
 
 @Data
 @SuperBuilder
@@ -26,7 +31,10 @@ import lombok.experimental.SuperBuilder;
 @Table(name = "accounts")
 public class Account extends BaseEntity {
 
-    @Column(name = "account_number", insertable = false, updatable = false)
+    /** 500.00, in minor units like every money attribute. */
+    public static final long DEFAULT_MIN_BALANCE = 50_000;
+
+    @Column(name = "account_number", unique = true, updatable = false)
     private String accountNumber;
 
     @Column(name = "customer_id", nullable = false)
@@ -39,8 +47,9 @@ public class Account extends BaseEntity {
     @Column(name = "account_type", nullable = false)
     private AccountType accountType;
 
+    @Convert(converter = MinorUnitsConverter.class)
     @Column(name = "balance", precision = 15, scale = 2, nullable = false)
-    private BigDecimal balance;
+    private long balance;
 
     @Column(name = "currency", nullable = false)
     private String currency;
@@ -48,11 +57,14 @@ public class Account extends BaseEntity {
     @Column(name = "interest_rate", precision = 5, scale = 2, nullable = false)
     private BigDecimal interestRate;
 
+    @Builder.Default
+    @Convert(converter = MinorUnitsConverter.class)
     @Column(name = "min_balance", precision = 15, scale = 2, nullable = false)
-    private BigDecimal minBalance;
+    private long minBalance = DEFAULT_MIN_BALANCE;
 
+    @Convert(converter = MinorUnitsConverter.class)
     @Column(name = "overdraft_limit", precision = 15, scale = 2, nullable = false)
-    private BigDecimal overdraftLimit;
+    private long overdraftLimit;
 
     @Enumerated(EnumType.STRING)
     @Column(name = "status", nullable = false)
@@ -61,15 +73,41 @@ public class Account extends BaseEntity {
     @Column(name = "closed_at")
     private ZonedDateTime closedAt;
 
+    /** Number of balance stripes (V16), or 0 when every credit goes to {@link #balance}. */
+    @Column(name = "balance_stripes", nullable = false)
+    private Integer balanceStripes;
+
+    /** Last day whose interest has been applied (V17), or null before the first accrual. */
+    @Column(name = "interest_accrued_through")
+    private LocalDate interestAccruedThrough;
+
+    /** Interest accrued but not yet posted because it is below one cent, carried to the next day. */
+    @Column(name = "accrued_interest", precision = 15, scale = 10, nullable = false)
+    private BigDecimal accruedInterest;
+
+    /** First day of the last month a maintenance fee was charged for (V18), or null if never. */
+    @Column(name = "maintenance_fee_period")
+    private LocalDate maintenanceFeePeriod;
+
+    /** Credits held in the account's stripes when it was read, not yet folded into {@link #balance}. */
+    @Convert(converter = MinorUnitsConverter.class)
+    @Formula("(CASE WHEN balance_stripes > 0 THEN (SELECT COALESCE(SUM(s.amount), 0)"
+            + " FROM account_balance_stripes s WHERE s.account_id = id) ELSE 0 END)")
+    private long stripedCredits;
+
+    /** The account's balance including credits still held in its stripes. */
+    public long totalBalance() {
+        return balance + stripedCredits;
+    }
+
     @Override
     @PrePersist
     public void prePersist() {
         super.prePersist();
         if (status == null) status = AccountStatus.ACTIVE;
-        if (balance == null) balance = BigDecimal.ZERO;
         if (currency == null || currency.isBlank()) currency = "USD";
         if (interestRate == null) interestRate = BigDecimal.ZERO;
-        if (minBalance == null) minBalance = new BigDecimal("500.00");
-        if (overdraftLimit == null) overdraftLimit = BigDecimal.ZERO;
+        if (balanceStripes == null) balanceStripes = 0;
+        if (accruedInterest == null) accruedInterest = BigDecimal.ZERO;
     }
 }
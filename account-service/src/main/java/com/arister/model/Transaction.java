@@ -1,20 +1,22 @@
 package com.arister.model;
 
-import com.arister.common.model.BaseEntity;
+import com.arister.common.model.AssignedIdEntity;
+import com.arister.common.money.MinorUnitsConverter;
 import com.arister.enums.TransactionType;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
-import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.experimental.SuperBuilder;
-import org.hibernate.annotations.Generated;
-import org.hibernate.generator.EventType;
 
 @Data
 @SuperBuilder
@@ -23,10 +25,11 @@ import org.hibernate.generator.EventType;
 @EqualsAndHashCode(callSuper = false)
 @Entity
 @Table(name = "transactions")
-public class Transaction extends BaseEntity {
+public class Transaction extends AssignedIdEntity {
 
-    @Generated(event = EventType.INSERT)
-    @Column(name = "transaction_ref", insertable = false, updatable = false, columnDefinition = "VARCHAR DEFAULT nextval('transaction_ref_seq')")
+    static final DateTimeFormatter REF_DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    @Column(name = "transaction_ref", nullable = false, updatable = false)
     private String transactionRef;
 
     @Column(name = "account_id", nullable = false)
@@ -36,14 +39,17 @@ public class Transaction extends BaseEntity {
     @Column(name = "transaction_type", nullable = false)
     private TransactionType transactionType;
 
+    @Convert(converter = MinorUnitsConverter.class)
     @Column(name = "amount", precision = 15, scale = 2, nullable = false)
-    private BigDecimal amount;
+    private long amount;
 
+    @Convert(converter = MinorUnitsConverter.class)
     @Column(name = "balance_before", precision = 15, scale = 2, nullable = false)
-    private BigDecimal balanceBefore;
+    private long balanceBefore;
 
+    @Convert(converter = MinorUnitsConverter.class)
     @Column(name = "balance_after", precision = 15, scale = 2, nullable = false)
-    private BigDecimal balanceAfter;
+    private long balanceAfter;
 
     @Column(name = "description")
     private String description;
@@ -51,6 +57,28 @@ public class Transaction extends BaseEntity {
     @Column(name = "related_txn_id")
     private Long relatedTxnId;
 
+    /** created_at of the related transaction, which the foreign key needs along with its id (V13). */
+    @Column(name = "related_txn_created_at")
+    private ZonedDateTime relatedTxnCreatedAt;
+
     @Column(name = "performed_by")
     private Long performedBy;
+
+    /** The stripe a credit to a striped account went to (V16); its balances are the stripe's. */
+    @Column(name = "balance_slot")
+    private Integer balanceSlot;
+
+    @Override
+    @PrePersist
+    public void prePersist() {
+        super.prePersist();
+        if (transactionRef == null) {
+            transactionRef = ref(getCreatedAt(), getId());
+        }
+    }
+
+    /** The ref of a transaction with {@code id} created at {@code createdAt}, e.g. {@code TXN-20260301-00100050}. */
+    public static String ref(ZonedDateTime createdAt, long id) {
+        return String.format("TXN-%s-%08d", createdAt.format(REF_DATE), id);
+    }
 }
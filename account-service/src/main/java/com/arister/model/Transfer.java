@@ -1,14 +1,15 @@
 package com.arister.model;
 
-import com.arister.common.model.BaseEntity;
+import com.arister.common.model.AssignedIdEntity;
+import com.arister.common.money.MinorUnitsConverter;
 import com.arister.enums.TransferStatus;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
-import java.math.BigDecimal;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -22,9 +23,9 @@ import lombok.experimental.SuperBuilder;
 @EqualsAndHashCode(callSuper = false)
 @Entity
 @Table(name = "transfers")
-public class Transfer extends BaseEntity {
+public class Transfer extends AssignedIdEntity {
 
-    @Column(name = "transfer_ref", unique = true)
+    @Column(name = "transfer_ref", unique = true, nullable = false, updatable = false)
     private String transferRef;
 
     @Column(name = "from_account_id", nullable = false)
@@ -33,11 +34,13 @@ public class Transfer extends BaseEntity {
     @Column(name = "to_account_id", nullable = false)
     private Long toAccountId;
 
+    @Convert(converter = MinorUnitsConverter.class)
     @Column(name = "amount", precision = 15, scale = 2, nullable = false)
-    private BigDecimal amount;
+    private long amount;
 
+    @Convert(converter = MinorUnitsConverter.class)
     @Column(name = "fee", precision = 15, scale = 2, nullable = false)
-    private BigDecimal fee;
+    private long fee;
 
     @Enumerated(EnumType.STRING)
     @Column(name = "status", nullable = false)
@@ -51,6 +54,8 @@ public class Transfer extends BaseEntity {
     public void prePersist() {
         super.prePersist();
         if (status == null) status = TransferStatus.COMPLETED;
-        if (fee == null) fee = BigDecimal.ZERO;
+        if (transferRef == null) {
+            transferRef = String.format("TRF-%s-%08d", getCreatedAt().format(Transaction.REF_DATE), getId());
+        }
     }
 }
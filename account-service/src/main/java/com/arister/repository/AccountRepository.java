@@ -1,14 +1,71 @@
 package com.arister.repository;
 
+import com.arister.enums.AccountType;
 import com.arister.model.Account;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 public interface AccountRepository extends JpaRepository<Account, Long> {
     Optional<Account> findByAccountNumber(String accountNumber);
+
+    /** Read-only: only the list RPCs use these, to copy the accounts into protos. */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
     List<Account> findByCustomerId(Long customerId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Account> findByCustomerIdIn(Collection<Long> customerIds);
+
     Page<Account> findAll(Pageable pageable);
+
+    /**
+     * One row per currency and account type of the customer's accounts, with their count and total
+     * balance, including credits still held in balance stripes.
+     */
+    @Query("SELECT a.currency AS currency, a.accountType AS accountType, COUNT(a) AS accounts,"
+            + " SUM(a.balance + a.stripedCredits) AS balance FROM Account a WHERE a.customerId = :customerId"
+            + " GROUP BY a.currency, a.accountType")
+    List<BalanceTotal> sumBalancesByCustomer(@Param("customerId") Long customerId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id = :id")
+    Optional<Account> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Locks both accounts of a transfer with {@code SELECT ... FOR UPDATE}. Rows are locked in
+     * ascending id order, so two transfers touching the same pair of accounts can never deadlock.
+     * Two scalar parameters (rather than a collection) keep the query plan cacheable.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id IN (:firstId, :secondId) ORDER BY a.id")
+    List<Account> findPairForUpdate(@Param("firstId") Long firstId, @Param("secondId") Long secondId);
+
+    /**
+     * Locks every account touched by a bulk transfer chunk, in ascending id order like
+     * {@link #findPairForUpdate}, so chunks and single transfers can interleave without deadlocking.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id IN :ids ORDER BY a.id")
+    List<Account> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    interface BalanceTotal {
+        String getCurrency();
+
+        AccountType getAccountType();
+
+        long getAccounts();
+
+        BigDecimal getBalance();
+    }
 }
@@ -0,0 +1,118 @@
+package com.arister.repository;
+
+import com.arister.common.money.Money;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * End-of-day account balances (V12). {@link #snapshotDay} records, for every account with transactions
+ * on a UTC day, the balance after its last transaction that day; {@link #latestBefore} and
+ * {@link #replay} then answer a point-in-time balance from one snapshot and one bounded range of
+ * transactions.
+ */
+@Component
+public class BalanceSnapshotStore {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BalanceSnapshotStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** The account's most recent snapshot taken for a day before {@code day}. */
+    public Optional<Snapshot> latestBefore(long accountId, LocalDate day) {
+        List<Snapshot> found = jdbcTemplate.query(
+                "SELECT as_of_date, balance FROM balance_snapshots WHERE account_id = ? AND as_of_date < ?"
+                        + " ORDER BY as_of_date DESC LIMIT 1",
+                (rs, i) -> new Snapshot(rs.getObject(1, LocalDate.class), Money.minor(rs.getBigDecimal(2))),
+                accountId,
+                Date.valueOf(day));
+        return found.stream().findFirst();
+    }
+
+    /** Net change and number of the account's transactions created in {@code [from, to]}. */
+    public Delta replay(long accountId, ZonedDateTime from, ZonedDateTime to) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(balance_after - balance_before), 0), COUNT(*) FROM transactions"
+                        + " WHERE account_id = ? AND created_at >= ? AND created_at <= ?",
+                (rs, i) -> new Delta(Money.minor(rs.getBigDecimal(1)), rs.getInt(2)),
+                accountId,
+                Timestamp.from(from.toInstant()),
+                Timestamp.from(to.toInstant()));
+    }
+
+    /** The last day snapshotted, without locking. */
+    public Optional<LocalDate> snapshotThrough() {
+        return Optional.ofNullable(jdbcTemplate.queryForObject(
+                "SELECT snapshot_through FROM balance_snapshot_progress WHERE id = 1", LocalDate.class));
+    }
+
+    /**
+     * Locks the progress row for the current transaction and returns the last day snapshotted, so that
+     * only one instance snapshots a given day.
+     */
+    public Optional<LocalDate> lockSnapshotThrough() {
+        return Optional.ofNullable(jdbcTemplate.queryForObject(
+                "SELECT snapshot_through FROM balance_snapshot_progress WHERE id = 1 FOR UPDATE", LocalDate.class));
+    }
+
+    /** UTC day of the oldest transaction, where snapshots of a fresh table start. */
+    public Optional<LocalDate> firstTransactionDay() {
+        Timestamp first = jdbcTemplate.queryForObject("SELECT MIN(created_at) FROM transactions", Timestamp.class);
+        return Optional.ofNullable(first).map(t -> t.toInstant().atZone(ZoneOffset.UTC).toLocalDate());
+    }
+
+    /**
+     * Snapshots every account that had transactions on {@code day} and advances the progress row to it,
+     * in set-based statements over that day's rows. Must run in the transaction holding the lock from
+     * {@link #lockSnapshotThrough}. Returns the number of accounts snapshotted.
+     *
+     * <p>An account with striped credits that day has no transaction whose balance_after is its
+     * balance, so its snapshot is worked back from the current balance and stripes instead, less
+     * every transaction since the day ended.
+     */
+    public int snapshotDay(LocalDate day) {
+        ZonedDateTime start = day.atStartOfDay(ZoneOffset.UTC);
+        Timestamp from = Timestamp.from(start.toInstant());
+        Timestamp to = Timestamp.from(start.plusDays(1).toInstant());
+        jdbcTemplate.update("DELETE FROM balance_snapshots WHERE as_of_date = ?", Date.valueOf(day));
+        int snapshotted = jdbcTemplate.update(
+                "INSERT INTO balance_snapshots (account_id, as_of_date, balance)"
+                        + " SELECT account_id, ?, balance_after FROM ("
+                        + "SELECT account_id, balance_after,"
+                        + " ROW_NUMBER() OVER (PARTITION BY account_id ORDER BY created_at DESC, id DESC) AS rn,"
+                        + " COUNT(balance_slot) OVER (PARTITION BY account_id) AS striped"
+                        + " FROM transactions WHERE created_at >= ? AND created_at < ?) last_of_day"
+                        + " WHERE rn = 1 AND striped = 0",
+                Date.valueOf(day),
+                from,
+                to);
+        snapshotted += jdbcTemplate.update(
+                "INSERT INTO balance_snapshots (account_id, as_of_date, balance)"
+                        + " SELECT a.id, ?, a.balance"
+                        + " + COALESCE((SELECT SUM(s.amount) FROM account_balance_stripes s WHERE s.account_id = a.id), 0)"
+                        + " - COALESCE((SELECT SUM(t.balance_after - t.balance_before) FROM transactions t"
+                        + " WHERE t.account_id = a.id AND t.created_at >= ?), 0)"
+                        + " FROM accounts a WHERE a.id IN (SELECT account_id FROM transactions"
+                        + " WHERE created_at >= ? AND created_at < ? AND balance_slot IS NOT NULL)",
+                Date.valueOf(day),
+                to,
+                from,
+                to);
+        jdbcTemplate.update("UPDATE balance_snapshot_progress SET snapshot_through = ? WHERE id = 1", Date.valueOf(day));
+        return snapshotted;
+    }
+
+    /** The balance at the end of {@code asOfDate}, in minor units. */
+    public record Snapshot(LocalDate asOfDate, long balance) {}
+
+    /** Net change in minor units over {@code transactions} transactions. */
+    public record Delta(long amount, int transactions) {}
+}
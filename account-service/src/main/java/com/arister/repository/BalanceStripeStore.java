@@ -0,0 +1,78 @@
+package com.arister.repository;
+
+import com.arister.common.money.Money;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Balance stripes of hot accounts (V16). A credit {@link #credit}s one stripe, taking only that row's
+ * lock; {@link #fold} empties all of an account's stripes so the caller can add their sum to the
+ * account balance it has locked.
+ */
+@Component
+public class BalanceStripeStore {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BalanceStripeStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Adds {@code amount} minor units to the stripe and returns its new amount, or empty when the account has no
+     * such stripe because it was restriped since it was read.
+     */
+    public Optional<Long> credit(long accountId, int slot, long amount) {
+        int updated = jdbcTemplate.update(
+                "UPDATE account_balance_stripes SET amount = amount + ? WHERE account_id = ? AND slot = ?",
+                Money.decimal(amount),
+                accountId,
+                slot);
+        if (updated == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(Money.minor(jdbcTemplate.queryForObject(
+                "SELECT amount FROM account_balance_stripes WHERE account_id = ? AND slot = ?",
+                BigDecimal.class,
+                accountId,
+                slot)));
+    }
+
+    /**
+     * Locks the account's stripes, sets them to zero and returns what they held, in minor units. The
+     * caller must hold the account row lock and add the result to the account's balance in the same
+     * transaction.
+     */
+    public long fold(long accountId) {
+        long held = jdbcTemplate
+                .queryForList(
+                        "SELECT amount FROM account_balance_stripes WHERE account_id = ? ORDER BY slot FOR UPDATE",
+                        BigDecimal.class,
+                        accountId)
+                .stream()
+                .mapToLong(Money::minor)
+                .sum();
+        if (held != 0) {
+            jdbcTemplate.update(
+                    "UPDATE account_balance_stripes SET amount = 0 WHERE account_id = ? AND amount <> 0", accountId);
+        }
+        return held;
+    }
+
+    /** Replaces the account's stripes with {@code stripes} empty ones. The account must be folded first. */
+    public void reset(long accountId, int stripes) {
+        jdbcTemplate.update("DELETE FROM account_balance_stripes WHERE account_id = ?", accountId);
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO account_balance_stripes (account_id, slot) VALUES (?, ?)",
+                IntStream.rangeClosed(1, stripes).mapToObj(slot -> new Object[] {accountId, slot}).toList());
+    }
+
+    /** Ids of the accounts that have stripes. */
+    public List<Long> stripedAccountIds() {
+        return jdbcTemplate.queryForList("SELECT account_id FROM account_balance_stripes WHERE slot = 1", Long.class);
+    }
+}
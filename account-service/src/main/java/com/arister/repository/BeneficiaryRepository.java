@@ -1,10 +1,17 @@
 package com.arister.repository;
 
 import com.arister.model.Beneficiary;
+import jakarta.persistence.QueryHint;
 import java.util.List;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 public interface BeneficiaryRepository extends JpaRepository<Beneficiary, Long> {
+
+    /** Read-only, for {@code ListBeneficiaries}. */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
     List<Beneficiary> findByCustomerId(Long customerId);
+
     boolean existsByCustomerIdAndAccountNumber(Long customerId, String accountNumber);
 }
@@ -0,0 +1,201 @@
+package com.arister.repository;
+
+import com.arister.common.cache.TtlCache;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import io.grpc.Status;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Remembers the responses of money-moving RPCs by client idempotency key (V9), so a retried request
+ * is answered with the original reply instead of being posted again. Recently completed keys are also
+ * held in memory, which answers most retries without a database round trip.
+ *
+ * <p>{@link #claim} must be called first thing in the request's transaction. A request that does not
+ * reach {@link #complete} gives its key back when the transaction commits, so a retry after a failed
+ * attempt is executed again. A blank key disables the mechanism for that request.
+ *
+ * <p>A key is bound to a hash of the request that claimed it (V19). Reusing the key for a request
+ * with other contents fails with {@code FAILED_PRECONDITION} rather than replaying a response that
+ * does not belong to it.
+ */
+@Component
+public class IdempotencyStore {
+
+    static final int MAX_KEY_LENGTH = 100;
+    private static final int PURGE_BATCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TtlCache<String, Stored> recent;
+    private final Duration ttl;
+
+    public IdempotencyStore(
+            JdbcTemplate jdbcTemplate,
+            @Value("${idempotency.cache-size:100000}") int cacheSize,
+            @Value("${idempotency.ttl:24h}") Duration ttl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.recent = new TtlCache<>(cacheSize, ttl);
+        this.ttl = ttl;
+    }
+
+    /**
+     * Returns the stored response when {@code key} has already been used for {@code operation} by the
+     * same {@code request}. Otherwise claims the key for the current transaction and returns empty; a
+     * concurrent request holding the same key blocks here until the first one commits or rolls back.
+     */
+    public <T extends Message> Optional<T> claim(String operation, String key, Message request, Parser<T> parser) {
+        if (key.isBlank()) {
+            return Optional.empty();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw Status.INVALID_ARGUMENT
+                    .withDescription("Idempotency key longer than " + MAX_KEY_LENGTH + " characters")
+                    .asRuntimeException();
+        }
+        byte[] requestHash = requestHash(request);
+        Stored cached = recent.get(cacheKey(operation, key));
+        if (cached != null) {
+            @SuppressWarnings("unchecked")
+            T response = (T) cached.matching(requestHash, key).response();
+            return Optional.of(response);
+        }
+
+        int claimed = jdbcTemplate.update(
+                "INSERT INTO idempotency_keys (operation, idempotency_key, request_hash) VALUES (?, ?, ?)"
+                        + " ON CONFLICT DO NOTHING",
+                operation,
+                key,
+                requestHash);
+        if (claimed == 1) {
+            TransactionSynchronizationManager.registerSynchronization(new Claim(operation, key, requestHash));
+            return Optional.empty();
+        }
+
+        Stored stored = jdbcTemplate.queryForObject(
+                "SELECT request_hash, response FROM idempotency_keys WHERE operation = ? AND idempotency_key = ?",
+                (rs, i) -> {
+                    try {
+                        return new Stored(rs.getBytes(1), parser.parseFrom(rs.getBytes(2)));
+                    } catch (InvalidProtocolBufferException e) {
+                        throw new IllegalStateException("Unreadable stored response for idempotency key " + key, e);
+                    }
+                },
+                operation,
+                key);
+        stored.matching(requestHash, key);
+        recent.put(cacheKey(operation, key), stored);
+        @SuppressWarnings("unchecked")
+        T response = (T) stored.response();
+        return Optional.of(response);
+    }
+
+    /** Records the response for a key claimed in the current transaction. */
+    public void complete(String operation, String key, Message response) {
+        if (key.isBlank()) {
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof Claim claim && claim.matches(operation, key)) {
+                claim.response = response;
+                return;
+            }
+        }
+        throw new IllegalStateException("Idempotency key not claimed in this transaction: " + key);
+    }
+
+    /** Deletes keys older than the TTL in batches, so no single statement holds locks for long. */
+    @Scheduled(
+            fixedDelayString = "${idempotency.purge-interval:PT10M}",
+            initialDelayString = "${idempotency.purge-interval:PT10M}")
+    public void purgeExpired() {
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(ttl));
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(
+                    "DELETE FROM idempotency_keys WHERE (operation, idempotency_key) IN ("
+                            + "SELECT operation, idempotency_key FROM idempotency_keys WHERE created_at < ? LIMIT ?)",
+                    cutoff,
+                    PURGE_BATCH_SIZE);
+        } while (deleted == PURGE_BATCH_SIZE);
+    }
+
+    private static String cacheKey(String operation, String key) {
+        return operation + ':' + key;
+    }
+
+    /** SHA-256 of {@code request} with its {@code idempotencyKey} field cleared. */
+    static byte[] requestHash(Message request) {
+        FieldDescriptor keyField = request.getDescriptorForType().findFieldByName("idempotencyKey");
+        Message withoutKey = keyField == null ? request : request.toBuilder().clearField(keyField).build();
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(withoutKey.toByteArray());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** A completed key: the hash of the request that claimed it, null before V19, and its response. */
+    private record Stored(byte[] requestHash, Message response) {
+
+        Stored matching(byte[] hash, String key) {
+            if (requestHash != null && !MessageDigest.isEqual(requestHash, hash)) {
+                throw Status.FAILED_PRECONDITION
+                        .withDescription("Idempotency key " + key + " was already used for a different request")
+                        .asRuntimeException();
+            }
+            return this;
+        }
+    }
+
+    /** A key claimed by the current transaction; writes or releases it right before commit. */
+    private final class Claim implements TransactionSynchronization {
+        private final String operation;
+        private final String key;
+        private final byte[] requestHash;
+        private Message response;
+
+        Claim(String operation, String key, byte[] requestHash) {
+            this.operation = operation;
+            this.key = key;
+            this.requestHash = requestHash;
+        }
+
+        boolean matches(String operation, String key) {
+            return this.operation.equals(operation) && this.key.equals(key);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (response != null) {
+                jdbcTemplate.update(
+                        "UPDATE idempotency_keys SET response = ? WHERE operation = ? AND idempotency_key = ?",
+                        response.toByteArray(),
+                        operation,
+                        key);
+            } else {
+                jdbcTemplate.update(
+                        "DELETE FROM idempotency_keys WHERE operation = ? AND idempotency_key = ?", operation, key);
+            }
+        }
+
+        @Override
+        public void afterCommit() {
+            if (response != null) {
+                recent.put(cacheKey(operation, key), new Stored(requestHash, response));
+            }
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.arister.repository;
+
+import com.arister.common.money.Money;
+import com.arister.enums.AccountType;
+import com.arister.model.Account;
+import com.arister.model.Transaction;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Daily interest accrual (V17). A day's run is {@link #plan}ned as partitions of the account id range,
+ * each with a checkpoint row; a worker {@link #lockCheckpoint}s its partition, {@link #lockChunk}s the
+ * next accounts after the checkpoint, {@link #apply}s their interest and moves the {@link #checkpoint}
+ * on, all in one transaction, so a restart resumes after the last committed chunk.
+ *
+ * <p>Accounts are locked with {@code FOR UPDATE}, which a striped credit to one of them waits for,
+ * unlike the {@code FOR NO KEY UPDATE} Hibernate takes; chunks are short enough for that not to matter.
+ */
+@Component
+public class InterestAccrualStore {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public InterestAccrualStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** The last day all of whose partitions completed, if any. */
+    public Optional<LocalDate> lastCompletedDay() {
+        return Optional.ofNullable(jdbcTemplate.queryForObject(
+                "SELECT MAX(accrual_date) FROM interest_accrual_checkpoints c WHERE NOT EXISTS ("
+                        + "SELECT 1 FROM interest_accrual_checkpoints o"
+                        + " WHERE o.accrual_date = c.accrual_date AND o.completed_at IS NULL)",
+                LocalDate.class));
+    }
+
+    /**
+     * Splits the ids of the accounts that earn interest into {@code partitions} ranges of equal width
+     * and adds their checkpoint rows for {@code day}, unless the day already has them. The rows go in
+     * with the first one, so instances planning the same day concurrently agree on one plan. Returns
+     * whether this call planned the day.
+     */
+    public boolean plan(LocalDate day, int partitions) {
+        Long[] bounds = jdbcTemplate.queryForObject(
+                "SELECT MIN(id), MAX(id) FROM accounts WHERE account_type IN ('SAVINGS', 'FIXED_DEPOSIT')",
+                (rs, i) -> new Long[] {rs.getObject(1, Long.class), rs.getObject(2, Long.class)});
+        long first = bounds[0] != null ? bounds[0] - 1 : 0;
+        long width = bounds[0] != null ? Math.ceilDiv(bounds[1] - first, partitions) : 0;
+        List<Object[]> rows = new ArrayList<>(partitions);
+        long lower = 0;
+        for (int p = 0; p < partitions; p++) {
+            long upper = p == partitions - 1 ? Long.MAX_VALUE : first + width * (p + 1);
+            rows.add(new Object[] {Date.valueOf(day), p, upper, lower});
+            lower = upper;
+        }
+        String insert = "INSERT INTO interest_accrual_checkpoints (accrual_date, partition_no, upper_id, checkpoint_id)"
+                + " VALUES (?, ?, ?, ?)";
+        if (jdbcTemplate.update(insert + " ON CONFLICT DO NOTHING", rows.getFirst()) == 0) {
+            return false;
+        }
+        jdbcTemplate.batchUpdate(insert, rows.subList(1, rows.size()));
+        return true;
+    }
+
+    /** The day's partitions that have not completed. */
+    public List<Integer> openPartitions(LocalDate day) {
+        return jdbcTemplate.queryForList(
+                "SELECT partition_no FROM interest_accrual_checkpoints"
+                        + " WHERE accrual_date = ? AND completed_at IS NULL ORDER BY partition_no",
+                Integer.class,
+                Date.valueOf(day));
+    }
+
+    /**
+     * Locks the partition's checkpoint row for the current transaction, or returns empty when the
+     * partition has completed.
+     */
+    public Optional<Checkpoint> lockCheckpoint(LocalDate day, int partition) {
+        return jdbcTemplate
+                .query(
+                        "SELECT checkpoint_id, upper_id FROM interest_accrual_checkpoints"
+                                + " WHERE accrual_date = ? AND partition_no = ? AND completed_at IS NULL FOR UPDATE",
+                        (rs, i) -> new Checkpoint(rs.getLong(1), rs.getLong(2)),
+                        Date.valueOf(day),
+                        partition)
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Locks up to {@code limit} accounts with ids in {@code (afterId, upperId]} that earn interest for
+     * {@code day} and have not been accrued for it, in id order, each with its balance at the end of
+     * {@code day}. The accounts carry only what the accrual needs.
+     *
+     * <p>The end-of-day balance is the account's {@link BalanceSnapshotStore snapshot} for the day. An
+     * account without one, because it had no transactions that day or the day is not snapshotted yet,
+     * is worked back from its current balance and stripes, less every transaction since the day ended.
+     */
+    public List<Accrual> lockChunk(LocalDate day, long afterId, long upperId, int limit) {
+        Timestamp dayEnd = Timestamp.from(day.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant());
+        return jdbcTemplate.query(
+                "SELECT id, account_number, customer_id, account_type, currency, balance, interest_rate,"
+                        + " accrued_interest, COALESCE((SELECT b.balance FROM balance_snapshots b"
+                        + " WHERE b.account_id = accounts.id AND b.as_of_date = ?), balance"
+                        + " + CASE WHEN balance_stripes > 0 THEN (SELECT COALESCE(SUM(s.amount), 0)"
+                        + " FROM account_balance_stripes s WHERE s.account_id = accounts.id) ELSE 0 END"
+                        + " - (SELECT COALESCE(SUM(t.balance_after - t.balance_before), 0) FROM transactions t"
+                        + " WHERE t.account_id = accounts.id AND t.created_at >= ?))"
+                        + " FROM accounts WHERE id > ? AND id <= ? AND account_type IN ('SAVINGS', 'FIXED_DEPOSIT')"
+                        + " AND status <> 'CLOSED' AND interest_rate > 0 AND created_at < ?"
+                        + " AND (interest_accrued_through IS NULL OR interest_accrued_through < ?)"
+                        + " ORDER BY id LIMIT ? FOR UPDATE",
+                (rs, i) -> new Accrual(
+                        Account.builder()
+                                .id(rs.getLong(1))
+                                .accountNumber(rs.getString(2))
+                                .customerId(rs.getLong(3))
+                                .accountType(AccountType.valueOf(rs.getString(4)))
+                                .currency(rs.getString(5))
+                                .balance(Money.minor(rs.getBigDecimal(6)))
+                                .interestRate(rs.getBigDecimal(7))
+                                .accruedInterest(rs.getBigDecimal(8))
+                                .build(),
+                        Money.minor(rs.getBigDecimal(9))),
+                Date.valueOf(day),
+                dayEnd,
+                afterId,
+                upperId,
+                dayEnd,
+                Date.valueOf(day),
+                limit);
+    }
+
+    /**
+     * Inserts the interest postings and writes the accounts' balance and accrued interest, marking
+     * them accrued through {@code day}, each in one batch. The accounts must be locked by
+     * {@link #lockChunk} in the current transaction.
+     */
+    public void apply(LocalDate day, List<Account> accounts, List<Transaction> postings) {
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO transactions (id, transaction_ref, account_id, transaction_type, amount, balance_before,"
+                        + " balance_after, description, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                postings,
+                postings.size(),
+                (ps, t) -> {
+                    ps.setLong(1, t.getId());
+                    ps.setString(2, t.getTransactionRef());
+                    ps.setLong(3, t.getAccountId());
+                    ps.setString(4, t.getTransactionType().name());
+                    ps.setBigDecimal(5, Money.decimal(t.getAmount()));
+                    ps.setBigDecimal(6, Money.decimal(t.getBalanceBefore()));
+                    ps.setBigDecimal(7, Money.decimal(t.getBalanceAfter()));
+                    ps.setString(8, t.getDescription());
+                    ps.setTimestamp(9, Timestamp.from(t.getCreatedAt().toInstant()));
+                    ps.setTimestamp(10, Timestamp.from(t.getUpdatedAt().toInstant()));
+                });
+        Timestamp now = Timestamp.from(ZonedDateTime.now(ZoneOffset.UTC).toInstant());
+        jdbcTemplate.batchUpdate(
+                "UPDATE accounts SET balance = ?, accrued_interest = ?, interest_accrued_through = ?, updated_at = ?"
+                        + " WHERE id = ?",
+                accounts,
+                accounts.size(),
+                (ps, a) -> {
+                    ps.setBigDecimal(1, Money.decimal(a.getBalance()));
+                    ps.setBigDecimal(2, a.getAccruedInterest());
+                    ps.setDate(3, Date.valueOf(day));
+                    ps.setTimestamp(4, now);
+                    ps.setLong(5, a.getId());
+                });
+    }
+
+    /**
+     * Moves the partition's checkpoint to {@code lastId}, completing the partition if {@code completed}.
+     * Must run in the transaction holding the lock from {@link #lockCheckpoint}.
+     */
+    public void checkpoint(LocalDate day, int partition, long lastId, boolean completed) {
+        jdbcTemplate.update(
+                "UPDATE interest_accrual_checkpoints SET checkpoint_id = ?,"
+                        + " completed_at = CASE WHEN ? THEN CURRENT_TIMESTAMP ELSE NULL END"
+                        + " WHERE accrual_date = ? AND partition_no = ?",
+                lastId,
+                completed,
+                Date.valueOf(day),
+                partition);
+    }
+
+    /** Where a partition resumes: after {@code checkpointId}, through {@code upperId}. */
+    public record Checkpoint(long checkpointId, long upperId) {}
+
+    /** A locked account and its balance, stripes included, at the end of the day being accrued. */
+    public record Accrual(Account account, long endOfDayBalance) {}
+}
@@ -0,0 +1,157 @@
+package com.arister.repository;
+
+import com.arister.proto.LedgerEvent;
+import com.google.protobuf.InvalidProtocolBufferException;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * The ledger event outbox and published event log (V15). Postings {@link #add} their events, which
+ * reach {@code ledger_outbox} in one batch insert right before the posting commits; the relay moves
+ * them to {@code ledger_events} under consecutive offsets, and subscribers read them back
+ * {@link #after} an offset.
+ */
+@Component
+public class LedgerEventStore {
+
+    private static final int PURGE_BATCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration retention;
+
+    public LedgerEventStore(JdbcTemplate jdbcTemplate, @Value("${ledger-events.retention:7d}") Duration retention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.retention = retention;
+    }
+
+    /** Queues an event for the outbox; it is written if and when the current transaction commits. */
+    public void add(LedgerEvent event) {
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new Pending();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.payloads.add(event.toByteArray());
+    }
+
+    /**
+     * Locks the head row for the current transaction and returns the last offset handed out, or empty
+     * when another relay holds it.
+     */
+    public Optional<Long> lockHead() {
+        return jdbcTemplate
+                .queryForList("SELECT last_offset FROM ledger_event_head WHERE id = 1 FOR UPDATE SKIP LOCKED", Long.class)
+                .stream()
+                .findFirst();
+    }
+
+    /** The oldest {@code limit} outbox rows. */
+    public List<Outboxed> outboxed(int limit) {
+        return jdbcTemplate.query(
+                "SELECT id, payload FROM ledger_outbox ORDER BY id LIMIT ?",
+                (rs, i) -> new Outboxed(rs.getLong(1), rs.getBytes(2)),
+                limit);
+    }
+
+    /**
+     * Publishes {@code rows} at the offsets following {@code lastOffset}, removes them from the outbox
+     * and advances the head. Must run in the transaction holding the lock from {@link #lockHead}.
+     * Returns the new last offset.
+     */
+    public long publish(List<Outboxed> rows, long lastOffset) {
+        List<Object[]> events = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            events.add(new Object[] {lastOffset + 1 + i, rows.get(i).payload()});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO ledger_events (event_offset, payload) VALUES (?, ?)", events);
+        // by id, not by range: a row with a lower id may have committed since it was read
+        Long[] ids = rows.stream().map(Outboxed::id).toArray(Long[]::new);
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement("DELETE FROM ledger_outbox WHERE id = ANY(?)");
+            Array array = con.createArrayOf("BIGINT", ids);
+            ps.setArray(1, array);
+            return ps;
+        });
+        long newLast = lastOffset + rows.size();
+        jdbcTemplate.update("UPDATE ledger_event_head SET last_offset = ? WHERE id = 1", newLast);
+        return newLast;
+    }
+
+    /** The last offset handed out, without locking. */
+    public long head() {
+        return jdbcTemplate.queryForObject("SELECT last_offset FROM ledger_event_head WHERE id = 1", Long.class);
+    }
+
+    /** Offset of the oldest retained event, or the next offset to be published when none is. */
+    public long oldestOffset() {
+        Long oldest = jdbcTemplate.queryForObject("SELECT MIN(event_offset) FROM ledger_events", Long.class);
+        return oldest != null ? oldest : head() + 1;
+    }
+
+    /** Up to {@code limit} published events after {@code offset}, oldest first. */
+    public List<LedgerEvent> after(long offset, int limit) {
+        return jdbcTemplate.query(
+                "SELECT event_offset, payload FROM ledger_events WHERE event_offset > ? ORDER BY event_offset LIMIT ?",
+                (rs, i) -> parse(rs.getBytes(2)).toBuilder().setOffset(rs.getLong(1)).build(),
+                offset,
+                limit);
+    }
+
+    /** Deletes events published more than {@code ledger-events.retention} ago, in batches. */
+    @Scheduled(
+            fixedDelayString = "${ledger-events.purge-interval:PT10M}",
+            initialDelayString = "${ledger-events.purge-interval:PT10M}")
+    public void purgeExpired() {
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(retention));
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(
+                    "DELETE FROM ledger_events WHERE event_offset IN ("
+                            + "SELECT event_offset FROM ledger_events WHERE published_at < ? LIMIT ?)",
+                    cutoff,
+                    PURGE_BATCH_SIZE);
+        } while (deleted == PURGE_BATCH_SIZE);
+    }
+
+    private static LedgerEvent parse(byte[] payload) {
+        try {
+            return LedgerEvent.parseFrom(payload);
+        } catch (InvalidProtocolBufferException e) {
+            throw new IllegalStateException("Unreadable ledger event payload", e);
+        }
+    }
+
+    public record Outboxed(long id, byte[] payload) {}
+
+    /** Events added by the current transaction; written to the outbox in one batch before commit. */
+    private final class Pending implements TransactionSynchronization {
+        final List<byte[]> payloads = new ArrayList<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO ledger_outbox (payload) VALUES (?)",
+                    payloads,
+                    payloads.size(),
+                    (ps, payload) -> ps.setBytes(1, payload));
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(LedgerEventStore.this);
+        }
+    }
+}
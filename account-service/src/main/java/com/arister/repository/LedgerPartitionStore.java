@@ -0,0 +1,77 @@
+package com.arister.repository;
+
+import java.sql.Date;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Monthly partitions of {@code transactions} and {@code transfers} (V13), named
+ * {@code <table>_yYYYYmMM}. PostgreSQL only: the test and benchmark schemas are not partitioned.
+ */
+@Component
+public class LedgerPartitionStore {
+
+    public static final List<String> TABLES = List.of("transactions", "transfers");
+
+    private static final Pattern MONTHLY = Pattern.compile("(transactions|transfers)_y(\\d{4})m(\\d{2})");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LedgerPartitionStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Whether the ledger tables are partitioned, which they are on PostgreSQL once V13 has run. */
+    public boolean partitioned() {
+        String database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equals(database)
+                && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                        "SELECT EXISTS (SELECT 1 FROM pg_class"
+                                + " WHERE oid = to_regclass('transactions') AND relkind = 'p')",
+                        Boolean.class));
+    }
+
+    /** Creates the missing partitions of both tables for {@code [from, through]}; returns how many. */
+    public int create(YearMonth from, YearMonth through) {
+        return jdbcTemplate.queryForObject(
+                "SELECT create_ledger_partitions(?, ?)",
+                Integer.class,
+                Date.valueOf(from.atDay(1)),
+                Date.valueOf(through.atDay(1)));
+    }
+
+    /** Partitions currently attached to {@code table}, by month. */
+    public SortedMap<YearMonth, String> attached(String table) {
+        SortedMap<YearMonth, String> partitions = new TreeMap<>();
+        jdbcTemplate.query(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid"
+                        + " WHERE i.inhparent = CAST(? AS regclass)",
+                rs -> {
+                    Matcher name = MONTHLY.matcher(rs.getString(1));
+                    if (name.matches() && name.group(1).equals(table)) {
+                        partitions.put(
+                                YearMonth.of(Integer.parseInt(name.group(2)), Integer.parseInt(name.group(3))),
+                                name.group());
+                    }
+                },
+                table);
+        return partitions;
+    }
+
+    /**
+     * Detaches a partition, leaving it as a standalone table to archive and drop. {@code CONCURRENTLY}
+     * takes only a share update exclusive lock on the parent, so reads and writes of the other months
+     * go on; it waits for transactions already using the partition and cannot run inside a transaction.
+     */
+    public void detach(String table, String partition) {
+        jdbcTemplate.execute("ALTER TABLE " + table + " DETACH PARTITION " + partition + " CONCURRENTLY");
+    }
+}
@@ -0,0 +1,206 @@
+package com.arister.repository;
+
+import com.arister.common.money.Money;
+import com.arister.enums.AccountType;
+import com.arister.model.Account;
+import com.arister.model.Transaction;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Monthly maintenance fees on accounts below their minimum balance (V18). A month's run walks the
+ * accounts in id order, one chunk per transaction: {@link #lockCheckpoint}, {@link #chunkEnd}, lock
+ * the chunk's accounts that owe the fee with {@link #lockBelowMinimum}, {@link #charge} them with one
+ * {@code INSERT ... SELECT} and one {@code UPDATE}, and move the {@link #checkpoint} on.
+ */
+@Component
+public class MaintenanceFeeStore {
+
+    /** An account's balance including the credits held in its stripes. */
+    private static final String TOTAL_BALANCE = "(balance + CASE WHEN balance_stripes > 0"
+            + " THEN (SELECT COALESCE(SUM(s.amount), 0) FROM account_balance_stripes s"
+            + " WHERE s.account_id = accounts.id) ELSE 0 END)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MaintenanceFeeStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Adds the month's checkpoint row unless it exists. */
+    public void start(LocalDate period) {
+        jdbcTemplate.update(
+                "INSERT INTO maintenance_fee_checkpoints (fee_period, checkpoint_id) VALUES (?, 0)"
+                        + " ON CONFLICT DO NOTHING",
+                Date.valueOf(period));
+    }
+
+    /**
+     * Locks the month's checkpoint row for the current transaction and returns the last account id
+     * charged through, or empty when the month's run has completed.
+     */
+    public Optional<Long> lockCheckpoint(LocalDate period) {
+        return jdbcTemplate
+                .queryForList(
+                        "SELECT checkpoint_id FROM maintenance_fee_checkpoints"
+                                + " WHERE fee_period = ? AND completed_at IS NULL FOR UPDATE",
+                        Long.class,
+                        Date.valueOf(period))
+                .stream()
+                .findFirst();
+    }
+
+    /** Id of the last of the next {@code size} accounts after {@code afterId}, or empty when there are none. */
+    public Optional<Long> chunkEnd(long afterId, int size) {
+        return Optional.ofNullable(jdbcTemplate.queryForObject(
+                "SELECT MAX(id) FROM (SELECT id FROM accounts WHERE id > ? ORDER BY id LIMIT ?) chunk",
+                Long.class,
+                afterId,
+                size));
+    }
+
+    /**
+     * Locks the active accounts with ids in {@code (afterId, upperId]} that owe {@code fee} minor units for
+     * {@code period}: opened before the month ended, not yet charged for it, with a balance below their
+     * minimum and enough balance and overdraft to cover the fee, stripes included in both. Their stripes
+     * are settled into their balances, as for any debit, and the accounts carry only what the charge needs.
+     */
+    public List<Account> lockBelowMinimum(LocalDate period, long afterId, long upperId, long fee) {
+        List<Account> accounts = jdbcTemplate.query(
+                "SELECT id, account_number, customer_id, account_type, currency, balance FROM accounts"
+                        + " WHERE id > ? AND id <= ? AND status = 'ACTIVE' AND created_at < ?"
+                        + " AND (maintenance_fee_period IS NULL OR maintenance_fee_period < ?)"
+                        + " AND " + TOTAL_BALANCE + " < min_balance"
+                        + " AND " + TOTAL_BALANCE + " - ? >= -overdraft_limit"
+                        + " ORDER BY id FOR UPDATE",
+                (rs, i) -> Account.builder()
+                        .id(rs.getLong(1))
+                        .accountNumber(rs.getString(2))
+                        .customerId(rs.getLong(3))
+                        .accountType(AccountType.valueOf(rs.getString(4)))
+                        .currency(rs.getString(5))
+                        .balance(Money.minor(rs.getBigDecimal(6)))
+                        .build(),
+                afterId,
+                upperId,
+                Timestamp.from(period.plusMonths(1).atStartOfDay(ZoneOffset.UTC).toInstant()),
+                Date.valueOf(period),
+                Money.decimal(fee));
+        Map<Long, Long> held = settle(accounts.stream().map(Account::getId).toArray(Long[]::new));
+        accounts.forEach(account -> account.setBalance(account.getBalance() + held.getOrDefault(account.getId(), 0L)));
+        return accounts;
+    }
+
+    /**
+     * Locks the stripes of the locked accounts, moves what they hold into the balances and returns it
+     * per account, in minor units, like {@link BalanceStripeStore#fold} for one account.
+     */
+    private Map<Long, Long> settle(Long[] accountIds) {
+        if (accountIds.length == 0) {
+            return Map.of();
+        }
+        Map<Long, Long> held = new HashMap<>();
+        jdbcTemplate.query(
+                con -> {
+                    PreparedStatement ps = con.prepareStatement("SELECT account_id, amount FROM account_balance_stripes"
+                            + " WHERE account_id = ANY(?) ORDER BY account_id, slot FOR UPDATE");
+                    ps.setArray(1, bigints(con, accountIds));
+                    return ps;
+                },
+                rs -> {
+                    held.merge(rs.getLong(1), Money.minor(rs.getBigDecimal(2)), Long::sum);
+                });
+        held.values().removeIf(amount -> amount == 0);
+        if (!held.isEmpty()) {
+            Long[] settled = held.keySet().toArray(Long[]::new);
+            jdbcTemplate.update(con -> {
+                PreparedStatement ps = con.prepareStatement("UPDATE accounts SET balance = balance + (SELECT"
+                        + " SUM(s.amount) FROM account_balance_stripes s WHERE s.account_id = accounts.id)"
+                        + " WHERE id = ANY(?)");
+                ps.setArray(1, bigints(con, settled));
+                return ps;
+            });
+            jdbcTemplate.update(con -> {
+                PreparedStatement ps = con.prepareStatement(
+                        "UPDATE account_balance_stripes SET amount = 0 WHERE account_id = ANY(?) AND amount <> 0");
+                ps.setArray(1, bigints(con, settled));
+                return ps;
+            });
+        }
+        return held;
+    }
+
+    /**
+     * Charges {@code fees}, one per account, all of the same amount, description and time: inserts
+     * them with their balances read from {@code accounts}, then debits the accounts and marks them
+     * charged for {@code period}. The accounts must be locked by {@link #lockBelowMinimum} in the
+     * current transaction.
+     */
+    public void charge(LocalDate period, List<Transaction> fees) {
+        if (fees.isEmpty()) {
+            return;
+        }
+        Transaction first = fees.getFirst();
+        Long[] accountIds = fees.stream().map(Transaction::getAccountId).toArray(Long[]::new);
+        Long[] ids = fees.stream().map(Transaction::getId).toArray(Long[]::new);
+        String[] refs = fees.stream().map(Transaction::getTransactionRef).toArray(String[]::new);
+        Timestamp at = Timestamp.from(first.getCreatedAt().toInstant());
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                    "INSERT INTO transactions (id, transaction_ref, account_id, transaction_type, amount,"
+                            + " balance_before, balance_after, description, created_at, updated_at)"
+                            + " SELECT f.txn_id, f.ref, a.id, 'FEE', ?, a.balance, a.balance - ?, ?,"
+                            // untyped parameters in a select list would otherwise be taken as text
+                            + " CAST(? AS TIMESTAMP WITH TIME ZONE), CAST(? AS TIMESTAMP WITH TIME ZONE)"
+                            + " FROM accounts a JOIN UNNEST(?, ?, ?) AS f(account_id, txn_id, ref)"
+                            + " ON f.account_id = a.id");
+            ps.setBigDecimal(1, Money.decimal(first.getAmount()));
+            ps.setBigDecimal(2, Money.decimal(first.getAmount()));
+            ps.setString(3, first.getDescription());
+            ps.setTimestamp(4, at);
+            ps.setTimestamp(5, at);
+            ps.setArray(6, bigints(con, accountIds));
+            ps.setArray(7, bigints(con, ids));
+            ps.setArray(8, con.createArrayOf("VARCHAR", refs));
+            return ps;
+        });
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement("UPDATE accounts SET balance = balance - ?,"
+                    + " maintenance_fee_period = ?, updated_at = ? WHERE id = ANY(?)");
+            ps.setBigDecimal(1, Money.decimal(first.getAmount()));
+            ps.setDate(2, Date.valueOf(period));
+            ps.setTimestamp(3, at);
+            ps.setArray(4, bigints(con, accountIds));
+            return ps;
+        });
+    }
+
+    /**
+     * Moves the month's checkpoint to {@code lastId}, completing the run if {@code completed}. Must run
+     * in the transaction holding the lock from {@link #lockCheckpoint}.
+     */
+    public void checkpoint(LocalDate period, long lastId, boolean completed) {
+        jdbcTemplate.update(
+                "UPDATE maintenance_fee_checkpoints SET checkpoint_id = ?,"
+                        + " completed_at = CASE WHEN ? THEN CURRENT_TIMESTAMP ELSE NULL END WHERE fee_period = ?",
+                lastId,
+                completed,
+                Date.valueOf(period));
+    }
+
+    private static Array bigints(Connection con, Long[] values) throws SQLException {
+        return con.createArrayOf("BIGINT", values);
+    }
+}
@@ -1,10 +1,85 @@
 package com.arister.repository;
 
 import com.arister.model.Transaction;
+import jakarta.persistence.QueryHint;
+import java.time.ZonedDateTime;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+/**
+ * History queries all bound {@code createdAt}, the partition key of {@code transactions} (V13), so the
+ * database reads only the months in {@code [from, to)}. Callers without a range pass
+ * {@code CreatedAtRange.EARLIEST} and {@code LATEST}.
+ */
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
-    Page<Transaction> findByAccountId(Long accountId, Pageable pageable);
+
+    /** Order served by {@code idx_transactions_account_created} (V10). */
+    Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "createdAt", "id");
+
+    int STREAM_FETCH_SIZE = 500;
+
+    @Query(
+            value = "SELECT t FROM Transaction t WHERE t.accountId = :accountId AND t.createdAt >= :from"
+                    + " AND t.createdAt < :to",
+            countQuery = "SELECT COUNT(t) FROM Transaction t WHERE t.accountId = :accountId AND t.createdAt >= :from"
+                    + " AND t.createdAt < :to")
+    Page<Transaction> findByAccountIdBetween(
+            @Param("accountId") Long accountId,
+            @Param("from") ZonedDateTime from,
+            @Param("to") ZonedDateTime to,
+            Pageable pageable);
+
+    @Query("SELECT t FROM Transaction t WHERE t.accountId = :accountId AND t.createdAt >= :from AND t.createdAt < :to")
+    Slice<Transaction> findSliceByAccountIdBetween(
+            @Param("accountId") Long accountId,
+            @Param("from") ZonedDateTime from,
+            @Param("to") ZonedDateTime to,
+            Pageable pageable);
+
+    @Query("SELECT COUNT(t) FROM Transaction t WHERE t.accountId = :accountId AND t.createdAt >= :from"
+            + " AND t.createdAt < :to")
+    long countByAccountIdBetween(
+            @Param("accountId") Long accountId, @Param("from") ZonedDateTime from, @Param("to") ZonedDateTime to);
+
+    /**
+     * Keyset page: the account's transactions in {@code [from, to)} strictly older than
+     * {@code (createdAt, id)}, newest first. Reads only {@code pageable.getPageSize() + 1} index entries
+     * however deep the page is. The row comparison does not prune partitions, so it is repeated as a
+     * plain bound on {@code createdAt}, which skips the months after the previous page.
+     */
+    @Query("SELECT t FROM Transaction t WHERE t.accountId = :accountId AND t.createdAt >= :from AND t.createdAt < :to"
+            + " AND t.createdAt <= :createdAt AND (t.createdAt, t.id) < (:createdAt, :id)"
+            + " ORDER BY t.createdAt DESC, t.id DESC")
+    Slice<Transaction> findByAccountIdBefore(
+            @Param("accountId") Long accountId,
+            @Param("createdAt") ZonedDateTime createdAt,
+            @Param("id") Long id,
+            @Param("from") ZonedDateTime from,
+            @Param("to") ZonedDateTime to,
+            Pageable pageable);
+
+    /**
+     * Streams the account's transactions in {@code [from, to)}, oldest first, over a server-side cursor
+     * that fetches {@value #STREAM_FETCH_SIZE} rows per round trip. Must be consumed inside a
+     * transaction, and callers should detach each entity once used so the persistence context stays
+     * small.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t FROM Transaction t WHERE t.accountId = :accountId AND t.createdAt >= :from AND t.createdAt < :to"
+            + " ORDER BY t.createdAt, t.id")
+    Stream<Transaction> streamByAccountIdBetween(
+            @Param("accountId") Long accountId,
+            @Param("from") ZonedDateTime from,
+            @Param("to") ZonedDateTime to);
 }
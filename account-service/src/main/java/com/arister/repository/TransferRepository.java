@@ -1,14 +1,74 @@
 package com.arister.repository;
 
 import com.arister.model.Transfer;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import java.time.ZonedDateTime;
+import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+/**
+ * Like {@link TransactionRepository}, history queries bound {@code created_at}, the partition key of
+ * {@code transfers} (V13), to {@code [from, to)}.
+ */
 public interface TransferRepository extends JpaRepository<Transfer, Long> {
 
-    @Query("SELECT t FROM Transfer t WHERE t.fromAccountId = :accountId OR t.toAccountId = :accountId")
-    Page<Transfer> findByAccountId(@Param("accountId") Long accountId, Pageable pageable);
+    /**
+     * An account's transfers in either direction that sort strictly after {@code (createdAt, id)},
+     * newest first, skipping {@code offset} and returning at most {@code limit}. Written as UNION ALL of
+     * one range scan per direction (V11 indexes), each stopping after {@code offset + limit} rows, so the
+     * cost follows the page size rather than the account's history. A transfer never has the same
+     * account on both sides, so the branches cannot overlap. The branches are derived tables rather
+     * than parenthesized selects because H2 (tests) keeps the first LIMIT bound to the latter. The
+     * plain {@code created_at <= :createdAt} repeats the keyset bound in a form partition pruning uses.
+     */
+    default List<Transfer> findByAccountIdBefore(
+            Long accountId,
+            ZonedDateTime createdAt,
+            Long id,
+            ZonedDateTime from,
+            ZonedDateTime to,
+            int offset,
+            int limit) {
+        return findByAccountIdBefore(accountId, createdAt, id, from, to, offset, limit, offset + limit);
+    }
+
+    @Query(
+            nativeQuery = true,
+            value =
+                    """
+                    SELECT * FROM (
+                        SELECT * FROM (
+                            SELECT * FROM transfers
+                            WHERE from_account_id = :accountId AND created_at >= :from AND created_at < :to
+                                AND created_at <= :createdAt AND (created_at, id) < (:createdAt, :id)
+                            ORDER BY created_at DESC, id DESC LIMIT :scanLimit) sent
+                        UNION ALL
+                        SELECT * FROM (
+                            SELECT * FROM transfers
+                            WHERE to_account_id = :accountId AND created_at >= :from AND created_at < :to
+                                AND created_at <= :createdAt AND (created_at, id) < (:createdAt, :id)
+                            ORDER BY created_at DESC, id DESC LIMIT :scanLimit) received
+                    ) t
+                    ORDER BY created_at DESC, id DESC
+                    LIMIT :pageLimit OFFSET :pageOffset
+                    """)
+    List<Transfer> findByAccountIdBefore(
+            @Param("accountId") Long accountId,
+            @Param("createdAt") ZonedDateTime createdAt,
+            @Param("id") Long id,
+            @Param("from") ZonedDateTime from,
+            @Param("to") ZonedDateTime to,
+            @Param("pageOffset") int pageOffset,
+            @Param("pageLimit") int pageLimit,
+            @Param("scanLimit") int scanLimit);
+
+    @Query(
+            nativeQuery = true,
+            value = "SELECT (SELECT COUNT(*) FROM transfers WHERE from_account_id = :accountId"
+                    + " AND created_at >= :from AND created_at < :to)"
+                    + " + (SELECT COUNT(*) FROM transfers WHERE to_account_id = :accountId"
+                    + " AND created_at >= :from AND created_at < :to)")
+    long countByAccountIdBetween(
+            @Param("accountId") Long accountId, @Param("from") ZonedDateTime from, @Param("to") ZonedDateTime to);
 }
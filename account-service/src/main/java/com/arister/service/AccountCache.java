@@ -0,0 +1,178 @@
+package com.arister.service;
+
+import com.arister.common.cache.TtlCache;
+import com.arister.common.metrics.MetricsSource;
+import com.arister.common.metrics.PrometheusWriter;
+import com.arister.model.Account;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Read-through cache of account snapshots for the lookup RPCs, keyed by id, by account number and by
+ * customer id. A hit, balance included, is answered without touching the database: every write to an
+ * account, postings and stripe credits among them, evicts all three keys once the write has committed.
+ *
+ * <p>Evictions only reach this instance, so {@code account.cache.ttl} bounds how long another
+ * instance's writes stay invisible here; the RPC contract states that bound.
+ *
+ * <p>A load that overlaps an eviction of the same key is not kept: every eviction bumps a version
+ * stripe, and a loader only caches its result if the stripe did not move while it was reading.
+ */
+@Slf4j
+@Component
+public class AccountCache implements MetricsSource {
+
+    private static final int STRIPES = 64;
+
+    private final TtlCache<Long, com.arister.proto.Account> byId;
+    private final TtlCache<String, com.arister.proto.Account> byNumber;
+    private final TtlCache<Long, List<com.arister.proto.Account>> byCustomer;
+    private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+
+    public AccountCache(
+            @Value("${account.cache.max-size:10000}") int maxSize, @Value("${account.cache.ttl:30s}") Duration ttl) {
+        this.byId = new TtlCache<>(maxSize, ttl);
+        this.byNumber = new TtlCache<>(maxSize, ttl);
+        this.byCustomer = new TtlCache<>(maxSize, ttl);
+    }
+
+    public Optional<com.arister.proto.Account> getById(
+            long id, Supplier<Optional<com.arister.proto.Account>> loader) {
+        return getOne(byId, id, loader);
+    }
+
+    public Optional<com.arister.proto.Account> getByNumber(
+            String accountNumber, Supplier<Optional<com.arister.proto.Account>> loader) {
+        return getOne(byNumber, accountNumber, loader);
+    }
+
+    public List<com.arister.proto.Account> getByCustomer(
+            long customerId, Supplier<List<com.arister.proto.Account>> loader) {
+        List<com.arister.proto.Account> cached = byCustomer.get(customerId);
+        return cached != null ? cached : readThrough(byCustomer, customerId, loader);
+    }
+
+    /**
+     * Evicts every entry that may show {@code account}. Inside a transaction this happens after commit,
+     * once per account however often it was written; otherwise immediately.
+     */
+    public void evict(Account account) {
+        Keys keys = new Keys(account.getId(), account.getAccountNumber(), account.getCustomerId());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evictNow(keys);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<Keys> pending = (Set<Keys>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Set<Keys> written = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, written);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(AccountCache.this);
+                    if (status == STATUS_COMMITTED) {
+                        written.forEach(AccountCache.this::evictNow);
+                    }
+                }
+            });
+            pending = written;
+        }
+        pending.add(keys);
+    }
+
+    /** Drops every entry, for callers that changed accounts without going through {@link #evict}. */
+    void invalidateAll() {
+        for (int i = 0; i < STRIPES; i++) {
+            versions.incrementAndGet(i);
+        }
+        byId.invalidateAll();
+        byNumber.invalidateAll();
+        byCustomer.invalidateAll();
+    }
+
+    @Scheduled(fixedRateString = "${account.cache.stats-interval:PT1M}")
+    public void logStats() {
+        log.info("Account cache by id: {}", stats(byId));
+        log.info("Account cache by number: {}", stats(byNumber));
+        log.info("Account cache by customer: {}", stats(byCustomer));
+    }
+
+    @Override
+    public void writeTo(PrometheusWriter out) {
+        out.family("account_cache_size", "gauge", "Entries held by the account cache");
+        out.sample("account_cache_size", byId.size(), "cache", "id");
+        out.sample("account_cache_size", byNumber.size(), "cache", "number");
+        out.sample("account_cache_size", byCustomer.size(), "cache", "customer");
+        out.family("account_cache_hits_total", "counter", "Account cache lookups answered from the cache");
+        out.sample("account_cache_hits_total", byId.hitCount(), "cache", "id");
+        out.sample("account_cache_hits_total", byNumber.hitCount(), "cache", "number");
+        out.sample("account_cache_hits_total", byCustomer.hitCount(), "cache", "customer");
+        out.family("account_cache_misses_total", "counter", "Account cache lookups that went to the database");
+        out.sample("account_cache_misses_total", byId.missCount(), "cache", "id");
+        out.sample("account_cache_misses_total", byNumber.missCount(), "cache", "number");
+        out.sample("account_cache_misses_total", byCustomer.missCount(), "cache", "customer");
+        out.family("account_cache_evictions_total", "counter", "Account cache entries dropped for size or age");
+        out.sample("account_cache_evictions_total", byId.evictionCount(), "cache", "id");
+        out.sample("account_cache_evictions_total", byNumber.evictionCount(), "cache", "number");
+        out.sample("account_cache_evictions_total", byCustomer.evictionCount(), "cache", "customer");
+    }
+
+    private <K> Optional<com.arister.proto.Account> getOne(
+            TtlCache<K, com.arister.proto.Account> cache, K key, Supplier<Optional<com.arister.proto.Account>> loader) {
+        com.arister.proto.Account cached = cache.get(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        return Optional.ofNullable(readThrough(cache, key, () -> loader.get().orElse(null)));
+    }
+
+    /** Loads {@code key} after a miss, and caches the result unless an eviction overlapped the load. */
+    private <K, V> V readThrough(TtlCache<K, V> cache, K key, Supplier<V> loader) {
+        int stripe = stripe(key);
+        long version = versions.get(stripe);
+        V loaded = loader.get();
+        if (loaded != null && versions.get(stripe) == version) {
+            cache.put(key, loaded);
+            // an eviction may have slipped in between the check and the put
+            if (versions.get(stripe) != version) {
+                cache.invalidate(key);
+            }
+        }
+        return loaded;
+    }
+
+    private void evictNow(Keys keys) {
+        versions.incrementAndGet(stripe(keys.id()));
+        versions.incrementAndGet(stripe(keys.customerId()));
+        byId.invalidate(keys.id());
+        byCustomer.invalidate(keys.customerId());
+        if (keys.accountNumber() != null) {
+            versions.incrementAndGet(stripe(keys.accountNumber()));
+            byNumber.invalidate(keys.accountNumber());
+        }
+    }
+
+    private static int stripe(Object key) {
+        return Math.floorMod(key.hashCode(), STRIPES);
+    }
+
+    private static String stats(TtlCache<?, ?> cache) {
+        return String.format(
+                "size=%d hits=%d misses=%d evictions=%d",
+                cache.size(), cache.hitCount(), cache.missCount(), cache.evictionCount());
+    }
+
+    private record Keys(long id, String accountNumber, long customerId) {}
+}
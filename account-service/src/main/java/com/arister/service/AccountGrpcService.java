@@ -1,51 +1,79 @@
 package com.arister.service;
 
-import com.arister.enums.AccountStatus;
-import com.arister.enums.AccountType;
+import com.arister.common.money.Money;
 import com.arister.model.Account;
 import com.arister.proto.AccountResponse;
 import com.arister.proto.AccountServiceGrpc;
+import com.arister.proto.BalanceAsOfResponse;
 import com.arister.proto.CreateAccountRequest;
+import com.arister.proto.CurrencyTotal;
+import com.arister.proto.CustomerPortfolioResponse;
 import com.arister.proto.DeleteAccountRequest;
 import com.arister.proto.DeleteAccountResponse;
 import com.arister.proto.GetAccountByNumberRequest;
 import com.arister.proto.GetAccountRequest;
+import com.arister.proto.GetBalanceAsOfRequest;
+import com.arister.proto.GetCustomerPortfolioRequest;
 import com.arister.proto.ListAccountsByCustomerRequest;
+import com.arister.proto.ListAccountsByCustomersRequest;
 import com.arister.proto.ListAccountsRequest;
 import com.arister.proto.ListAccountsResponse;
+import com.arister.proto.PortfolioTotal;
 import com.arister.proto.UpdateAccountRequest;
 import com.arister.repository.AccountRepository;
+import com.arister.repository.BalanceSnapshotStore;
+import com.arister.repository.LedgerIdAllocator;
+import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import java.math.BigDecimal;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import net.devh.boot.grpc.server.service.GrpcService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
 
 @GrpcService
 @RequiredArgsConstructor
 public class AccountGrpcService extends AccountServiceGrpc.AccountServiceImplBase {
 
+    static final int MAX_CUSTOMERS_PER_BATCH = 1000;
+
     private final AccountRepository accountRepository;
+    private final AccountCache accountCache;
+    private final PortfolioCache portfolioCache;
+    private final BalanceSnapshotStore balanceSnapshotStore;
+    private final LedgerIdAllocator ledgerIdAllocator;
+    private final BalanceStripes balanceStripes;
 
     @Override
     public void createAccount(CreateAccountRequest request, StreamObserver<AccountResponse> observer) {
         Account account = Account.builder()
+                .accountNumber(ledgerIdAllocator.nextAccountNumber())
                 .customerId(request.getCustomerId())
                 .branchId(request.getBranchId())
-                .accountType(AccountType.valueOf(request.getAccountType().name()))
+                .accountType(ProtoMapping.fromProto(request.getAccountType()))
                 .currency(request.getCurrency().isBlank() ? "USD" : request.getCurrency())
                 .interestRate(request.getInterestRate().isBlank() ? BigDecimal.ZERO : new BigDecimal(request.getInterestRate()))
-                .minBalance(request.getMinBalance().isBlank() ? new BigDecimal("500.00") : new BigDecimal(request.getMinBalance()))
-                .overdraftLimit(request.getOverdraftLimit().isBlank() ? BigDecimal.ZERO : new BigDecimal(request.getOverdraftLimit()))
+                .minBalance(request.getMinBalance().isBlank() ? Account.DEFAULT_MIN_BALANCE : Money.parseMinor(request.getMinBalance()))
+                .overdraftLimit(request.getOverdraftLimit().isBlank() ? 0 : Money.parseMinor(request.getOverdraftLimit()))
                 .build();
-        respond(observer, "Account created successfully", accountRepository.save(account));
+        Account created = accountRepository.save(account);
+        accountCache.evict(created);
+        portfolioCache.evict(created.getCustomerId());
+        respond(observer, "Account created successfully", created);
     }
 
     @Override
     public void getAccount(GetAccountRequest request, StreamObserver<AccountResponse> observer) {
-        accountRepository.findById(request.getId())
+        accountCache.getById(request.getId(), () -> accountRepository.findById(request.getId()).map(this::toProto))
                 .ifPresentOrElse(
                         a -> respond(observer, "Account found", a),
                         () -> notFound(observer, "Account not found: " + request.getId()));
@@ -53,27 +81,45 @@ public class AccountGrpcService extends AccountServiceGrpc.AccountServiceImplBas
 
     @Override
     public void getAccountByNumber(GetAccountByNumberRequest request, StreamObserver<AccountResponse> observer) {
-        accountRepository.findByAccountNumber(request.getAccountNumber())
+        accountCache.getByNumber(
+                        request.getAccountNumber(),
+                        () -> accountRepository.findByAccountNumber(request.getAccountNumber()).map(this::toProto))
                 .ifPresentOrElse(
                         a -> respond(observer, "Account found", a),
                         () -> notFound(observer, "Account not found: " + request.getAccountNumber()));
     }
 
+    /**
+     * Updates the given fields under the account's row lock, so a concurrent posting's balance is not
+     * overwritten. Setting {@code balanceStripes} settles the old stripes and creates the new ones.
+     */
     @Override
+    @Transactional
     public void updateAccount(UpdateAccountRequest request, StreamObserver<AccountResponse> observer) {
-        accountRepository.findById(request.getId())
+        if (request.hasBalanceStripes()
+                && (request.getBalanceStripes() < 0 || request.getBalanceStripes() > BalanceStripes.MAX_STRIPES)) {
+            observer.onError(Status.INVALID_ARGUMENT
+                    .withDescription("balanceStripes must be between 0 and " + BalanceStripes.MAX_STRIPES)
+                    .asRuntimeException());
+            return;
+        }
+        accountRepository.findByIdForUpdate(request.getId())
                 .ifPresentOrElse(account -> {
                     if (!request.getInterestRate().isBlank()) account.setInterestRate(new BigDecimal(request.getInterestRate()));
-                    if (!request.getMinBalance().isBlank()) account.setMinBalance(new BigDecimal(request.getMinBalance()));
-                    if (!request.getOverdraftLimit().isBlank()) account.setOverdraftLimit(new BigDecimal(request.getOverdraftLimit()));
-                    account.setStatus(AccountStatus.valueOf(request.getStatus().name()));
-                    respond(observer, "Account updated successfully", accountRepository.save(account));
+                    if (!request.getMinBalance().isBlank()) account.setMinBalance(Money.parseMinor(request.getMinBalance()));
+                    if (!request.getOverdraftLimit().isBlank()) account.setOverdraftLimit(Money.parseMinor(request.getOverdraftLimit()));
+                    account.setStatus(ProtoMapping.fromProto(request.getStatus()));
+                    if (request.hasBalanceStripes()) balanceStripes.restripe(account, request.getBalanceStripes());
+                    Account updated = accountRepository.save(account);
+                    accountCache.evict(updated);
+                    respond(observer, "Account updated successfully", updated);
                 }, () -> notFound(observer, "Account not found: " + request.getId()));
     }
 
     @Override
     public void deleteAccount(DeleteAccountRequest request, StreamObserver<DeleteAccountResponse> observer) {
-        if (!accountRepository.existsById(request.getId())) {
+        Account account = accountRepository.findById(request.getId()).orElse(null);
+        if (account == null) {
             observer.onNext(DeleteAccountResponse.newBuilder()
                     .setSuccess(false)
                     .setMessage("Account not found: " + request.getId())
@@ -81,12 +127,19 @@ public class AccountGrpcService extends AccountServiceGrpc.AccountServiceImplBas
             observer.onCompleted();
             return;
         }
-        accountRepository.deleteById(request.getId());
+        accountRepository.delete(account);
+        accountCache.evict(account);
+        portfolioCache.evict(account.getCustomerId());
         observer.onNext(DeleteAccountResponse.newBuilder().setSuccess(true).setMessage("Account deleted successfully").build());
         observer.onCompleted();
     }
 
+    /**
+     * The page and its count share one read-only transaction, so the accounts are loaded without
+     * dirty-checking snapshots and nothing is flushed.
+     */
     @Override
+    @Transactional(readOnly = true)
     public void listAccounts(ListAccountsRequest request, StreamObserver<ListAccountsResponse> observer) {
         int page = request.getPage();
         int size = request.getSize() > 0 ? request.getSize() : 20;
@@ -104,18 +157,141 @@ public class AccountGrpcService extends AccountServiceGrpc.AccountServiceImplBas
 
     @Override
     public void listAccountsByCustomer(ListAccountsByCustomerRequest request, StreamObserver<ListAccountsResponse> observer) {
-        List<Account> accounts = accountRepository.findByCustomerId(request.getCustomerId());
+        List<com.arister.proto.Account> accounts = accountCache.getByCustomer(
+                request.getCustomerId(),
+                () -> accountRepository.findByCustomerId(request.getCustomerId()).stream()
+                        .map(this::toProto)
+                        .toList());
+        observer.onNext(ListAccountsResponse.newBuilder()
+                .setSuccess(true)
+                .setMessage("Accounts fetched")
+                .addAllAccounts(accounts)
+                .setTotalCount(accounts.size())
+                .build());
+        observer.onCompleted();
+    }
+
+    /** Accounts of several customers in one query, for callers that render lists of customers. */
+    @Override
+    public void listAccountsByCustomers(
+            ListAccountsByCustomersRequest request, StreamObserver<ListAccountsResponse> observer) {
+        List<Long> customerIds = request.getCustomerIdsList().stream().distinct().toList();
+        if (customerIds.size() > MAX_CUSTOMERS_PER_BATCH) {
+            observer.onNext(ListAccountsResponse.newBuilder()
+                    .setSuccess(false)
+                    .setMessage("At most " + MAX_CUSTOMERS_PER_BATCH + " customers per request")
+                    .build());
+            observer.onCompleted();
+            return;
+        }
+        List<com.arister.proto.Account> accounts = customerIds.isEmpty()
+                ? List.of()
+                : accountRepository.findByCustomerIdIn(customerIds).stream()
+                        .map(this::toProto)
+                        .toList();
         observer.onNext(ListAccountsResponse.newBuilder()
                 .setSuccess(true)
                 .setMessage("Accounts fetched")
-                .addAllAccounts(accounts.stream().map(this::toProto).toList())
+                .addAllAccounts(accounts)
                 .setTotalCount(accounts.size())
                 .build());
         observer.onCompleted();
     }
 
+    /**
+     * The account's balance at a past instant: its last end-of-day snapshot before that day plus the
+     * transactions since, which is at most one day of them once {@link BalanceSnapshotJob} is up to
+     * date. Accounts open empty and every balance change is a transaction, so without a snapshot the
+     * replay starts from zero at the account's opening.
+     */
+    @Override
+    public void getBalanceAsOf(GetBalanceAsOfRequest request, StreamObserver<BalanceAsOfResponse> observer) {
+        ZonedDateTime asOf;
+        try {
+            asOf = request.getAsOf().isEmpty()
+                    ? ZonedDateTime.now(ZoneOffset.UTC)
+                    : ZonedDateTime.parse(request.getAsOf()).withZoneSameInstant(ZoneOffset.UTC);
+        } catch (DateTimeParseException e) {
+            observer.onError(Status.INVALID_ARGUMENT
+                    .withDescription("Invalid asOf: " + e.getParsedString())
+                    .asRuntimeException());
+            return;
+        }
+        Optional<Account> account = accountRepository.findById(request.getAccountId());
+        if (account.isEmpty() || asOf.isBefore(account.get().getCreatedAt())) {
+            observer.onNext(BalanceAsOfResponse.newBuilder()
+                    .setSuccess(false)
+                    .setMessage(account.isEmpty()
+                            ? "Account not found: " + request.getAccountId()
+                            : "Account " + request.getAccountId() + " was not open at " + asOf)
+                    .build());
+            observer.onCompleted();
+            return;
+        }
+
+        Optional<BalanceSnapshotStore.Snapshot> snapshot =
+                balanceSnapshotStore.latestBefore(request.getAccountId(), asOf.toLocalDate());
+        ZonedDateTime replayFrom = snapshot.map(s -> s.asOfDate().plusDays(1).atStartOfDay(ZoneOffset.UTC))
+                .orElse(account.get().getCreatedAt());
+        BalanceSnapshotStore.Delta delta = balanceSnapshotStore.replay(request.getAccountId(), replayFrom, asOf);
+        long balance = snapshot.map(BalanceSnapshotStore.Snapshot::balance).orElse(0L) + delta.amount();
+
+        observer.onNext(BalanceAsOfResponse.newBuilder()
+                .setSuccess(true)
+                .setMessage("Balance computed")
+                .setAccountId(request.getAccountId())
+                .setBalance(Money.format(balance))
+                .setBalanceMinor(balance)
+                .setAsOf(asOf.toString())
+                .setSnapshotDate(snapshot.map(s -> s.asOfDate().toString()).orElse(""))
+                .setReplayedTransactions(delta.transactions())
+                .build());
+        observer.onCompleted();
+    }
+
+    /**
+     * Balance totals of a customer's accounts by currency and account type. Served from
+     * {@link PortfolioCache}, which postings keep current; a miss runs one grouped query.
+     */
+    @Override
+    public void getCustomerPortfolio(
+            GetCustomerPortfolioRequest request, StreamObserver<CustomerPortfolioResponse> observer) {
+        PortfolioCache.Portfolio portfolio = portfolioCache.get(
+                request.getCustomerId(),
+                () -> PortfolioCache.Portfolio.of(accountRepository.sumBalancesByCustomer(request.getCustomerId())
+                        .stream()
+                        .collect(Collectors.toMap(
+                                t -> new PortfolioCache.Bucket(t.getCurrency(), t.getAccountType()),
+                                t -> new PortfolioCache.Total((int) t.getAccounts(), Money.minor(t.getBalance()))))));
+
+        CustomerPortfolioResponse.Builder response = CustomerPortfolioResponse.newBuilder()
+                .setSuccess(true)
+                .setMessage("Portfolio fetched")
+                .setCustomerId(request.getCustomerId());
+        Map<String, PortfolioCache.Total> byCurrency = new TreeMap<>();
+        portfolio.totals().forEach((bucket, total) -> {
+            response.addTotals(PortfolioTotal.newBuilder()
+                    .setCurrency(bucket.currency())
+                    .setAccountType(ProtoMapping.toProto(bucket.accountType()))
+                    .setAccountCount(total.accounts())
+                    .setBalance(Money.format(total.balance())));
+            byCurrency.merge(bucket.currency(), total, (a, b) ->
+                    new PortfolioCache.Total(a.accounts() + b.accounts(), a.balance() + b.balance()));
+        });
+        byCurrency.forEach((currency, total) -> response.addCurrencyTotals(CurrencyTotal.newBuilder()
+                .setCurrency(currency)
+                .setAccountCount(total.accounts())
+                .setBalance(Money.format(total.balance()))));
+        observer.onNext(response.build());
+        observer.onCompleted();
+    }
+
     private void respond(StreamObserver<AccountResponse> observer, String message, Account account) {
-        observer.onNext(AccountResponse.newBuilder().setSuccess(true).setMessage(message).setAccount(toProto(account)).build());
+        respond(observer, message, toProto(account));
+    }
+
+    private void respond(StreamObserver<AccountResponse> observer, String message, com.arister.proto.Account account) {
+        observer.onNext(AccountResponse.newBuilder().setSuccess(true).setMessage(message).setAccount(account).build());
         observer.onCompleted();
     }
 
@@ -130,15 +306,17 @@ public class AccountGrpcService extends AccountServiceGrpc.AccountServiceImplBas
                 .setAccountNumber(a.getAccountNumber() != null ? a.getAccountNumber() : "")
                 .setCustomerId(a.getCustomerId())
                 .setBranchId(a.getBranchId())
-                .setAccountType(com.arister.proto.AccountType.valueOf(a.getAccountType().name()))
-                .setBalance(a.getBalance() != null ? a.getBalance().toPlainString() : "0")
+                .setAccountType(ProtoMapping.toProto(a.getAccountType()))
+                .setBalance(Money.format(a.totalBalance()))
+                .setBalanceMinor(a.totalBalance())
                 .setCurrency(a.getCurrency() != null ? a.getCurrency() : "USD")
                 .setInterestRate(a.getInterestRate() != null ? a.getInterestRate().toPlainString() : "0")
-                .setMinBalance(a.getMinBalance() != null ? a.getMinBalance().toPlainString() : "0")
-                .setOverdraftLimit(a.getOverdraftLimit() != null ? a.getOverdraftLimit().toPlainString() : "0")
-                .setStatus(com.arister.proto.AccountStatus.valueOf(a.getStatus().name()))
-                .setCreatedAt(a.getCreatedAt() != null ? a.getCreatedAt().toString() : "");
-        if (a.getClosedAt() != null) b.setClosedAt(a.getClosedAt().toString());
+                .setMinBalance(Money.format(a.getMinBalance()))
+                .setOverdraftLimit(Money.format(a.getOverdraftLimit()))
+                .setStatus(ProtoMapping.toProto(a.getStatus()))
+                .setBalanceStripes(a.getBalanceStripes() != null ? a.getBalanceStripes() : 0);
+        if (a.getCreatedAt() != null) b.setCreatedAt(ProtoMapping.timestamp(a.getCreatedAt()));
+        if (a.getClosedAt() != null) b.setClosedAt(ProtoMapping.timestamp(a.getClosedAt()));
         return b.build();
     }
 }
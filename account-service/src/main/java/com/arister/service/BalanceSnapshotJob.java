@@ -0,0 +1,67 @@
+package com.arister.service;
+
+import com.arister.repository.BalanceSnapshotStore;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Takes the end-of-day balance snapshots behind {@code GetBalanceAsOf}. Each run snapshots, oldest
+ * first, every UTC day that has closed since the last snapshotted one, one day per transaction, so a
+ * service that was down catches up and a fresh table is backfilled from the first transaction.
+ *
+ * <p>A day counts as closed once it ended more than {@code balance-snapshot.settle} ago, leaving time
+ * for transactions stamped just before midnight to commit.
+ */
+@Slf4j
+@Component
+public class BalanceSnapshotJob {
+
+    private final BalanceSnapshotStore store;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration settle;
+
+    public BalanceSnapshotJob(
+            BalanceSnapshotStore store,
+            PlatformTransactionManager transactionManager,
+            @Value("${balance-snapshot.settle:5m}") Duration settle) {
+        this.store = store;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.settle = settle;
+    }
+
+    @Scheduled(cron = "${balance-snapshot.cron:0 10 0 * * *}", zone = "UTC")
+    public void run() {
+        catchUp(Instant.now());
+    }
+
+    /** Snapshots every day closed by {@code now} that is not yet snapshotted; returns how many. */
+    int catchUp(Instant now) {
+        LocalDate lastClosed = now.minus(settle).atZone(ZoneOffset.UTC).toLocalDate().minusDays(1);
+        int days = 0;
+        while (Boolean.TRUE.equals(transactionTemplate.execute(status -> snapshotNextDay(lastClosed)))) {
+            days++;
+        }
+        return days;
+    }
+
+    private boolean snapshotNextDay(LocalDate lastClosed) {
+        Optional<LocalDate> next = store.lockSnapshotThrough()
+                .map(day -> day.plusDays(1))
+                .or(store::firstTransactionDay);
+        if (next.isEmpty() || next.get().isAfter(lastClosed)) {
+            return false;
+        }
+        int accounts = store.snapshotDay(next.get());
+        log.info("Balance snapshot for {}: {} accounts", next.get(), accounts);
+        return true;
+    }
+}
@@ -0,0 +1,176 @@
+package com.arister.service;
+
+import com.arister.common.metrics.MetricsSource;
+import com.arister.common.metrics.PrometheusWriter;
+import com.arister.model.Account;
+import com.arister.repository.AccountRepository;
+import com.arister.repository.BalanceStripeStore;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Credits and debits of striped accounts (V16). A credit to a striped account reads the account
+ * without locking it and adds the amount to the stripe its transaction id hashes to, so concurrent
+ * credits to one hot account spread over its stripes instead of queueing on the account row. A debit
+ * locks the account row as usual and {@link #settle}s the stripes into the balance first, so the
+ * overdraft check sees every committed credit.
+ *
+ * <p>Account locks are {@code FOR NO KEY UPDATE} on PostgreSQL, which does not conflict with the key
+ * share lock a striped credit's transaction row takes on the account through its foreign key, so
+ * striped credits never wait for a debit or a fold.
+ *
+ * <p>{@link #fold} runs every {@code balance-stripes.fold-interval} to keep the stripes small and to
+ * refresh which accounts this instance treats as striped. That set is only a hint for how to load the
+ * account: a credit always goes by the row it read.
+ */
+@Component
+public class BalanceStripes implements MetricsSource {
+
+    /** Upper bound on stripes per account; more only widens the fold without spreading credits further. */
+    static final int MAX_STRIPES = 64;
+
+    private final BalanceStripeStore store;
+    private final AccountRepository accountRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile Set<Long> striped = Set.of();
+    private final AtomicLong stripedCredits = new AtomicLong();
+    private final AtomicLong folds = new AtomicLong();
+
+    public BalanceStripes(
+            BalanceStripeStore store,
+            AccountRepository accountRepository,
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager) {
+        this.store = store;
+        this.accountRepository = accountRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public record Credit(long balanceBefore, long balanceAfter, Integer slot) {}
+
+    /**
+     * Loads an account about to be credited: without a lock if it is known to be striped, otherwise
+     * with {@link AccountRepository#findByIdForUpdate}.
+     */
+    public Optional<Account> forCredit(long accountId) {
+        return striped.contains(accountId)
+                ? accountRepository.findById(accountId)
+                : accountRepository.findByIdForUpdate(accountId);
+    }
+
+    /** Whether credits to the account are expected to go to its stripes. */
+    public boolean isStriped(long accountId) {
+        return striped.contains(accountId);
+    }
+
+    /**
+     * Credits {@code amount} minor units to the account. An unlocked striped account is credited on the stripe
+     * {@code transactionId} maps to, and the returned balances are that stripe's. Otherwise the account
+     * is locked if it is not already and the amount is added to its balance.
+     */
+    public Credit credit(Account account, long transactionId, long amount) {
+        boolean locked = entityManager.getLockMode(account) == LockModeType.PESSIMISTIC_WRITE;
+        if (!locked && account.getBalanceStripes() > 0) {
+            int slot = 1 + Math.floorMod(spread(transactionId), account.getBalanceStripes());
+            Optional<Long> after = store.credit(account.getId(), slot, amount);
+            if (after.isPresent()) {
+                stripedCredits.incrementAndGet();
+                return new Credit(after.get() - amount, after.get(), slot);
+            }
+        }
+        if (!locked) {
+            // not striped (any more): fall back to the row lock, re-reading the balance under it
+            entityManager.refresh(account, LockModeType.PESSIMISTIC_WRITE);
+        }
+        long before = account.getBalance();
+        account.setBalance(before + amount);
+        return new Credit(before, account.getBalance(), null);
+    }
+
+    /**
+     * Moves everything held in the stripes of a locked account into its balance. The account's total
+     * balance does not change, so caches stay valid.
+     */
+    public void settle(Account account) {
+        if (account.getBalanceStripes() > 0) {
+            long held = store.fold(account.getId());
+            if (held != 0) {
+                account.setBalance(account.getBalance() + held);
+            }
+            account.setStripedCredits(0);
+        }
+    }
+
+    /**
+     * Changes the number of stripes of a locked account, 0 turning striping off. Whatever the old
+     * stripes held is settled into the balance first.
+     */
+    public void restripe(Account account, int stripes) {
+        settle(account);
+        store.reset(account.getId(), stripes);
+        account.setBalanceStripes(stripes);
+        Set<Long> updated = new HashSet<>(striped);
+        if (stripes > 0) {
+            updated.add(account.getId());
+        } else {
+            updated.remove(account.getId());
+        }
+        striped = Set.copyOf(updated);
+    }
+
+    @Scheduled(fixedDelayString = "${balance-stripes.fold-interval:PT10S}")
+    public void run() {
+        fold();
+    }
+
+    /** Settles every striped account, one transaction each; returns how many held credits. */
+    int fold() {
+        List<Long> ids = store.stripedAccountIds();
+        striped = Set.copyOf(ids);
+        int settled = 0;
+        for (long id : ids) {
+            if (Boolean.TRUE.equals(transactionTemplate.execute(status -> accountRepository
+                    .findByIdForUpdate(id)
+                    .map(account -> {
+                        long before = account.getBalance();
+                        settle(account);
+                        return before != account.getBalance();
+                    })
+                    .orElse(false)))) {
+                settled++;
+            }
+        }
+        folds.addAndGet(settled);
+        return settled;
+    }
+
+    @Override
+    public void writeTo(PrometheusWriter out) {
+        out.family("balance_stripe_credits_total", "counter", "Credits posted to a balance stripe instead of the account row");
+        out.sample("balance_stripe_credits_total", stripedCredits.get());
+        out.family("balance_stripe_folds_total", "counter", "Striped accounts whose stripes were folded into the balance by the fold job");
+        out.sample("balance_stripe_folds_total", folds.get());
+        out.family("balance_striped_accounts", "gauge", "Accounts this instance treats as striped");
+        out.sample("balance_striped_accounts", striped.size());
+    }
+
+    /**
+     * Fibonacci hash of a transaction id. The two legs of a transfer take consecutive ids, so credits
+     * keyed on the id itself would only ever see every other stripe.
+     */
+    private static int spread(long transactionId) {
+        return (int) ((transactionId * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+}
@@ -96,15 +96,15 @@ public class BeneficiaryGrpcService extends BeneficiaryServiceGrpc.BeneficiarySe
     }
 
     private com.arister.proto.Beneficiary toProto(Beneficiary b) {
-        return com.arister.proto.Beneficiary.newBuilder()
+        com.arister.proto.Beneficiary.Builder builder = com.arister.proto.Beneficiary.newBuilder()
                 .setId(b.getId())
                 .setCustomerId(b.getCustomerId())
                 .setBeneficiaryName(b.getBeneficiaryName())
                 .setAccountNumber(b.getAccountNumber())
                 .setBankName(b.getBankName() != null ? b.getBankName() : "SAME_BANK")
                 .setIfscCode(b.getIfscCode() != null ? b.getIfscCode() : "")
-                .setIsVerified(b.isVerified())
-                .setCreatedAt(b.getCreatedAt() != null ? b.getCreatedAt().toString() : "")
-                .build();
+                .setIsVerified(b.isVerified());
+        if (b.getCreatedAt() != null) builder.setCreatedAt(ProtoMapping.timestamp(b.getCreatedAt()));
+        return builder.build();
     }
 }
@@ -18,6 +18,7 @@ import lombok.RequiredArgsConstructor;
 import net.devh.boot.grpc.server.service.GrpcService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
 
 @GrpcService
 @RequiredArgsConstructor
@@ -90,7 +91,9 @@ public class BranchGrpcService extends BranchServiceGrpc.BranchServiceImplBase {
         observer.onCompleted();
     }
 
+    /** Page and count in one read-only transaction; the branches are only copied into protos. */
     @Override
+    @Transactional(readOnly = true)
     public void listBranches(ListBranchesRequest request, StreamObserver<ListBranchesResponse> observer) {
         int page = request.getPage();
         int size = request.getSize() > 0 ? request.getSize() : 20;
@@ -117,15 +120,15 @@ public class BranchGrpcService extends BranchServiceGrpc.BranchServiceImplBase {
     }
 
     private com.arister.proto.Branch toProto(Branch b) {
-        return com.arister.proto.Branch.newBuilder()
+        com.arister.proto.Branch.Builder builder = com.arister.proto.Branch.newBuilder()
                 .setId(b.getId())
                 .setBranchCode(b.getBranchCode())
                 .setBranchName(b.getBranchName())
                 .setCity(b.getCity())
                 .setState(b.getState() != null ? b.getState() : "")
                 .setPhone(b.getPhone() != null ? b.getPhone() : "")
-                .setIsActive(b.isActive())
-                .setCreatedAt(b.getCreatedAt() != null ? b.getCreatedAt().toString() : "")
-                .build();
+                .setIsActive(b.isActive());
+        if (b.getCreatedAt() != null) builder.setCreatedAt(ProtoMapping.timestamp(b.getCreatedAt()));
+        return builder.build();
     }
 }
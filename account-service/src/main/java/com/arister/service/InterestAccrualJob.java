@@ -0,0 +1,233 @@
+package com.arister.service;
+
+import com.arister.common.metrics.MetricsSource;
+import com.arister.common.metrics.PrometheusWriter;
+import com.arister.common.money.Money;
+import com.arister.enums.TransactionType;
+import com.arister.model.Account;
+import com.arister.model.Transaction;
+import com.arister.proto.LedgerEvent;
+import com.arister.repository.InterestAccrualStore;
+import com.arister.repository.InterestAccrualStore.Accrual;
+import com.arister.repository.InterestAccrualStore.Checkpoint;
+import com.arister.repository.LedgerEventStore;
+import com.arister.repository.LedgerIdAllocator;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Posts daily interest on open {@code SAVINGS} and {@code FIXED_DEPOSIT} accounts. Each run accrues,
+ * oldest first, every UTC day that has ended since the last accrued one; the first run starts with
+ * the day before.
+ *
+ * <p>A day is split into {@code interest-accrual.partitions} ranges of account ids, worked in parallel
+ * on virtual threads. Each worker walks its range in keyset chunks of {@code interest-accrual.chunk-size}
+ * accounts, one transaction per chunk: lock the chunk, batch-insert its {@code INTEREST} postings,
+ * batch-update the balances and advance the partition's checkpoint. A run that stops midway resumes
+ * from the checkpoints, and an account is stamped with the day it was accrued for, so no day is ever
+ * posted twice.
+ *
+ * <p>A day's interest is the account's balance at the end of that day, stripes included, times its
+ * annual rate over 365, so a day caught up late accrues on what the account held then and not on
+ * deposits made since. The balance comes from the day's {@link BalanceSnapshotJob} snapshot where
+ * there is one, which is why this job runs after it. It accrues at ten decimal places; whole cents
+ * are posted and the rest carries to the next day.
+ */
+@Slf4j
+@Component
+public class InterestAccrualJob implements MetricsSource {
+
+    /** Divisor from an annual rate in percent to a daily fraction. */
+    private static final BigDecimal DAYS_PER_YEAR_PERCENT = BigDecimal.valueOf(36_500);
+
+    /** Scale of {@code accounts.accrued_interest}. */
+    private static final int ACCRUAL_SCALE = 10;
+
+    private final InterestAccrualStore store;
+    private final LedgerIdAllocator ledgerIdAllocator;
+    private final LedgerEventStore ledgerEventStore;
+    private final AccountCache accountCache;
+    private final PortfolioCache portfolioCache;
+    private final TransactionTemplate transactionTemplate;
+    private final int partitions;
+    private final int chunkSize;
+
+    private final AtomicLong accrued = new AtomicLong();
+    private final AtomicLong postings = new AtomicLong();
+    private final AtomicLong interestPosted = new AtomicLong();
+    private volatile double lastDaySeconds;
+
+    public InterestAccrualJob(
+            InterestAccrualStore store,
+            LedgerIdAllocator ledgerIdAllocator,
+            LedgerEventStore ledgerEventStore,
+            AccountCache accountCache,
+            PortfolioCache portfolioCache,
+            PlatformTransactionManager transactionManager,
+            @Value("${interest-accrual.partitions:8}") int partitions,
+            @Value("${interest-accrual.chunk-size:1000}") int chunkSize) {
+        this.store = store;
+        this.ledgerIdAllocator = ledgerIdAllocator;
+        this.ledgerEventStore = ledgerEventStore;
+        this.accountCache = accountCache;
+        this.portfolioCache = portfolioCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.partitions = partitions;
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(cron = "${interest-accrual.cron:0 30 0 * * *}", zone = "UTC")
+    public void run() {
+        catchUp(Instant.now());
+    }
+
+    /** Accrues every day ended by {@code now} that is not yet accrued; returns how many. */
+    int catchUp(Instant now) {
+        LocalDate lastEnded = now.atZone(ZoneOffset.UTC).toLocalDate().minusDays(1);
+        LocalDate day = store.lastCompletedDay().map(d -> d.plusDays(1)).orElse(lastEnded);
+        int days = 0;
+        for (; !day.isAfter(lastEnded); day = day.plusDays(1)) {
+            accrueDay(day);
+            days++;
+        }
+        return days;
+    }
+
+    /**
+     * Accrues {@code day} over all of its partitions that have not completed, planning them first if
+     * needed; returns the number of accounts accrued. Fails if any partition failed, after the others
+     * have finished.
+     */
+    long accrueDay(LocalDate day) {
+        long started = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> store.plan(day, partitions));
+        List<Future<Long>> workers;
+        try (ExecutorService executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("interest-accrual-", 0).factory())) {
+            workers = store.openPartitions(day).stream()
+                    .map(partition -> executor.submit(() -> accruePartition(day, partition)))
+                    .toList();
+        }
+        long accounts = 0;
+        for (Future<Long> worker : workers) {
+            if (worker.state() == Future.State.FAILED) {
+                throw new IllegalStateException("Interest accrual for " + day + " failed", worker.exceptionNow());
+            }
+            accounts += worker.resultNow();
+        }
+        lastDaySeconds = (System.nanoTime() - started) / 1e9;
+        log.info("Interest accrual for {}: {} accounts in {}s", day, accounts, String.format("%.1f", lastDaySeconds));
+        return accounts;
+    }
+
+    private long accruePartition(LocalDate day, int partition) {
+        long accounts = 0;
+        Chunk chunk;
+        while ((chunk = transactionTemplate.execute(status -> accrueChunk(day, partition))) != null) {
+            accounts += chunk.accounts();
+            accrued.addAndGet(chunk.accounts());
+            postings.addAndGet(chunk.postings());
+            interestPosted.addAndGet(chunk.interest());
+        }
+        return accounts;
+    }
+
+    /** Accrues the partition's next chunk, or returns null once the partition has completed. */
+    private Chunk accrueChunk(LocalDate day, int partition) {
+        Optional<Checkpoint> checkpoint = store.lockCheckpoint(day, partition);
+        if (checkpoint.isEmpty()) {
+            return null;
+        }
+        List<Accrual> accruals =
+                store.lockChunk(day, checkpoint.get().checkpointId(), checkpoint.get().upperId(), chunkSize);
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        List<Account> accounts = new ArrayList<>(accruals.size());
+        List<Transaction> posted = new ArrayList<>();
+        long interest = 0;
+        for (Accrual accrual : accruals) {
+            Account account = accrual.account();
+            accounts.add(account);
+            long amount = accrue(account, accrual.endOfDayBalance());
+            if (amount > 0) {
+                Transaction posting = post(account, amount, day, now);
+                posted.add(posting);
+                interest += amount;
+                accountCache.evict(account);
+                portfolioCache.post(account, amount);
+                ledgerEventStore.add(LedgerEvent.newBuilder()
+                        .setTransaction(TransactionGrpcService.toProto(posting))
+                        .build());
+            }
+        }
+        store.apply(day, accounts, posted);
+        long lastId = accounts.isEmpty() ? checkpoint.get().checkpointId() : accounts.getLast().getId();
+        store.checkpoint(day, partition, lastId, accounts.size() < chunkSize);
+        return new Chunk(accounts.size(), posted.size(), interest);
+    }
+
+    /**
+     * Adds a day's interest on {@code balance}, the account's balance at the end of the day, to its
+     * accrued interest and takes the whole cents of it off, returning them in minor units. A day ended
+     * in overdraft accrues nothing.
+     */
+    static long accrue(Account account, long balance) {
+        BigDecimal accruedInterest = account.getAccruedInterest();
+        if (balance > 0) {
+            accruedInterest = accruedInterest.add(Money.decimal(balance)
+                    .multiply(account.getInterestRate())
+                    .divide(DAYS_PER_YEAR_PERCENT, ACCRUAL_SCALE, RoundingMode.HALF_EVEN));
+        }
+        BigDecimal whole = accruedInterest.setScale(Money.SCALE, RoundingMode.DOWN);
+        account.setAccruedInterest(accruedInterest.subtract(whole).setScale(ACCRUAL_SCALE));
+        return Money.minor(whole);
+    }
+
+    private Transaction post(Account account, long amount, LocalDate day, ZonedDateTime now) {
+        long id = ledgerIdAllocator.nextTransactionId();
+        long before = account.getBalance();
+        account.setBalance(before + amount);
+        return Transaction.builder()
+                .id(id)
+                .transactionRef(Transaction.ref(now, id))
+                .accountId(account.getId())
+                .transactionType(TransactionType.INTEREST)
+                .amount(amount)
+                .balanceBefore(before)
+                .balanceAfter(account.getBalance())
+                .description("Interest for " + day)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+    }
+
+    @Override
+    public void writeTo(PrometheusWriter out) {
+        out.family("interest_accrual_accounts_total", "counter", "Account-days accrued by this instance");
+        out.sample("interest_accrual_accounts_total", accrued.get());
+        out.family("interest_accrual_postings_total", "counter", "INTEREST transactions posted by this instance");
+        out.sample("interest_accrual_postings_total", postings.get());
+        out.family("interest_accrual_posted_minor_total", "counter", "Interest posted by this instance in minor units");
+        out.sample("interest_accrual_posted_minor_total", interestPosted.get());
+        out.family("interest_accrual_last_day_seconds", "gauge", "Duration of the last day accrued by this instance");
+        out.sample("interest_accrual_last_day_seconds", lastDaySeconds);
+    }
+
+    private record Chunk(int accounts, int postings, long interest) {}
+}
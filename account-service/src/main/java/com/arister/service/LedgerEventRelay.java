@@ -0,0 +1,130 @@
+package com.arister.service;
+
+import com.arister.common.metrics.MetricsSource;
+import com.arister.common.metrics.PrometheusWriter;
+import com.arister.repository.LedgerEventStore;
+import com.arister.repository.LedgerEventStore.Outboxed;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Moves ledger events from the outbox to the published log, {@code ledger-events.batch-size} rows per
+ * transaction, until the outbox is drained. Each batch holds the head row, so only one instance relays
+ * at a time and offsets follow outbox order; an instance that finds the head taken skips the tick.
+ *
+ * <p>Subscribers on this instance are woken as soon as a batch commits. Events relayed by another
+ * instance are picked up when their wait times out, after {@code ledger-events.poll-interval}.
+ */
+@Component
+public class LedgerEventRelay implements MetricsSource {
+
+    private final LedgerEventStore store;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration pollInterval;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition published = lock.newCondition();
+    private final AtomicLong lastPublished = new AtomicLong();
+    private final AtomicLong relayed = new AtomicLong();
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    public LedgerEventRelay(
+            LedgerEventStore store,
+            PlatformTransactionManager transactionManager,
+            @Value("${ledger-events.batch-size:1000}") int batchSize,
+            @Value("${ledger-events.poll-interval:PT0.5S}") Duration pollInterval) {
+        this.store = store;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+    }
+
+    @Scheduled(fixedDelayString = "${ledger-events.relay-interval:PT0.1S}")
+    public void run() {
+        relay();
+    }
+
+    /** Publishes batches until the outbox is empty or another instance holds the head; returns the count. */
+    int relay() {
+        int total = 0;
+        Batch batch;
+        do {
+            batch = transactionTemplate.execute(status -> relayBatch());
+            if (batch.size() > 0) {
+                signal(batch);
+            }
+            total += batch.size();
+        } while (batch.size() == batchSize);
+        return total;
+    }
+
+    /**
+     * Waits until an event after {@code offset} has been published by this instance, or for the poll
+     * interval, whichever comes first.
+     */
+    void awaitPublished(long offset) throws InterruptedException {
+        lock.lock();
+        try {
+            if (lastPublished.get() <= offset) {
+                published.await(pollInterval.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void subscribed() {
+        subscribers.incrementAndGet();
+    }
+
+    void unsubscribed() {
+        subscribers.decrementAndGet();
+    }
+
+    @Override
+    public void writeTo(PrometheusWriter out) {
+        out.family("ledger_events_relayed_total", "counter", "Ledger events moved from the outbox by this instance");
+        out.sample("ledger_events_relayed_total", relayed.get());
+        out.family("ledger_event_subscribers", "gauge", "Open SubscribeLedgerEvents streams");
+        out.sample("ledger_event_subscribers", subscribers.get());
+    }
+
+    private Batch relayBatch() {
+        Optional<Long> head = store.lockHead();
+        if (head.isEmpty()) {
+            return Batch.NONE;
+        }
+        List<Outboxed> rows = store.outboxed(batchSize);
+        if (rows.isEmpty()) {
+            return Batch.NONE;
+        }
+        return new Batch(rows.size(), store.publish(rows, head.get()));
+    }
+
+    private void signal(Batch batch) {
+        relayed.addAndGet(batch.size());
+        lock.lock();
+        try {
+            lastPublished.accumulateAndGet(batch.lastOffset(), Math::max);
+            published.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record Batch(int size, long lastOffset) {
+        static final Batch NONE = new Batch(0, 0);
+    }
+}
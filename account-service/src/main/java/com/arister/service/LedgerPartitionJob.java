@@ -0,0 +1,124 @@
+package com.arister.service;
+
+import com.arister.common.metrics.MetricsSource;
+import com.arister.common.metrics.PrometheusWriter;
+import com.arister.repository.BalanceSnapshotStore;
+import com.arister.repository.LedgerPartitionStore;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.SortedMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the monthly partitions of {@code transactions} and {@code transfers} (V13) ahead of the
+ * clock, so an insert never finds its month missing, and optionally detaches the oldest months for
+ * archival.
+ *
+ * <p>There is no default partition, which would rule out detaching concurrently, so a posting in a
+ * month without a partition fails. The job therefore also runs at startup, where a failure stops the
+ * service, fails a run that leaves fewer than {@code ledger-partitions.months-ahead} months ahead, and
+ * exports the months left as {@code ledger_partitions_months_ahead} to alert on.
+ *
+ * <p>Detaching is off unless {@code ledger-partitions.retain-months} is set; it then keeps that many
+ * months attached, counting the current one. A month is only detached once end-of-day balance
+ * snapshots cover all of it, since {@code GetBalanceAsOf} would otherwise have to replay its rows.
+ * Balances as of a detached month are no longer available.
+ */
+@Slf4j
+@Component
+public class LedgerPartitionJob implements MetricsSource {
+
+    private final LedgerPartitionStore store;
+    private final BalanceSnapshotStore balanceSnapshotStore;
+    private final int monthsAhead;
+    private final int retainMonths;
+
+    /** Set at startup; the job does nothing on a database without partitions, such as H2. */
+    private volatile boolean partitioned;
+
+    public LedgerPartitionJob(
+            LedgerPartitionStore store,
+            BalanceSnapshotStore balanceSnapshotStore,
+            @Value("${ledger-partitions.months-ahead:3}") int monthsAhead,
+            @Value("${ledger-partitions.retain-months:0}") int retainMonths) {
+        this.store = store;
+        this.balanceSnapshotStore = balanceSnapshotStore;
+        this.monthsAhead = monthsAhead;
+        this.retainMonths = retainMonths;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        partitioned = store.partitioned();
+        run();
+    }
+
+    @Scheduled(cron = "${ledger-partitions.cron:0 20 0 * * *}", zone = "UTC")
+    public void run() {
+        if (!partitioned) {
+            return;
+        }
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        int created = store.create(current, current.plusMonths(monthsAhead));
+        if (created > 0) {
+            log.info("Created {} ledger partitions through {}", created, current.plusMonths(monthsAhead));
+        }
+        YearMonth through = partitionedThrough();
+        if (through.isBefore(current.plusMonths(monthsAhead))) {
+            throw new IllegalStateException(
+                    "Ledger partitions only reach " + through + "; postings after it will fail");
+        }
+        if (retainMonths > 0) {
+            detachBefore(current.minusMonths(retainMonths - 1));
+        }
+    }
+
+    /** The last month both tables have a partition for, or the month before the current one if none. */
+    private YearMonth partitionedThrough() {
+        YearMonth through = null;
+        for (String table : LedgerPartitionStore.TABLES) {
+            SortedMap<YearMonth, String> attached = store.attached(table);
+            YearMonth last =
+                    attached.isEmpty() ? YearMonth.now(ZoneOffset.UTC).minusMonths(1) : attached.lastKey();
+            through = through == null || last.isBefore(through) ? last : through;
+        }
+        return through;
+    }
+
+    private void detachBefore(YearMonth oldestKept) {
+        LocalDate snapshotThrough = balanceSnapshotStore.snapshotThrough().orElse(LocalDate.MIN);
+        for (String table : LedgerPartitionStore.TABLES) {
+            for (Map.Entry<YearMonth, String> partition :
+                    store.attached(table).headMap(oldestKept).entrySet()) {
+                if (snapshotThrough.isBefore(partition.getKey().atEndOfMonth())) {
+                    log.warn("Not detaching {}: balance snapshots only reach {}", partition.getValue(), snapshotThrough);
+                    return;
+                }
+                store.detach(table, partition.getValue());
+                log.info("Detached ledger partition {} for archival", partition.getValue());
+            }
+        }
+    }
+
+    @Override
+    public void writeTo(PrometheusWriter out) {
+        if (!partitioned) {
+            return;
+        }
+        out.family(
+                "ledger_partitions_months_ahead",
+                "gauge",
+                "Months after the current one that both ledger tables have partitions for");
+        out.sample(
+                "ledger_partitions_months_ahead",
+                YearMonth.now(ZoneOffset.UTC).until(partitionedThrough(), ChronoUnit.MONTHS));
+    }
+}
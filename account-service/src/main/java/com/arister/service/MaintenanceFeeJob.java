@@ -0,0 +1,151 @@
+package com.arister.service;
+
+import com.arister.common.metrics.MetricsSource;
+import com.arister.common.metrics.PrometheusWriter;
+import com.arister.common.money.Money;
+import com.arister.enums.TransactionType;
+import com.arister.model.Account;
+import com.arister.model.Transaction;
+import com.arister.proto.LedgerEvent;
+import com.arister.repository.LedgerEventStore;
+import com.arister.repository.LedgerIdAllocator;
+import com.arister.repository.MaintenanceFeeStore;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Charges the monthly maintenance fee, {@code maintenance-fee.amount}, to every active account whose
+ * balance is below its {@code minBalance}. Each run charges the previous UTC month unless that
+ * month's run has completed, so a run missed on the 1st happens on the next day the job runs.
+ *
+ * <p>The run walks all accounts in id order, {@code maintenance-fee.chunk-size} per transaction, so
+ * no transaction holds more than a chunk's account locks. A chunk finds and locks the accounts that
+ * owe the fee in one query and charges them with one {@code INSERT ... SELECT} into
+ * {@code transactions} and one {@code UPDATE} of {@code accounts}, whatever their number.
+ *
+ * <p>The balance compared is the one at the time of the run, stripes included. Accounts whose balance
+ * and overdraft cannot cover the fee are not charged; those charged have their stripes settled first,
+ * as for any debit.
+ */
+@Slf4j
+@Component
+public class MaintenanceFeeJob implements MetricsSource {
+
+    private final MaintenanceFeeStore store;
+    private final LedgerIdAllocator ledgerIdAllocator;
+    private final LedgerEventStore ledgerEventStore;
+    private final AccountCache accountCache;
+    private final PortfolioCache portfolioCache;
+    private final TransactionTemplate transactionTemplate;
+    private final long fee;
+    private final int chunkSize;
+
+    private final AtomicLong charges = new AtomicLong();
+    private final AtomicLong feesCharged = new AtomicLong();
+
+    public MaintenanceFeeJob(
+            MaintenanceFeeStore store,
+            LedgerIdAllocator ledgerIdAllocator,
+            LedgerEventStore ledgerEventStore,
+            AccountCache accountCache,
+            PortfolioCache portfolioCache,
+            PlatformTransactionManager transactionManager,
+            @Value("${maintenance-fee.amount:10.00}") String fee,
+            @Value("${maintenance-fee.chunk-size:5000}") int chunkSize) {
+        this.store = store;
+        this.ledgerIdAllocator = ledgerIdAllocator;
+        this.ledgerEventStore = ledgerEventStore;
+        this.accountCache = accountCache;
+        this.portfolioCache = portfolioCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.fee = Money.parseMinor(fee);
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(cron = "${maintenance-fee.cron:0 0 1 * * *}", zone = "UTC")
+    public void run() {
+        charge(Instant.now());
+    }
+
+    /** Charges the month before the one of {@code now}, unless done; returns the number of accounts charged. */
+    int charge(Instant now) {
+        if (fee <= 0) {
+            return 0;
+        }
+        LocalDate period = YearMonth.from(now.atZone(ZoneOffset.UTC)).minusMonths(1).atDay(1);
+        transactionTemplate.executeWithoutResult(status -> store.start(period));
+        int charged = 0;
+        Integer chunk;
+        while ((chunk = transactionTemplate.execute(status -> chargeChunk(period))) != null) {
+            charged += chunk;
+            charges.addAndGet(chunk);
+            feesCharged.addAndGet(chunk * fee);
+        }
+        if (charged > 0) {
+            log.info("Maintenance fees for {}: {} accounts", YearMonth.from(period), charged);
+        }
+        return charged;
+    }
+
+    /** Charges the next chunk and returns how many accounts it charged, or null once the run has completed. */
+    private Integer chargeChunk(LocalDate period) {
+        Optional<Long> checkpoint = store.lockCheckpoint(period);
+        if (checkpoint.isEmpty()) {
+            return null;
+        }
+        Optional<Long> end = store.chunkEnd(checkpoint.get(), chunkSize);
+        if (end.isEmpty()) {
+            store.checkpoint(period, checkpoint.get(), true);
+            return 0;
+        }
+        List<Account> accounts = store.lockBelowMinimum(period, checkpoint.get(), end.get(), fee);
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        String description = "Maintenance fee for " + YearMonth.from(period) + ": balance below minimum";
+        List<Transaction> fees = new ArrayList<>(accounts.size());
+        for (Account account : accounts) {
+            long id = ledgerIdAllocator.nextTransactionId();
+            Transaction charge = Transaction.builder()
+                    .id(id)
+                    .transactionRef(Transaction.ref(now, id))
+                    .accountId(account.getId())
+                    .transactionType(TransactionType.FEE)
+                    .amount(fee)
+                    .balanceBefore(account.getBalance())
+                    .balanceAfter(account.getBalance() - fee)
+                    .description(description)
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .build();
+            fees.add(charge);
+            accountCache.evict(account);
+            portfolioCache.post(account, -fee);
+            ledgerEventStore.add(LedgerEvent.newBuilder()
+                    .setTransaction(TransactionGrpcService.toProto(charge))
+                    .build());
+        }
+        store.charge(period, fees);
+        store.checkpoint(period, end.get(), false);
+        return accounts.size();
+    }
+
+    @Override
+    public void writeTo(PrometheusWriter out) {
+        out.family("maintenance_fee_charges_total", "counter", "Maintenance fees charged by this instance");
+        out.sample("maintenance_fee_charges_total", charges.get());
+        out.family("maintenance_fee_charged_minor_total", "counter", "Maintenance fees charged in minor units");
+        out.sample("maintenance_fee_charged_minor_total", feesCharged.get());
+    }
+}
@@ -0,0 +1,196 @@
+package com.arister.service;
+
+import com.arister.common.cache.TtlCache;
+import com.arister.common.metrics.MetricsSource;
+import com.arister.common.metrics.PrometheusWriter;
+import com.arister.enums.AccountType;
+import com.arister.model.Account;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Per-customer balance totals for {@code GetCustomerPortfolio}, by currency and account type. A
+ * customer's totals are loaded with one grouped query and then kept current by the postings
+ * themselves: deposits, withdrawals and transfers add their balance change to the cached bucket once
+ * they commit, so a cached portfolio is never recomputed. Opening or deleting an account evicts it.
+ * Only postings made through this instance reach its cache, so {@code portfolio.cache.ttl} bounds how
+ * long another instance's writes stay invisible; the RPC contract states that bound.
+ *
+ * <p>A load must not cache totals that already include a posting whose delta is still to be applied.
+ * Postings therefore mark their customers' stripes as committing just before the database commit and
+ * bump the stripe version on both sides of it; a load only caches its result if the stripe was quiet
+ * and its version did not move while it was reading.
+ */
+@Component
+public class PortfolioCache implements MetricsSource {
+
+    private static final int STRIPES = 64;
+
+    private final TtlCache<Long, Portfolio> byCustomer;
+    private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+    private final AtomicIntegerArray committing = new AtomicIntegerArray(STRIPES);
+    private final Object[] locks = new Object[STRIPES];
+
+    public PortfolioCache(
+            @Value("${account.cache.max-size:10000}") int maxSize, @Value("${portfolio.cache.ttl:30s}") Duration ttl) {
+        this.byCustomer = new TtlCache<>(maxSize, ttl);
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    public Portfolio get(long customerId, Supplier<Portfolio> loader) {
+        Portfolio cached = byCustomer.get(customerId);
+        if (cached != null) {
+            return cached;
+        }
+        int stripe = stripe(customerId);
+        long version = versions.get(stripe);
+        boolean quiet = committing.get(stripe) == 0;
+        Portfolio loaded = loader.get();
+        if (quiet) {
+            synchronized (locks[stripe]) {
+                if (versions.get(stripe) == version && committing.get(stripe) == 0) {
+                    byCustomer.put(customerId, loaded);
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Adds {@code balanceChange} minor units to the bucket of {@code account} once the current
+     * transaction commits. Outside a transaction the customer's portfolio is evicted instead, since the
+     * change is already visible to concurrent loads.
+     */
+    public void post(Account account, long balanceChange) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evictNow(account.getCustomerId());
+            return;
+        }
+        Postings pending = (Postings) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new Postings();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.changes.merge(
+                new Change(account.getCustomerId(), new Bucket(account.getCurrency(), account.getAccountType())),
+                balanceChange,
+                Long::sum);
+    }
+
+    /** Drops the customer's portfolio, after commit inside a transaction; for opened or deleted accounts. */
+    public void evict(long customerId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evictNow(customerId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    evictNow(customerId);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void writeTo(PrometheusWriter out) {
+        out.family("portfolio_cache_size", "gauge", "Customer portfolios held by the cache");
+        out.sample("portfolio_cache_size", byCustomer.size());
+        out.family("portfolio_cache_hits_total", "counter", "Portfolio lookups answered from the cache");
+        out.sample("portfolio_cache_hits_total", byCustomer.hitCount());
+        out.family("portfolio_cache_misses_total", "counter", "Portfolio lookups that ran the grouped query");
+        out.sample("portfolio_cache_misses_total", byCustomer.missCount());
+    }
+
+    private void evictNow(long customerId) {
+        int stripe = stripe(customerId);
+        synchronized (locks[stripe]) {
+            versions.incrementAndGet(stripe);
+            byCustomer.invalidate(customerId);
+        }
+    }
+
+    private static int stripe(long customerId) {
+        return Math.floorMod(Long.hashCode(customerId), STRIPES);
+    }
+
+    /** Balance changes of one transaction, summed per customer and bucket. */
+    private final class Postings implements TransactionSynchronization {
+        final Map<Change, Long> changes = new HashMap<>();
+        private int[] stripes = new int[0];
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            stripes = changes.keySet().stream()
+                    .mapToInt(c -> stripe(c.customerId()))
+                    .distinct()
+                    .toArray();
+            for (int stripe : stripes) {
+                committing.incrementAndGet(stripe);
+                versions.incrementAndGet(stripe);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(PortfolioCache.this);
+            if (status == STATUS_COMMITTED) {
+                changes.forEach((change, amount) ->
+                        byCustomer.update(change.customerId(), p -> p.plus(change.bucket(), amount)));
+            } else if (status == STATUS_UNKNOWN) {
+                changes.keySet().forEach(change -> evictNow(change.customerId()));
+            }
+            for (int stripe : stripes) {
+                versions.incrementAndGet(stripe);
+                committing.decrementAndGet(stripe);
+            }
+        }
+    }
+
+    private record Change(long customerId, Bucket bucket) {}
+
+    public record Bucket(String currency, AccountType accountType) {
+
+        static final Comparator<Bucket> ORDER =
+                Comparator.comparing(Bucket::currency).thenComparing(Bucket::accountType);
+    }
+
+    /** Accounts in a bucket and their summed balance in minor units. */
+    public record Total(int accounts, long balance) {}
+
+    /** A customer's totals, sorted by currency and then account type. Immutable. */
+    public record Portfolio(Map<Bucket, Total> totals) {
+
+        public static Portfolio of(Map<Bucket, Total> totals) {
+            Map<Bucket, Total> sorted = new TreeMap<>(Bucket.ORDER);
+            sorted.putAll(totals);
+            return new Portfolio(Collections.unmodifiableMap(sorted));
+        }
+
+        Portfolio plus(Bucket bucket, long balanceChange) {
+            Total total = totals.get(bucket);
+            if (total == null) {
+                // postings only touch existing accounts, which a cached portfolio already counts
+                return this;
+            }
+            Map<Bucket, Total> changed = new HashMap<>(totals);
+            changed.put(bucket, new Total(total.accounts(), total.balance() + balanceChange));
+            return of(changed);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.arister.service;
+
+import com.arister.enums.AccountStatus;
+import com.arister.enums.AccountType;
+import com.arister.enums.TransactionType;
+import com.arister.enums.TransferStatus;
+import com.google.protobuf.ProtocolMessageEnum;
+import com.google.protobuf.Timestamp;
+import java.time.ZonedDateTime;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Conversions shared by the gRPC services' {@code toProto} methods. Enums go through tables indexed by
+ * ordinal (entity to proto) or proto number (proto to entity), built once from the constant names, so
+ * mapping a row does no {@code valueOf} lookups. Timestamps are encoded from the epoch second and
+ * nanosecond instead of being formatted as text.
+ */
+final class ProtoMapping {
+
+    private static final com.arister.proto.AccountType[] ACCOUNT_TYPES =
+            table(AccountType.values(), com.arister.proto.AccountType::valueOf, com.arister.proto.AccountType[]::new);
+    private static final AccountType[] ACCOUNT_TYPES_BY_NUMBER =
+            byNumber(com.arister.proto.AccountType.values(), AccountType::valueOf, AccountType[]::new);
+    private static final com.arister.proto.AccountStatus[] ACCOUNT_STATUSES = table(
+            AccountStatus.values(), com.arister.proto.AccountStatus::valueOf, com.arister.proto.AccountStatus[]::new);
+    private static final AccountStatus[] ACCOUNT_STATUSES_BY_NUMBER =
+            byNumber(com.arister.proto.AccountStatus.values(), AccountStatus::valueOf, AccountStatus[]::new);
+    private static final com.arister.proto.TransactionType[] TRANSACTION_TYPES = table(
+            TransactionType.values(),
+            com.arister.proto.TransactionType::valueOf,
+            com.arister.proto.TransactionType[]::new);
+    private static final com.arister.proto.TransferStatus[] TRANSFER_STATUSES = table(
+            TransferStatus.values(), com.arister.proto.TransferStatus::valueOf, com.arister.proto.TransferStatus[]::new);
+
+    private ProtoMapping() {}
+
+    static com.arister.proto.AccountType toProto(AccountType type) {
+        return ACCOUNT_TYPES[type.ordinal()];
+    }
+
+    /** @throws IllegalArgumentException if {@code type} is {@code UNRECOGNIZED} */
+    static AccountType fromProto(com.arister.proto.AccountType type) {
+        return ACCOUNT_TYPES_BY_NUMBER[type.getNumber()];
+    }
+
+    static com.arister.proto.AccountStatus toProto(AccountStatus status) {
+        return ACCOUNT_STATUSES[status.ordinal()];
+    }
+
+    /** @throws IllegalArgumentException if {@code status} is {@code UNRECOGNIZED} */
+    static AccountStatus fromProto(com.arister.proto.AccountStatus status) {
+        return ACCOUNT_STATUSES_BY_NUMBER[status.getNumber()];
+    }
+
+    static com.arister.proto.TransactionType toProto(TransactionType type) {
+        return TRANSACTION_TYPES[type.ordinal()];
+    }
+
+    static com.arister.proto.TransferStatus toProto(TransferStatus status) {
+        return TRANSFER_STATUSES[status.ordinal()];
+    }
+
+    static Timestamp timestamp(ZonedDateTime time) {
+        return Timestamp.newBuilder()
+                .setSeconds(time.toEpochSecond())
+                .setNanos(time.getNano())
+                .build();
+    }
+
+    /** Proto constants by entity ordinal; every entity constant must have a proto one of the same name. */
+    private static <E extends Enum<E>, P> P[] table(E[] constants, Function<String, P> valueOf, IntFunction<P[]> array) {
+        P[] table = array.apply(constants.length);
+        for (E constant : constants) {
+            table[constant.ordinal()] = valueOf.apply(constant.name());
+        }
+        return table;
+    }
+
+    /** Entity constants by proto number, skipping {@code UNRECOGNIZED}. */
+    private static <P extends Enum<P> & ProtocolMessageEnum, E> E[] byNumber(
+            P[] constants, Function<String, E> valueOf, IntFunction<E[]> array) {
+        int size = 0;
+        for (P constant : constants) {
+            if (!"UNRECOGNIZED".equals(constant.name())) {
+                size = Math.max(size, constant.getNumber() + 1);
+            }
+        }
+        E[] table = array.apply(size);
+        for (P constant : constants) {
+            if (!"UNRECOGNIZED".equals(constant.name())) {
+                table[constant.getNumber()] = valueOf.apply(constant.name());
+            }
+        }
+        return table;
+    }
+}
@@ -1,83 +1,137 @@
 package com.arister.service;
 
+import com.arister.common.dto.CreatedAtRange;
+import com.arister.common.dto.PageToken;
+import com.arister.common.money.Money;
 import com.arister.enums.TransactionType;
 import com.arister.model.Account;
 import com.arister.model.Transaction;
 import com.arister.proto.DepositRequest;
 import com.arister.proto.GetTransactionRequest;
+import com.arister.proto.LedgerEvent;
 import com.arister.proto.ListTransactionsByAccountRequest;
 import com.arister.proto.ListTransactionsResponse;
 import com.arister.proto.TransactionResponse;
+import com.arister.proto.StreamTransactionsRequest;
+import com.arister.proto.SubscribeLedgerEventsRequest;
 import com.arister.proto.TransactionServiceGrpc;
 import com.arister.proto.WithdrawRequest;
 import com.arister.repository.AccountRepository;
+import com.arister.repository.IdempotencyStore;
+import com.arister.repository.LedgerEventStore;
+import com.arister.repository.LedgerIdAllocator;
 import com.arister.repository.TransactionRepository;
+import com.google.protobuf.Message;
 import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
-import java.math.BigDecimal;
+import jakarta.persistence.EntityManager;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
 import net.devh.boot.grpc.server.service.GrpcService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.transaction.annotation.Transactional;
 
 @GrpcService
 @RequiredArgsConstructor
 public class TransactionGrpcService extends TransactionServiceGrpc.TransactionServiceImplBase {
 
+    private static final long READY_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int EVENT_PAGE_SIZE = 500;
+
     private final TransactionRepository transactionRepository;
     private final AccountRepository accountRepository;
+    private final AccountCache accountCache;
+    private final PortfolioCache portfolioCache;
+    private final BalanceStripes balanceStripes;
+    private final LedgerIdAllocator ledgerIdAllocator;
+    private final IdempotencyStore idempotencyStore;
+    private final LedgerEventStore ledgerEventStore;
+    private final LedgerEventRelay ledgerEventRelay;
+    private final EntityManager entityManager;
 
     @Override
     @Transactional
     public void deposit(DepositRequest request, StreamObserver<TransactionResponse> observer) {
-        Account account = accountRepository.findById(request.getAccountId()).orElse(null);
+        OptionalLong requested = requestedMinor(request.getAmount(), request.getAmountMinor());
+        if (requested.isEmpty()) {
+            observer.onError(invalidAmount(request.getAmount(), request.getAmountMinor()));
+            return;
+        }
+        if (replayed("DEPOSIT", request.getIdempotencyKey(), request, observer)) {
+            return;
+        }
+        Account account = balanceStripes.forCredit(request.getAccountId()).orElse(null);
         if (account == null) {
             notFound(observer, "Account not found: " + request.getAccountId());
             return;
         }
-        BigDecimal amount = new BigDecimal(request.getAmount());
-        BigDecimal balanceBefore = account.getBalance();
-        BigDecimal balanceAfter = balanceBefore.add(amount);
-
-        account.setBalance(balanceAfter);
-        accountRepository.save(account);
+        long amount = requested.getAsLong();
+        long txnId = ledgerIdAllocator.nextTransactionId();
+        BalanceStripes.Credit credit = balanceStripes.credit(account, txnId, amount);
+        accountCache.evict(account);
+        portfolioCache.post(account, amount);
 
         Transaction txn = Transaction.builder()
+                .id(txnId)
                 .accountId(account.getId())
                 .transactionType(TransactionType.DEPOSIT)
                 .amount(amount)
-                .balanceBefore(balanceBefore)
-                .balanceAfter(balanceAfter)
+                .balanceBefore(credit.balanceBefore())
+                .balanceAfter(credit.balanceAfter())
+                .balanceSlot(credit.slot())
                 .description(request.getDescription())
                 .performedBy(request.getPerformedBy() > 0 ? request.getPerformedBy() : null)
                 .build();
-        respond(observer, "Deposit successful", transactionRepository.save(txn));
+        respond(observer, "Deposit successful", posted(transactionRepository.save(txn)), "DEPOSIT", request.getIdempotencyKey());
     }
 
     @Override
     @Transactional
     public void withdraw(WithdrawRequest request, StreamObserver<TransactionResponse> observer) {
-        Account account = accountRepository.findById(request.getAccountId()).orElse(null);
+        OptionalLong requested = requestedMinor(request.getAmount(), request.getAmountMinor());
+        if (requested.isEmpty()) {
+            observer.onError(invalidAmount(request.getAmount(), request.getAmountMinor()));
+            return;
+        }
+        if (replayed("WITHDRAW", request.getIdempotencyKey(), request, observer)) {
+            return;
+        }
+        Account account = accountRepository.findByIdForUpdate(request.getAccountId()).orElse(null);
         if (account == null) {
             notFound(observer, "Account not found: " + request.getAccountId());
             return;
         }
-        BigDecimal amount = new BigDecimal(request.getAmount());
-        BigDecimal balanceBefore = account.getBalance();
-        BigDecimal balanceAfter = balanceBefore.subtract(amount);
-        BigDecimal effectiveMinimum = account.getOverdraftLimit().negate();
+        balanceStripes.settle(account);
+        long amount = requested.getAsLong();
+        long balanceBefore = account.getBalance();
+        long balanceAfter = balanceBefore - amount;
 
-        if (balanceAfter.compareTo(effectiveMinimum) < 0) {
+        if (balanceAfter < -account.getOverdraftLimit()) {
             observer.onError(Status.FAILED_PRECONDITION
-                    .withDescription("Insufficient funds. Available: " + balanceBefore.toPlainString())
+                    .withDescription("Insufficient funds. Available: " + Money.format(balanceBefore))
                     .asRuntimeException());
             return;
         }
         account.setBalance(balanceAfter);
         accountRepository.save(account);
+        accountCache.evict(account);
+        portfolioCache.post(account, -amount);
 
         Transaction txn = Transaction.builder()
+                .id(ledgerIdAllocator.nextTransactionId())
                 .accountId(account.getId())
                 .transactionType(TransactionType.WITHDRAWAL)
                 .amount(amount)
@@ -86,7 +140,7 @@ public class TransactionGrpcService extends TransactionServiceGrpc.TransactionSe
                 .description(request.getDescription())
                 .performedBy(request.getPerformedBy() > 0 ? request.getPerformedBy() : null)
                 .build();
-        respond(observer, "Withdrawal successful", transactionRepository.save(txn));
+        respond(observer, "Withdrawal successful", posted(transactionRepository.save(txn)), "WITHDRAW", request.getIdempotencyKey());
     }
 
     @Override
@@ -97,45 +151,273 @@ public class TransactionGrpcService extends TransactionServiceGrpc.TransactionSe
                         () -> notFound(observer, "Transaction not found: " + request.getId()));
     }
 
+    /**
+     * Runs in one read-only transaction: the page and its count share a connection, and the loaded
+     * transactions are read-only, so Hibernate keeps no snapshots of them and never flushes.
+     */
     @Override
+    @Transactional(readOnly = true)
     public void listTransactionsByAccount(ListTransactionsByAccountRequest request, StreamObserver<ListTransactionsResponse> observer) {
         int page = request.getPage();
         int size = request.getSize() > 0 ? request.getSize() : 20;
-        Page<Transaction> result = transactionRepository.findByAccountId(request.getAccountId(), PageRequest.of(page, size));
-        observer.onNext(ListTransactionsResponse.newBuilder()
+        CreatedAtRange range;
+        try {
+            range = CreatedAtRange.parse(request.getFrom(), request.getTo(), CreatedAtRange.LATEST);
+        } catch (DateTimeParseException e) {
+            observer.onError(Status.INVALID_ARGUMENT
+                    .withDescription("Invalid date range: " + e.getParsedString())
+                    .asRuntimeException());
+            return;
+        }
+        Slice<Transaction> result;
+        if (request.getPageToken().isEmpty()) {
+            PageRequest pageRequest = PageRequest.of(page, size, TransactionRepository.NEWEST_FIRST);
+            result = request.getSkipTotalCount()
+                    ? transactionRepository.findSliceByAccountIdBetween(
+                            request.getAccountId(), range.from(), range.to(), pageRequest)
+                    : transactionRepository.findByAccountIdBetween(
+                            request.getAccountId(), range.from(), range.to(), pageRequest);
+        } else {
+            PageToken after;
+            try {
+                after = PageToken.decode(request.getPageToken());
+            } catch (IllegalArgumentException e) {
+                observer.onNext(ListTransactionsResponse.newBuilder()
+                        .setSuccess(false)
+                        .setMessage("Invalid page token")
+                        .build());
+                observer.onCompleted();
+                return;
+            }
+            result = transactionRepository.findByAccountIdBefore(
+                    request.getAccountId(),
+                    after.createdAt(),
+                    after.id(),
+                    range.from(),
+                    range.to(),
+                    PageRequest.ofSize(size));
+        }
+
+        ListTransactionsResponse.Builder response = ListTransactionsResponse.newBuilder()
                 .setSuccess(true)
                 .setMessage("Transactions fetched")
-                .addAllTransactions(result.getContent().stream().map(this::toProto).toList())
-                .setTotalCount((int) result.getTotalElements())
+                .addAllTransactions(result.getContent().stream().map(TransactionGrpcService::toProto).toList())
                 .setPage(page)
-                .setSize(size)
-                .build());
+                .setSize(size);
+        if (result instanceof Page<Transaction> counted) {
+            response.setTotalCount((int) counted.getTotalElements());
+        } else if (!request.getSkipTotalCount()) {
+            response.setTotalCount(
+                    (int) transactionRepository.countByAccountIdBetween(request.getAccountId(), range.from(), range.to()));
+        }
+        if (result.hasNext()) {
+            Transaction last = result.getContent().getLast();
+            response.setNextPageToken(new PageToken(last.getCreatedAt(), last.getId()).encode());
+        }
+        observer.onNext(response.build());
         observer.onCompleted();
     }
 
+    /**
+     * Streams a statement straight off a database cursor: rows are fetched in batches of
+     * {@link TransactionRepository#STREAM_FETCH_SIZE}, and each entity is detached once sent, so heap
+     * use does not grow with the number of rows. A slow client stalls the cursor instead of piling up
+     * messages in the server's send buffer.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamTransactions(
+            StreamTransactionsRequest request, StreamObserver<com.arister.proto.Transaction> observer) {
+        CreatedAtRange range;
+        try {
+            range = CreatedAtRange.parse(request.getFrom(), request.getTo(), ZonedDateTime.now(ZoneOffset.UTC));
+        } catch (DateTimeParseException e) {
+            observer.onError(Status.INVALID_ARGUMENT
+                    .withDescription("Invalid date range: " + e.getParsedString())
+                    .asRuntimeException());
+            return;
+        }
+
+        ServerCallStreamObserver<com.arister.proto.Transaction> out =
+                (ServerCallStreamObserver<com.arister.proto.Transaction>) observer;
+        try (Stream<Transaction> rows =
+                transactionRepository.streamByAccountIdBetween(request.getAccountId(), range.from(), range.to())) {
+            Iterator<Transaction> it = rows.iterator();
+            while (it.hasNext()) {
+                if (!awaitReady(out)) {
+                    return;
+                }
+                Transaction txn = it.next();
+                out.onNext(toProto(txn));
+                entityManager.detach(txn);
+            }
+        }
+        out.onCompleted();
+    }
+
+    /**
+     * Streams published ledger events after the requested offset, then keeps following the log until
+     * the client cancels. Each read is a range scan of the {@code ledger_events} primary key, done
+     * outside any transaction so no connection is held between reads; once caught up, the call waits
+     * for the relay to publish more instead of re-reading the table.
+     */
+    @Override
+    public void subscribeLedgerEvents(SubscribeLedgerEventsRequest request, StreamObserver<LedgerEvent> observer) {
+        long offset;
+        if (request.getFromLatest()) {
+            offset = ledgerEventStore.head();
+        } else if (request.getAfterOffset() < 0) {
+            observer.onError(Status.INVALID_ARGUMENT
+                    .withDescription("Negative offset: " + request.getAfterOffset())
+                    .asRuntimeException());
+            return;
+        } else {
+            offset = request.getAfterOffset();
+            long oldest = ledgerEventStore.oldestOffset();
+            if (offset > 0 && offset < oldest - 1) {
+                observer.onError(Status.OUT_OF_RANGE
+                        .withDescription("Offset " + offset + " is older than the oldest retained event " + oldest)
+                        .asRuntimeException());
+                return;
+            }
+        }
+
+        ServerCallStreamObserver<LedgerEvent> out = (ServerCallStreamObserver<LedgerEvent>) observer;
+        ledgerEventRelay.subscribed();
+        try {
+            while (!out.isCancelled()) {
+                List<LedgerEvent> events = ledgerEventStore.after(offset, EVENT_PAGE_SIZE);
+                for (LedgerEvent event : events) {
+                    if (!awaitReady(out)) {
+                        return;
+                    }
+                    out.onNext(event);
+                    offset = event.getOffset();
+                }
+                if (events.size() < EVENT_PAGE_SIZE) {
+                    ledgerEventRelay.awaitPublished(offset);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            out.onError(Status.UNAVAILABLE.withDescription("Server shutting down").asRuntimeException());
+        } finally {
+            ledgerEventRelay.unsubscribed();
+        }
+    }
+
+    /**
+     * Blocks until the transport can take another message. This polls rather than waiting for the
+     * on-ready callback because that callback is delivered on this call's executor, which is the
+     * thread running the handler.
+     */
+    private static boolean awaitReady(ServerCallStreamObserver<?> out) {
+        while (!out.isReady()) {
+            if (out.isCancelled()) {
+                return false;
+            }
+            LockSupport.parkNanos(READY_POLL_NANOS);
+        }
+        return !out.isCancelled();
+    }
+
     private void respond(StreamObserver<TransactionResponse> observer, String message, Transaction txn) {
         observer.onNext(TransactionResponse.newBuilder().setSuccess(true).setMessage(message).setTransaction(toProto(txn)).build());
         observer.onCompleted();
     }
 
+    /** Answers a retry with its stored response, or fails a request the key does not belong to. */
+    private boolean replayed(
+            String operation, String key, Message request, StreamObserver<TransactionResponse> observer) {
+        Optional<TransactionResponse> stored;
+        try {
+            stored = idempotencyStore.claim(operation, key, request, TransactionResponse.parser());
+        } catch (StatusRuntimeException e) {
+            observer.onError(e);
+            return true;
+        }
+        stored.ifPresent(response -> {
+            observer.onNext(response);
+            observer.onCompleted();
+        });
+        return stored.isPresent();
+    }
+
+    /** Adds the posted transaction to the ledger event outbox and returns it as sent to the client. */
+    private com.arister.proto.Transaction posted(Transaction txn) {
+        com.arister.proto.Transaction posted = toProto(txn);
+        ledgerEventStore.add(LedgerEvent.newBuilder().setTransaction(posted).build());
+        return posted;
+    }
+
+    private void respond(
+            StreamObserver<TransactionResponse> observer,
+            String message,
+            com.arister.proto.Transaction txn,
+            String operation,
+            String key) {
+        TransactionResponse response = TransactionResponse.newBuilder()
+                .setSuccess(true)
+                .setMessage(message)
+                .setTransaction(txn)
+                .build();
+        idempotencyStore.complete(operation, key, response);
+        observer.onNext(response);
+        observer.onCompleted();
+    }
+
     private void notFound(StreamObserver<TransactionResponse> observer, String message) {
         observer.onNext(TransactionResponse.newBuilder().setSuccess(false).setMessage(message).build());
         observer.onCompleted();
     }
 
-    private com.arister.proto.Transaction toProto(Transaction t) {
+    /**
+     * The requested amount in minor units, {@code amount} or else {@code amountMinor}, if it is positive
+     * and fits a money column; empty otherwise, including when {@code amount} does not parse.
+     */
+    static OptionalLong requestedMinor(String amount, long amountMinor) {
+        return inRange(amount, amountMinor, 1);
+    }
+
+    /** Like {@link #requestedMinor} for a transfer fee, which may also be zero. */
+    static OptionalLong requestedFee(String fee, long feeMinor) {
+        return inRange(fee, feeMinor, 0);
+    }
+
+    static StatusRuntimeException invalidAmount(String amount, long amountMinor) {
+        return Status.INVALID_ARGUMENT
+                .withDescription("Amount must be positive with at most two decimal places: "
+                        + (amount.isEmpty() ? amountMinor + " minor units" : amount))
+                .asRuntimeException();
+    }
+
+    private static OptionalLong inRange(String amount, long amountMinor, long min) {
+        long minor;
+        try {
+            minor = amount.isEmpty() ? amountMinor : Money.parseMinor(amount);
+        } catch (NumberFormatException e) {
+            return OptionalLong.empty();
+        }
+        return minor >= min && minor <= Money.MAX_MINOR ? OptionalLong.of(minor) : OptionalLong.empty();
+    }
+
+    static com.arister.proto.Transaction toProto(Transaction t) {
         com.arister.proto.Transaction.Builder b = com.arister.proto.Transaction.newBuilder()
                 .setId(t.getId())
                 .setTransactionRef(t.getTransactionRef() != null ? t.getTransactionRef() : "")
                 .setAccountId(t.getAccountId())
-                .setTransactionType(com.arister.proto.TransactionType.valueOf(t.getTransactionType().name()))
-                .setAmount(t.getAmount().toPlainString())
-                .setBalanceBefore(t.getBalanceBefore().toPlainString())
-                .setBalanceAfter(t.getBalanceAfter().toPlainString())
-                .setDescription(t.getDescription() != null ? t.getDescription() : "")
-                .setCreatedAt(t.getCreatedAt() != null ? t.getCreatedAt().toString() : "");
+                .setTransactionType(ProtoMapping.toProto(t.getTransactionType()))
+                .setAmount(Money.format(t.getAmount()))
+                .setBalanceBefore(Money.format(t.getBalanceBefore()))
+                .setBalanceAfter(Money.format(t.getBalanceAfter()))
+                .setAmountMinor(t.getAmount())
+                .setBalanceBeforeMinor(t.getBalanceBefore())
+                .setBalanceAfterMinor(t.getBalanceAfter())
+                .setDescription(t.getDescription() != null ? t.getDescription() : "");
+        if (t.getCreatedAt() != null) b.setCreatedAt(ProtoMapping.timestamp(t.getCreatedAt()));
         if (t.getRelatedTxnId() != null) b.setRelatedTxnId(t.getRelatedTxnId());
         if (t.getPerformedBy() != null) b.setPerformedBy(t.getPerformedBy());
+        if (t.getBalanceSlot() != null) b.setBalanceSlot(t.getBalanceSlot());
         return b.build();
     }
 }
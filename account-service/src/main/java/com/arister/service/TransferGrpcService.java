@@ -1,10 +1,12 @@
 package com.arister.service;
 
-import com.arister.enums.TransactionType;
-import com.arister.enums.TransferStatus;
+import com.arister.common.dto.CreatedAtRange;
+import com.arister.common.dto.PageToken;
+import com.arister.common.money.Money;
 import com.arister.model.Account;
-import com.arister.model.Transaction;
 import com.arister.model.Transfer;
+import com.arister.proto.BulkTransferRequest;
+import com.arister.proto.BulkTransferResult;
 import com.arister.proto.CreateTransferRequest;
 import com.arister.proto.GetTransferRequest;
 import com.arister.proto.ListTransfersByAccountRequest;
@@ -12,30 +14,86 @@ import com.arister.proto.ListTransfersResponse;
 import com.arister.proto.TransferResponse;
 import com.arister.proto.TransferServiceGrpc;
 import com.arister.repository.AccountRepository;
-import com.arister.repository.TransactionRepository;
+import com.arister.repository.IdempotencyStore;
 import com.arister.repository.TransferRepository;
+import com.google.protobuf.Message;
 import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
-import java.math.BigDecimal;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import net.devh.boot.grpc.server.service.GrpcService;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.transaction.annotation.Transactional;
 
 @GrpcService
 @RequiredArgsConstructor
 public class TransferGrpcService extends TransferServiceGrpc.TransferServiceImplBase {
 
+    /** Sorts after every real transfer, so the keyset query starts from the newest one. */
+    private static final PageToken FIRST_PAGE = new PageToken(CreatedAtRange.LATEST, Long.MAX_VALUE);
+
     private final TransferRepository transferRepository;
-    private final TransactionRepository transactionRepository;
     private final AccountRepository accountRepository;
+    private final TransferPoster transferPoster;
+    private final BalanceStripes balanceStripes;
+    private final IdempotencyStore idempotencyStore;
+
+    @Value("${transfer.bulk.chunk-size:500}")
+    private int bulkChunkSize;
 
     @Override
     @Transactional
     public void createTransfer(CreateTransferRequest request, StreamObserver<TransferResponse> observer) {
-        Account from = accountRepository.findById(request.getFromAccountId()).orElse(null);
-        Account to = accountRepository.findById(request.getToAccountId()).orElse(null);
+        if (request.getFromAccountId() == request.getToAccountId()) {
+            observer.onError(Status.INVALID_ARGUMENT
+                    .withDescription("Source and destination accounts must differ")
+                    .asRuntimeException());
+            return;
+        }
+        OptionalLong amount = TransactionGrpcService.requestedMinor(request.getAmount(), request.getAmountMinor());
+        if (amount.isEmpty()) {
+            observer.onError(TransactionGrpcService.invalidAmount(request.getAmount(), request.getAmountMinor()));
+            return;
+        }
+        OptionalLong fee = TransactionGrpcService.requestedFee(request.getFee(), request.getFeeMinor());
+        if (fee.isEmpty()) {
+            observer.onError(Status.INVALID_ARGUMENT
+                    .withDescription("Fee must be zero or positive with at most two decimal places: "
+                            + (request.getFee().isEmpty() ? request.getFeeMinor() + " minor units" : request.getFee()))
+                    .asRuntimeException());
+            return;
+        }
+        if (replayed("TRANSFER", request.getIdempotencyKey(), request, observer)) {
+            return;
+        }
+
+        Account from;
+        Account to;
+        if (balanceStripes.isStriped(request.getToAccountId())) {
+            // a striped destination is credited on one of its stripes, so only the source is locked
+            from = accountRepository.findByIdForUpdate(request.getFromAccountId()).orElse(null);
+            to = accountRepository.findById(request.getToAccountId()).orElse(null);
+        } else {
+            // Both rows are locked in ascending id order, so concurrent A->B and B->A transfers
+            // serialize on the same first row instead of deadlocking.
+            Map<Long, Account> locked = accountRepository
+                    .findPairForUpdate(request.getFromAccountId(), request.getToAccountId())
+                    .stream()
+                    .collect(Collectors.toMap(Account::getId, Function.identity()));
+            from = locked.get(request.getFromAccountId());
+            to = locked.get(request.getToAccountId());
+        }
 
         if (from == null) {
             notFound(observer, "Source account not found: " + request.getFromAccountId());
@@ -46,60 +104,26 @@ public class TransferGrpcService extends TransferServiceGrpc.TransferServiceImpl
             return;
         }
 
-        BigDecimal amount = new BigDecimal(request.getAmount());
-        BigDecimal fee = request.getFee().isBlank() ? BigDecimal.ZERO : new BigDecimal(request.getFee());
-        BigDecimal totalDebit = amount.add(fee);
-
-        if (from.getBalance().subtract(totalDebit).compareTo(from.getOverdraftLimit().negate()) < 0) {
+        balanceStripes.settle(from);
+        if (!transferPoster.canDebit(from, amount.getAsLong() + fee.getAsLong())) {
             observer.onError(Status.FAILED_PRECONDITION
-                    .withDescription("Insufficient funds. Available: " + from.getBalance().toPlainString())
+                    .withDescription("Insufficient funds. Available: " + Money.format(from.getBalance()))
                     .asRuntimeException());
             return;
         }
+        Transfer transfer =
+                transferPoster.post(from, to, amount.getAsLong(), fee.getAsLong(), request.getDescription());
+        respond(observer, "Transfer completed successfully", transfer, "TRANSFER", request.getIdempotencyKey());
+    }
 
-        BigDecimal fromBalanceBefore = from.getBalance();
-        BigDecimal fromBalanceAfter = fromBalanceBefore.subtract(totalDebit);
-        BigDecimal toBalanceBefore = to.getBalance();
-        BigDecimal toBalanceAfter = toBalanceBefore.add(amount);
-
-        from.setBalance(fromBalanceAfter);
-        to.setBalance(toBalanceAfter);
-        accountRepository.save(from);
-        accountRepository.save(to);
-
-        Transaction outTxn = Transaction.builder()
-                .accountId(from.getId())
-                .transactionType(TransactionType.TRANSFER_OUT)
-                .amount(totalDebit)
-                .balanceBefore(fromBalanceBefore)
-                .balanceAfter(fromBalanceAfter)
-                .description(request.getDescription())
-                .build();
-        Transaction savedOut = transactionRepository.save(outTxn);
-
-        Transaction inTxn = Transaction.builder()
-                .accountId(to.getId())
-                .transactionType(TransactionType.TRANSFER_IN)
-                .amount(amount)
-                .balanceBefore(toBalanceBefore)
-                .balanceAfter(toBalanceAfter)
-                .description(request.getDescription())
-                .relatedTxnId(savedOut.getId())
-                .build();
-        Transaction savedIn = transactionRepository.save(inTxn);
-
-        savedOut.setRelatedTxnId(savedIn.getId());
-        transactionRepository.save(savedOut);
-
-        Transfer transfer = Transfer.builder()
-                .fromAccountId(from.getId())
-                .toAccountId(to.getId())
-                .amount(amount)
-                .fee(fee)
-                .status(TransferStatus.COMPLETED)
-                .description(request.getDescription())
-                .build();
-        respond(observer, "Transfer completed successfully", transferRepository.save(transfer));
+    /**
+     * Streams bulk transfer legs (e.g. a payroll run) in chunks of {@code transfer.bulk.chunk-size}.
+     * Each chunk is posted in one transaction, and its results are streamed back in leg order. The
+     * next chunk is requested only once the client has taken the previous chunk's results.
+     */
+    @Override
+    public StreamObserver<BulkTransferRequest> bulkTransfer(StreamObserver<BulkTransferResult> observer) {
+        return new BulkTransferCall((ServerCallStreamObserver<BulkTransferResult>) observer);
     }
 
     @Override
@@ -110,43 +134,216 @@ public class TransferGrpcService extends TransferServiceGrpc.TransferServiceImpl
                         () -> notFound(observer, "Transfer not found: " + request.getId()));
     }
 
+    /** Rows and count are read in one read-only transaction, which loads the transfers read-only. */
     @Override
+    @Transactional(readOnly = true)
     public void listTransfersByAccount(ListTransfersByAccountRequest request, StreamObserver<ListTransfersResponse> observer) {
         int page = request.getPage();
         int size = request.getSize() > 0 ? request.getSize() : 20;
-        Page<Transfer> result = transferRepository.findByAccountId(request.getAccountId(), PageRequest.of(page, size));
-        observer.onNext(ListTransfersResponse.newBuilder()
+        CreatedAtRange range;
+        try {
+            range = CreatedAtRange.parse(request.getFrom(), request.getTo(), CreatedAtRange.LATEST);
+        } catch (DateTimeParseException e) {
+            observer.onError(Status.INVALID_ARGUMENT
+                    .withDescription("Invalid date range: " + e.getParsedString())
+                    .asRuntimeException());
+            return;
+        }
+        PageToken after;
+        int offset;
+        if (request.getPageToken().isEmpty()) {
+            after = FIRST_PAGE;
+            offset = page * size;
+        } else {
+            try {
+                after = PageToken.decode(request.getPageToken());
+            } catch (IllegalArgumentException e) {
+                observer.onNext(ListTransfersResponse.newBuilder()
+                        .setSuccess(false)
+                        .setMessage("Invalid page token")
+                        .build());
+                observer.onCompleted();
+                return;
+            }
+            offset = 0;
+        }
+
+        // one extra row tells whether there is a next page
+        List<Transfer> rows = transferRepository.findByAccountIdBefore(
+                request.getAccountId(), after.createdAt(), after.id(), range.from(), range.to(), offset, size + 1);
+        List<Transfer> content = rows.subList(0, Math.min(size, rows.size()));
+        ListTransfersResponse.Builder response = ListTransfersResponse.newBuilder()
                 .setSuccess(true)
                 .setMessage("Transfers fetched")
-                .addAllTransfers(result.getContent().stream().map(this::toProto).toList())
-                .setTotalCount((int) result.getTotalElements())
+                .addAllTransfers(content.stream().map(this::toProto).toList())
                 .setPage(page)
-                .setSize(size)
-                .build());
+                .setSize(size);
+        if (!request.getSkipTotalCount()) {
+            response.setTotalCount(
+                    (int) transferRepository.countByAccountIdBetween(request.getAccountId(), range.from(), range.to()));
+        }
+        if (rows.size() > size) {
+            Transfer last = content.getLast();
+            response.setNextPageToken(new PageToken(last.getCreatedAt(), last.getId()).encode());
+        }
+        observer.onNext(response.build());
         observer.onCompleted();
     }
 
+    /**
+     * Inbound flow control is manual: exactly one chunk of legs is requested at a time, and the next
+     * request is made only after all pending results have been written while the transport is ready.
+     * gRPC runs all callbacks of a call one at a time, so the state here needs no locking.
+     */
+    private final class BulkTransferCall implements StreamObserver<BulkTransferRequest> {
+
+        private final ServerCallStreamObserver<BulkTransferResult> out;
+        private final List<BulkTransferRequest> chunk = new ArrayList<>();
+        private final Deque<BulkTransferResult> pending = new ArrayDeque<>();
+        private int outstanding;
+        private boolean inputDone;
+        private boolean finished;
+
+        BulkTransferCall(ServerCallStreamObserver<BulkTransferResult> out) {
+            this.out = out;
+            out.disableAutoRequest();
+            out.setOnReadyHandler(this::drain);
+            out.setOnCancelHandler(() -> finished = true);
+            requestChunk();
+        }
+
+        @Override
+        public void onNext(BulkTransferRequest leg) {
+            outstanding--;
+            chunk.add(leg);
+            if (chunk.size() >= bulkChunkSize) {
+                postChunk();
+            }
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            finished = true;
+        }
+
+        @Override
+        public void onCompleted() {
+            inputDone = true;
+            if (!chunk.isEmpty()) {
+                postChunk();
+            }
+            drain();
+        }
+
+        private void postChunk() {
+            if (finished) {
+                chunk.clear();
+                return;
+            }
+            try {
+                for (TransferPoster.LegOutcome outcome : transferPoster.postChunk(chunk)) {
+                    pending.add(outcome.error() == null
+                            ? BulkTransferResult.newBuilder()
+                                    .setLegId(outcome.legId())
+                                    .setSuccess(true)
+                                    .setMessage("Transfer completed successfully")
+                                    .setTransfer(toProto(outcome.transfer()))
+                                    .build()
+                            : failedLeg(outcome.legId(), outcome.error()));
+                }
+            } catch (RuntimeException e) {
+                for (BulkTransferRequest leg : chunk) {
+                    pending.add(failedLeg(leg.getLegId(), "Chunk rolled back: " + e.getMessage()));
+                }
+            }
+            chunk.clear();
+        }
+
+        private void drain() {
+            if (finished) {
+                return;
+            }
+            while (!pending.isEmpty() && out.isReady()) {
+                out.onNext(pending.poll());
+            }
+            if (!pending.isEmpty()) {
+                return;
+            }
+            if (inputDone) {
+                finished = true;
+                out.onCompleted();
+            } else if (outstanding == 0) {
+                requestChunk();
+            }
+        }
+
+        private void requestChunk() {
+            outstanding = bulkChunkSize - chunk.size();
+            out.request(outstanding);
+        }
+
+        private BulkTransferResult failedLeg(long legId, String message) {
+            return BulkTransferResult.newBuilder()
+                    .setLegId(legId)
+                    .setSuccess(false)
+                    .setMessage(message)
+                    .build();
+        }
+    }
+
     private void respond(StreamObserver<TransferResponse> observer, String message, Transfer transfer) {
         observer.onNext(TransferResponse.newBuilder().setSuccess(true).setMessage(message).setTransfer(toProto(transfer)).build());
         observer.onCompleted();
     }
 
+    /** Answers a retry with its stored response, or fails a request the key does not belong to. */
+    private boolean replayed(
+            String operation, String key, Message request, StreamObserver<TransferResponse> observer) {
+        Optional<TransferResponse> stored;
+        try {
+            stored = idempotencyStore.claim(operation, key, request, TransferResponse.parser());
+        } catch (StatusRuntimeException e) {
+            observer.onError(e);
+            return true;
+        }
+        stored.ifPresent(response -> {
+            observer.onNext(response);
+            observer.onCompleted();
+        });
+        return stored.isPresent();
+    }
+
+    private void respond(
+            StreamObserver<TransferResponse> observer, String message, Transfer transfer, String operation, String key) {
+        TransferResponse response = TransferResponse.newBuilder()
+                .setSuccess(true)
+                .setMessage(message)
+                .setTransfer(toProto(transfer))
+                .build();
+        idempotencyStore.complete(operation, key, response);
+        observer.onNext(response);
+        observer.onCompleted();
+    }
+
     private void notFound(StreamObserver<TransferResponse> observer, String message) {
         observer.onNext(TransferResponse.newBuilder().setSuccess(false).setMessage(message).build());
         observer.onCompleted();
     }
 
     private com.arister.proto.Transfer toProto(Transfer t) {
-        return com.arister.proto.Transfer.newBuilder()
+        com.arister.proto.Transfer.Builder b = com.arister.proto.Transfer.newBuilder()
                 .setId(t.getId())
                 .setTransferRef(t.getTransferRef() != null ? t.getTransferRef() : "")
                 .setFromAccountId(t.getFromAccountId())
                 .setToAccountId(t.getToAccountId())
-                .setAmount(t.getAmount().toPlainString())
-                .setFee(t.getFee() != null ? t.getFee().toPlainString() : "0")
-                .setStatus(com.arister.proto.TransferStatus.valueOf(t.getStatus().name()))
-                .setDescription(t.getDescription() != null ? t.getDescription() : "")
-                .setCreatedAt(t.getCreatedAt() != null ? t.getCreatedAt().toString() : "")
-                .build();
+                .setAmount(Money.format(t.getAmount()))
+                .setFee(Money.format(t.getFee()))
+                .setAmountMinor(t.getAmount())
+                .setFeeMinor(t.getFee())
+                .setStatus(ProtoMapping.toProto(t.getStatus()))
+                .setDescription(t.getDescription() != null ? t.getDescription() : "");
+        if (t.getCreatedAt() != null) b.setCreatedAt(ProtoMapping.timestamp(t.getCreatedAt()));
+        return b.build();
     }
 }
@@ -0,0 +1,177 @@
+package com.arister.service;
+
+import com.arister.common.money.Money;
+import com.arister.enums.TransactionType;
+import com.arister.enums.TransferStatus;
+import com.arister.model.Account;
+import com.arister.model.Transaction;
+import com.arister.model.Transfer;
+import com.arister.proto.BulkTransferRequest;
+import com.arister.proto.LedgerEvent;
+import com.arister.repository.AccountRepository;
+import com.arister.repository.LedgerEventStore;
+import com.arister.repository.LedgerIdAllocator;
+import com.arister.repository.TransactionRepository;
+import com.arister.repository.TransferRepository;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Writes the ledger rows of a transfer between accounts the caller has already locked. Balances are
+ * only changed on the managed entities, so any number of transfers from the same account within one
+ * transaction flush as a single account UPDATE. Both legs go to the ledger event outbox with the
+ * transfer they belong to.
+ *
+ * <p>The one exception to the locking is a striped destination, which the caller may read without a
+ * lock; {@link BalanceStripes#credit} then posts to one of its stripes. Sources must be settled.
+ */
+@Component
+@RequiredArgsConstructor
+public class TransferPoster {
+
+    private final TransferRepository transferRepository;
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final LedgerIdAllocator ledgerIdAllocator;
+    private final AccountCache accountCache;
+    private final PortfolioCache portfolioCache;
+    private final BalanceStripes balanceStripes;
+    private final LedgerEventStore ledgerEventStore;
+
+    public record LegOutcome(long legId, Transfer transfer, String error) {}
+
+    public boolean canDebit(Account account, long totalDebit) {
+        return account.getBalance() - totalDebit >= -account.getOverdraftLimit();
+    }
+
+    /** Posts a transfer of {@code amount} plus {@code fee}, both in minor units. */
+    public Transfer post(Account from, Account to, long amount, long fee, String description) {
+        long totalDebit = amount + fee;
+        long fromBalanceBefore = from.getBalance();
+        long fromBalanceAfter = fromBalanceBefore - totalDebit;
+
+        // Both ids and the creation time are fixed up front so the legs can point at each other and go
+        // out in one insert batch. The reference is checked at commit (V13) to allow the forward one.
+        long outTxnId = ledgerIdAllocator.nextTransactionId();
+        long inTxnId = ledgerIdAllocator.nextTransactionId();
+        ZonedDateTime createdAt = ZonedDateTime.now(ZoneOffset.UTC);
+
+        from.setBalance(fromBalanceAfter);
+        BalanceStripes.Credit credit = balanceStripes.credit(to, inTxnId, amount);
+        accountCache.evict(from);
+        accountCache.evict(to);
+        portfolioCache.post(from, -totalDebit);
+        portfolioCache.post(to, amount);
+
+        Transaction outTxn = Transaction.builder()
+                .id(outTxnId)
+                .accountId(from.getId())
+                .transactionType(TransactionType.TRANSFER_OUT)
+                .amount(totalDebit)
+                .balanceBefore(fromBalanceBefore)
+                .balanceAfter(fromBalanceAfter)
+                .description(description)
+                .relatedTxnId(inTxnId)
+                .relatedTxnCreatedAt(createdAt)
+                .createdAt(createdAt)
+                .build();
+        Transaction inTxn = Transaction.builder()
+                .id(inTxnId)
+                .accountId(to.getId())
+                .transactionType(TransactionType.TRANSFER_IN)
+                .amount(amount)
+                .balanceBefore(credit.balanceBefore())
+                .balanceAfter(credit.balanceAfter())
+                .balanceSlot(credit.slot())
+                .description(description)
+                .relatedTxnId(outTxnId)
+                .relatedTxnCreatedAt(createdAt)
+                .createdAt(createdAt)
+                .build();
+        transactionRepository.saveAll(List.of(outTxn, inTxn));
+
+        Transfer transfer = Transfer.builder()
+                .id(ledgerIdAllocator.nextTransferId())
+                .fromAccountId(from.getId())
+                .toAccountId(to.getId())
+                .amount(amount)
+                .fee(fee)
+                .status(TransferStatus.COMPLETED)
+                .description(description)
+                .build();
+        transferRepository.save(transfer);
+        ledgerEventStore.add(legEvent(outTxn, transfer, to));
+        ledgerEventStore.add(legEvent(inTxn, transfer, from));
+        return transfer;
+    }
+
+    /**
+     * Posts a chunk of bulk transfer legs in one transaction. Every account in the chunk is locked once
+     * up front; a leg that fails validation is reported and skipped without affecting the others.
+     */
+    @Transactional
+    public List<LegOutcome> postChunk(List<BulkTransferRequest> legs) {
+        Set<Long> accountIds = new TreeSet<>();
+        for (BulkTransferRequest leg : legs) {
+            accountIds.add(leg.getFromAccountId());
+            accountIds.add(leg.getToAccountId());
+        }
+        Map<Long, Account> locked = accountRepository.findAllByIdForUpdate(accountIds).stream()
+                .collect(Collectors.toMap(Account::getId, Function.identity()));
+        locked.values().forEach(balanceStripes::settle);
+
+        List<LegOutcome> outcomes = new ArrayList<>(legs.size());
+        for (BulkTransferRequest leg : legs) {
+            outcomes.add(postLeg(leg, locked));
+        }
+        return outcomes;
+    }
+
+    private LegOutcome postLeg(BulkTransferRequest leg, Map<Long, Account> locked) {
+        if (leg.getFromAccountId() == leg.getToAccountId()) {
+            return failed(leg, "Source and destination accounts must differ");
+        }
+        Account from = locked.get(leg.getFromAccountId());
+        Account to = locked.get(leg.getToAccountId());
+        if (from == null) {
+            return failed(leg, "Source account not found: " + leg.getFromAccountId());
+        }
+        if (to == null) {
+            return failed(leg, "Destination account not found: " + leg.getToAccountId());
+        }
+
+        OptionalLong amount = TransactionGrpcService.requestedMinor(leg.getAmount(), leg.getAmountMinor());
+        OptionalLong fee = TransactionGrpcService.requestedFee(leg.getFee(), leg.getFeeMinor());
+        if (amount.isEmpty() || fee.isEmpty()) {
+            return failed(leg, "Invalid amount or fee: " + leg.getAmount() + " / " + leg.getFee());
+        }
+        if (!canDebit(from, amount.getAsLong() + fee.getAsLong())) {
+            return failed(leg, "Insufficient funds. Available: " + Money.format(from.getBalance()));
+        }
+        return new LegOutcome(
+                leg.getLegId(), post(from, to, amount.getAsLong(), fee.getAsLong(), leg.getDescription()), null);
+    }
+
+    private static LedgerEvent legEvent(Transaction leg, Transfer transfer, Account counterparty) {
+        return LedgerEvent.newBuilder()
+                .setTransaction(TransactionGrpcService.toProto(leg))
+                .setTransferId(transfer.getId())
+                .setCounterpartyAccountId(counterparty.getId())
+                .build();
+    }
+
+    private LegOutcome failed(BulkTransferRequest leg, String error) {
+        return new LegOutcome(leg.getLegId(), null, error);
+    }
+}
@@ -0,0 +1,4 @@
+-- Serves ListTransactionsByAccount newest first: both the keyset predicate (created_at, id) < (?, ?)
+-- and the ORDER BY are answered by a single range scan of this index.
+CREATE INDEX IF NOT EXISTS idx_transactions_account_created
+    ON transactions (account_id, created_at DESC, id DESC);
@@ -0,0 +1,6 @@
+-- ListTransfersByAccount reads each direction with its own range scan (see TransferRepository), so
+-- each account column needs its own index ordered like the keyset (created_at, id).
+CREATE INDEX IF NOT EXISTS idx_transfers_from_account_created
+    ON transfers (from_account_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_transfers_to_account_created
+    ON transfers (to_account_id, created_at DESC, id DESC);
@@ -0,0 +1,143 @@
+-- Range-partitions transactions and transfers by UTC month of created_at. Queries that bound
+-- created_at only read the months they cover, every index is per month, and a month that no longer
+-- needs to be online can be detached and archived without locking the others (LedgerPartitionJob).
+--
+-- Keys of a partitioned table must contain the partition key, so the primary keys become
+-- (id, created_at); ids still come from one sequence per table and stay unique. The refs cannot be
+-- UNIQUE on the parent for the same reason. Each partition gets a unique index on its ref instead,
+-- and the refs of new rows must carry the UTC day of created_at, so a ref can only ever be in one
+-- partition. Refs from before this migration are not checked; they were unique already.
+--
+-- The related_txn_id self-reference needs the partition key too, so related_txn_created_at is added
+-- and the foreign key covers both. TransferPoster gives both legs of a transfer the same created_at.
+--
+-- Existing rows are copied here, holding ACCESS EXCLUSIVE locks on both tables until the migration
+-- commits.
+
+-- Creates the monthly partitions of transactions and transfers from the month of from_day through the
+-- month of through_day that do not exist yet, named <table>_yYYYYmMM. Returns how many it created.
+CREATE OR REPLACE FUNCTION create_ledger_partitions(from_day DATE, through_day DATE) RETURNS INTEGER
+LANGUAGE plpgsql AS $$
+DECLARE
+    tbl     TEXT;
+    ref     TEXT;
+    m       DATE;
+    part    TEXT;
+    created INTEGER := 0;
+BEGIN
+    FOREACH tbl IN ARRAY ARRAY['transactions', 'transfers'] LOOP
+        ref := CASE tbl WHEN 'transactions' THEN 'transaction_ref' ELSE 'transfer_ref' END;
+        m := date_trunc('month', from_day)::DATE;
+        WHILE m <= through_day LOOP
+            part := tbl || '_y' || to_char(m, 'YYYY') || 'm' || to_char(m, 'MM');
+            IF to_regclass(part) IS NULL THEN
+                EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                               part, tbl,
+                               m::TIMESTAMP AT TIME ZONE 'UTC',
+                               (m + INTERVAL '1 month')::TIMESTAMP AT TIME ZONE 'UTC');
+                EXECUTE format('CREATE UNIQUE INDEX %I ON %I (%I)', part || '_' || ref || '_key', part, ref);
+                created := created + 1;
+            END IF;
+            m := (m + INTERVAL '1 month')::DATE;
+        END LOOP;
+    END LOOP;
+    RETURN created;
+END;
+$$;
+
+ALTER TABLE transactions RENAME TO transactions_unpartitioned;
+ALTER TABLE transactions_unpartitioned RENAME CONSTRAINT transactions_pkey TO transactions_unpartitioned_pkey;
+ALTER TABLE transactions_unpartitioned DROP CONSTRAINT transactions_transaction_ref_key;
+DROP INDEX idx_transactions_account_created;
+DROP INDEX idx_transactions_created_at;
+ALTER SEQUENCE transactions_id_seq OWNED BY NONE;
+
+ALTER TABLE transfers RENAME TO transfers_unpartitioned;
+ALTER TABLE transfers_unpartitioned RENAME CONSTRAINT transfers_pkey TO transfers_unpartitioned_pkey;
+ALTER TABLE transfers_unpartitioned DROP CONSTRAINT transfers_transfer_ref_key;
+DROP INDEX idx_transfers_from_account_created;
+DROP INDEX idx_transfers_to_account_created;
+ALTER SEQUENCE transfers_id_seq OWNED BY NONE;
+
+CREATE TABLE transactions (
+    id               BIGINT        NOT NULL DEFAULT NEXTVAL('transactions_id_seq'),
+    transaction_ref  VARCHAR(30)   NOT NULL,
+    account_id       BIGINT        NOT NULL REFERENCES accounts(id),
+    transaction_type VARCHAR(20)   NOT NULL
+                     CHECK (transaction_type IN ('DEPOSIT', 'WITHDRAWAL', 'TRANSFER_IN', 'TRANSFER_OUT', 'INTEREST', 'FEE', 'REVERSAL')),
+    amount           DECIMAL(15,2) NOT NULL CHECK (amount > 0),
+    balance_before   DECIMAL(15,2) NOT NULL,
+    balance_after    DECIMAL(15,2) NOT NULL,
+    description      TEXT,
+    related_txn_id   BIGINT,
+    related_txn_created_at TIMESTAMPTZ,
+    performed_by     BIGINT,
+    created_at       TIMESTAMPTZ   NOT NULL DEFAULT NOW(),
+    updated_at       TIMESTAMPTZ   NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+ALTER SEQUENCE transactions_id_seq OWNED BY transactions.id;
+
+CREATE TABLE transfers (
+    id              BIGINT        NOT NULL DEFAULT NEXTVAL('transfers_id_seq'),
+    transfer_ref    VARCHAR(30)   NOT NULL,
+    from_account_id BIGINT        NOT NULL REFERENCES accounts(id),
+    to_account_id   BIGINT        NOT NULL REFERENCES accounts(id),
+    amount          DECIMAL(15,2) NOT NULL CHECK (amount > 0),
+    fee             DECIMAL(15,2) NOT NULL DEFAULT 0.00,
+    status          VARCHAR(20)   NOT NULL DEFAULT 'COMPLETED'
+                    CHECK (status IN ('PENDING', 'COMPLETED', 'FAILED', 'REVERSED')),
+    description     TEXT,
+    created_at      TIMESTAMPTZ   NOT NULL DEFAULT NOW(),
+    updated_at      TIMESTAMPTZ   NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (id, created_at),
+    CONSTRAINT chk_diff_accounts CHECK (from_account_id != to_account_id)
+) PARTITION BY RANGE (created_at);
+ALTER SEQUENCE transfers_id_seq OWNED BY transfers.id;
+
+-- Every month that holds a row, through three months ahead; LedgerPartitionJob keeps that lead.
+SELECT create_ledger_partitions(
+    (LEAST((SELECT MIN(created_at) FROM transactions_unpartitioned),
+           (SELECT MIN(created_at) FROM transfers_unpartitioned),
+           NOW()) AT TIME ZONE 'UTC')::DATE,
+    (GREATEST((SELECT MAX(created_at) FROM transactions_unpartitioned),
+              (SELECT MAX(created_at) FROM transfers_unpartitioned),
+              NOW() + INTERVAL '3 months') AT TIME ZONE 'UTC')::DATE);
+
+INSERT INTO transactions (id, transaction_ref, account_id, transaction_type, amount, balance_before, balance_after,
+                          description, related_txn_id, related_txn_created_at, performed_by, created_at, updated_at)
+SELECT t.id, t.transaction_ref, t.account_id, t.transaction_type, t.amount, t.balance_before, t.balance_after,
+       t.description, t.related_txn_id, r.created_at, t.performed_by, t.created_at, t.updated_at
+FROM transactions_unpartitioned t
+LEFT JOIN transactions_unpartitioned r ON r.id = t.related_txn_id;
+
+INSERT INTO transfers (id, transfer_ref, from_account_id, to_account_id, amount, fee, status, description,
+                       created_at, updated_at)
+SELECT id, transfer_ref, from_account_id, to_account_id, amount, fee, status, description, created_at, updated_at
+FROM transfers_unpartitioned;
+
+DROP TABLE transactions_unpartitioned;
+DROP TABLE transfers_unpartitioned;
+
+-- Added after the copy, so existing rows are checked in one pass rather than row by row at commit.
+-- Both legs of a transfer point at each other and are inserted in the same batch, so the
+-- self-reference is checked at commit as in V8.
+ALTER TABLE transactions
+    ADD CONSTRAINT transactions_related_txn_fkey
+    FOREIGN KEY (related_txn_id, related_txn_created_at) REFERENCES transactions (id, created_at)
+    DEFERRABLE INITIALLY DEFERRED;
+ALTER TABLE transactions
+    ADD CONSTRAINT chk_related_txn_created_at
+    CHECK ((related_txn_id IS NULL) = (related_txn_created_at IS NULL));
+ALTER TABLE transactions
+    ADD CONSTRAINT chk_transaction_ref_day
+    CHECK (substr(transaction_ref, 5, 8) = to_char(created_at AT TIME ZONE 'UTC', 'YYYYMMDD')) NOT VALID;
+ALTER TABLE transfers
+    ADD CONSTRAINT chk_transfer_ref_day
+    CHECK (substr(transfer_ref, 5, 8) = to_char(created_at AT TIME ZONE 'UTC', 'YYYYMMDD')) NOT VALID;
+
+-- Same indexes as V10 - V12, now created on every partition.
+CREATE INDEX idx_transactions_account_created ON transactions (account_id, created_at DESC, id DESC);
+CREATE INDEX idx_transactions_created_at ON transactions USING BRIN (created_at);
+CREATE INDEX idx_transfers_from_account_created ON transfers (from_account_id, created_at DESC, id DESC);
+CREATE INDEX idx_transfers_to_account_created ON transfers (to_account_id, created_at DESC, id DESC);
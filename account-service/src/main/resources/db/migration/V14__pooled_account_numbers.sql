@@ -0,0 +1,5 @@
+-- Account numbers are reserved by the application in blocks of 50 from account_number_seq
+-- (LedgerIdAllocator), like the ledger ids in V8, so they are known before the insert and the
+-- account does not have to be read back for its number.
+ALTER SEQUENCE account_number_seq INCREMENT BY 50;
+ALTER TABLE accounts ALTER COLUMN account_number DROP DEFAULT;
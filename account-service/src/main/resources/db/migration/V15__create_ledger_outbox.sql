@@ -0,0 +1,30 @@
+-- Transactional outbox of ledger events. Deposits, withdrawals and transfers add one row per
+-- transaction they post, in the same database transaction, right before it commits. The id is drawn
+-- at that point, while the posting still holds its account locks, so two postings to the same
+-- account always get their ids in commit order. payload is a serialized transaction.LedgerEvent.
+CREATE TABLE IF NOT EXISTS ledger_outbox (
+    id          BIGINT        GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    payload     BYTEA         NOT NULL,
+    created_at  TIMESTAMPTZ   NOT NULL DEFAULT NOW()
+);
+
+-- Events moved out of the outbox by LedgerEventRelay, numbered by the offsets subscribers resume
+-- from. Offsets are assigned under the lock on ledger_event_head, so they become visible in order and
+-- without gaps.
+CREATE TABLE IF NOT EXISTS ledger_events (
+    event_offset BIGINT       PRIMARY KEY,
+    payload      BYTEA        NOT NULL,
+    published_at TIMESTAMPTZ  NOT NULL DEFAULT NOW()
+);
+
+-- Rows arrive in published_at order, so a BRIN index serves the retention purge at a fraction of the
+-- size and insert cost of a B-tree.
+CREATE INDEX IF NOT EXISTS idx_ledger_events_published_at ON ledger_events USING BRIN (published_at);
+
+-- The last offset handed out. A relay claims this row with FOR UPDATE SKIP LOCKED for each batch, so
+-- on several instances one relays while the others skip their turn instead of queueing behind it.
+CREATE TABLE IF NOT EXISTS ledger_event_head (
+    id          SMALLINT PRIMARY KEY CHECK (id = 1),
+    last_offset BIGINT   NOT NULL
+);
+INSERT INTO ledger_event_head (id, last_offset) VALUES (1, 0) ON CONFLICT DO NOTHING;
@@ -0,0 +1,19 @@
+-- Striped balances for hot accounts, ones that receive credits from many concurrent postings (a
+-- merchant settlement or tax collection account). With balance_stripes = N > 0, credits that do not
+-- already hold the account row lock go to one of N rows of account_balance_stripes instead of
+-- accounts.balance, so they queue on N rows rather than one. The account's balance is
+-- accounts.balance plus the sum of its stripes; debits and BalanceStripes' periodic fold move the
+-- stripes back into accounts.balance under the account row lock, so overdraft checks see every credit.
+ALTER TABLE accounts ADD COLUMN IF NOT EXISTS balance_stripes SMALLINT NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS account_balance_stripes (
+    account_id  BIGINT        NOT NULL REFERENCES accounts(id),
+    slot        SMALLINT      NOT NULL,
+    amount      DECIMAL(15,2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (account_id, slot)
+);
+
+-- The stripe a credit went to, or NULL for postings to accounts.balance. balance_before and
+-- balance_after of a striped credit are the stripe's, so their difference is still the posting's
+-- delta, but they are not the account's balance.
+ALTER TABLE transactions ADD COLUMN IF NOT EXISTS balance_slot SMALLINT;
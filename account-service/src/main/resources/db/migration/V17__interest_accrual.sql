@@ -0,0 +1,19 @@
+-- Daily interest on SAVINGS and FIXED_DEPOSIT accounts. interest_accrued_through is the last day
+-- whose interest has been applied to the account, written in the same transaction as the posting,
+-- so a day is never accrued twice however often it is rerun. accrued_interest carries the part of
+-- the accrued interest below one cent to the next day instead of rounding it away.
+ALTER TABLE accounts ADD COLUMN IF NOT EXISTS interest_accrued_through DATE;
+ALTER TABLE accounts ADD COLUMN IF NOT EXISTS accrued_interest DECIMAL(15,10) NOT NULL DEFAULT 0;
+
+-- One row per day and partition of the account id range. The accrual run walks each partition in
+-- keyset chunks and advances checkpoint_id in every chunk's transaction, so a restarted run resumes
+-- each partition after its last committed chunk. checkpoint_id starts at the previous partition's
+-- upper_id (0 for the first), and the last partition's upper_id is unbounded.
+CREATE TABLE IF NOT EXISTS interest_accrual_checkpoints (
+    accrual_date  DATE     NOT NULL,
+    partition_no  SMALLINT NOT NULL,
+    upper_id      BIGINT   NOT NULL,
+    checkpoint_id BIGINT   NOT NULL,
+    completed_at  TIMESTAMPTZ,
+    PRIMARY KEY (accrual_date, partition_no)
+);
@@ -0,0 +1,13 @@
+-- Monthly maintenance fee on accounts whose balance is below min_balance. maintenance_fee_period is
+-- the first day of the last month the account was charged for, written in the same statement as
+-- the charge's balance update, so no account is charged twice for a month.
+ALTER TABLE accounts ADD COLUMN IF NOT EXISTS maintenance_fee_period DATE;
+
+-- One row per month charged. The fee run walks accounts in id order, one bounded chunk per
+-- transaction, and advances checkpoint_id in every chunk's transaction, so a restarted run resumes
+-- after its last committed chunk.
+CREATE TABLE IF NOT EXISTS maintenance_fee_checkpoints (
+    fee_period    DATE   PRIMARY KEY,
+    checkpoint_id BIGINT NOT NULL DEFAULT 0,
+    completed_at  TIMESTAMPTZ
+);
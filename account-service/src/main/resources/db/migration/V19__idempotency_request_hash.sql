@@ -0,0 +1,4 @@
+-- SHA-256 of the request that claimed the key, without the key itself. A request reusing the key
+-- with different contents is rejected instead of being answered with another request's response.
+-- Keys claimed before this migration have no hash and are not checked; they expire with the TTL.
+ALTER TABLE idempotency_keys ADD COLUMN IF NOT EXISTS request_hash BYTEA;
@@ -0,0 +1,16 @@
+-- transactions and transfers ids are reserved by the application in blocks of 50 (LedgerIdAllocator),
+-- so each nextval must advance the sequence by the block size.
+ALTER SEQUENCE transactions_id_seq INCREMENT BY 50;
+ALTER SEQUENCE transfers_id_seq INCREMENT BY 50;
+
+-- References are now derived from the row id. Move both id sequences past every number the old
+-- column defaults have handed out so new refs cannot collide with existing ones.
+SELECT setval('transactions_id_seq', GREATEST((SELECT last_value FROM transactions_id_seq), (SELECT last_value FROM transaction_ref_seq)));
+SELECT setval('transfers_id_seq', GREATEST((SELECT last_value FROM transfers_id_seq), (SELECT last_value FROM transfer_ref_seq)));
+
+-- Both legs of a transfer point at each other and are inserted in the same batch, so the
+-- self-reference can only be checked at commit.
+ALTER TABLE transactions DROP CONSTRAINT IF EXISTS transactions_related_txn_id_fkey;
+ALTER TABLE transactions
+    ADD CONSTRAINT transactions_related_txn_id_fkey
+    FOREIGN KEY (related_txn_id) REFERENCES transactions(id) DEFERRABLE INITIALLY DEFERRED;
@@ -0,0 +1,14 @@
+-- One row per idempotency key seen by Deposit, Withdraw and CreateTransfer. The row is claimed at the
+-- start of the request's transaction, so a concurrent retry with the same key waits on the primary
+-- key instead of posting twice, and response holds the serialized reply to replay.
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    operation       VARCHAR(20)   NOT NULL,
+    idempotency_key VARCHAR(100)  NOT NULL,
+    response        BYTEA,
+    created_at      TIMESTAMPTZ   NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (operation, idempotency_key)
+);
+
+-- Rows arrive in created_at order, so a BRIN index serves the TTL purge at a fraction of the size and
+-- insert cost of a B-tree.
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_created_at ON idempotency_keys USING BRIN (created_at);
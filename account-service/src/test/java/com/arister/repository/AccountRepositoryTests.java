@@ -0,0 +1,69 @@
+package com.arister.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.arister.common.money.Money;
+import com.arister.enums.AccountType;
+import com.arister.model.Account;
+import java.util.List;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+
+/**
+ * The list queries load their accounts read-only, so a change made to one is never flushed even
+ * inside a read-write transaction. Runs against the test datasource, whose init script creates the
+ * stripe table the {@code Account} formula reads.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class AccountRepositoryTests {
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void accountsByCustomerAreLoadedReadOnly() {
+        long accountId = openAccount(8L);
+
+        assertChangesAreNotFlushed(accountId, accountRepository.findByCustomerId(8L));
+    }
+
+    @Test
+    void accountsOfSeveralCustomersAreLoadedReadOnly() {
+        long accountId = openAccount(9L);
+
+        assertChangesAreNotFlushed(accountId, accountRepository.findByCustomerIdIn(List.of(8L, 9L)));
+    }
+
+    private long openAccount(long customerId) {
+        long id = entityManager
+                .persist(Account.builder()
+                        .customerId(customerId)
+                        .branchId(1L)
+                        .accountType(AccountType.SAVINGS)
+                        .balance(Money.parseMinor("10.00"))
+                        .build())
+                .getId();
+        entityManager.flush();
+        entityManager.clear();
+        return id;
+    }
+
+    private void assertChangesAreNotFlushed(long accountId, List<Account> loaded) {
+        Account account = loaded.getFirst();
+        assertThat(entityManager.getEntityManager().unwrap(Session.class).isReadOnly(account)).isTrue();
+        account.setBalance(999);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(accountRepository.findById(accountId).orElseThrow().getBalance())
+                .isEqualTo(Money.parseMinor("10.00"));
+    }
+}
@@ -0,0 +1,114 @@
+package com.arister.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.arister.proto.BalanceAsOfResponse;
+import com.arister.proto.DepositRequest;
+import com.arister.proto.GetBalanceAsOfRequest;
+import com.arister.proto.TransactionResponse;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class AccountGrpcServiceBalanceAsOfTests extends ServiceTestSupport {
+
+    @Autowired
+    private AccountGrpcService accountGrpcService;
+
+    @Autowired
+    private TransactionGrpcService transactionGrpcService;
+
+    @Autowired
+    private BalanceSnapshotJob balanceSnapshotJob;
+
+    @Test
+    void balanceAsOfIsTheLastSnapshotPlusAtMostOneDayOfTransactions() {
+        long accountId = openAccountAt("2026-01-01T08:00:00Z");
+        deposit(accountId, "100.00", "2026-01-01T10:00:00Z");
+        deposit(accountId, "50.00", "2026-01-01T20:00:00Z");
+        deposit(accountId, "25.00", "2026-01-03T09:00:00Z");
+        deposit(accountId, "10.00", "2026-01-05T12:00:00Z");
+
+        assertThat(balanceSnapshotJob.catchUp(Instant.parse("2026-01-06T01:00:00Z"))).isEqualTo(5);
+        assertThat(balanceSnapshotJob.catchUp(Instant.parse("2026-01-06T01:00:00Z"))).isZero();
+        assertThat(jdbcTemplate.queryForList(
+                        "SELECT balance FROM balance_snapshots WHERE account_id = ? ORDER BY as_of_date",
+                        BigDecimal.class,
+                        accountId))
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("150.00"), new BigDecimal("175.00"), new BigDecimal("185.00"));
+
+        assertThat(balanceAsOf(accountId, "2026-01-01T12:00:00Z"))
+                .satisfies(r -> assertThat(r.getBalance()).isEqualTo("100.00"))
+                .satisfies(r -> assertThat(r.getSnapshotDate()).isEmpty())
+                .satisfies(r -> assertThat(r.getReplayedTransactions()).isEqualTo(1));
+        assertThat(balanceAsOf(accountId, "2026-01-02T00:00:00Z"))
+                .satisfies(r -> assertThat(r.getBalance()).isEqualTo("150.00"))
+                .satisfies(r -> assertThat(r.getSnapshotDate()).isEqualTo("2026-01-01"))
+                .satisfies(r -> assertThat(r.getReplayedTransactions()).isZero());
+        // 23:00 at +01:00 is still 4 January in UTC
+        assertThat(balanceAsOf(accountId, "2026-01-04T23:00:00+01:00"))
+                .satisfies(r -> assertThat(r.getBalance()).isEqualTo("175.00"))
+                .satisfies(r -> assertThat(r.getSnapshotDate()).isEqualTo("2026-01-03"))
+                .satisfies(r -> assertThat(r.getReplayedTransactions()).isZero());
+        assertThat(balanceAsOf(accountId, "2026-01-05T15:00:00Z"))
+                .satisfies(r -> assertThat(r.getBalance()).isEqualTo("185.00"))
+                .satisfies(r -> assertThat(r.getBalanceMinor()).isEqualTo(18_500))
+                .satisfies(r -> assertThat(r.getSnapshotDate()).isEqualTo("2026-01-03"))
+                .satisfies(r -> assertThat(r.getReplayedTransactions()).isEqualTo(1));
+    }
+
+    @Test
+    void daysNotYetSnapshottedAreReplayed() {
+        long accountId = openAccountAt("2026-01-01T08:00:00Z");
+        deposit(accountId, "100.00", "2026-01-01T10:00:00Z");
+        deposit(accountId, "50.00", "2026-01-02T10:00:00Z");
+        // the 1 January snapshot is still settling
+        assertThat(balanceSnapshotJob.catchUp(Instant.parse("2026-01-02T00:01:00Z"))).isZero();
+
+        assertThat(balanceAsOf(accountId, "2026-01-03T00:00:00Z"))
+                .satisfies(r -> assertThat(r.getBalance()).isEqualTo("150.00"))
+                .satisfies(r -> assertThat(r.getSnapshotDate()).isEmpty())
+                .satisfies(r -> assertThat(r.getReplayedTransactions()).isEqualTo(2));
+    }
+
+    @Test
+    void rejectsInstantsBeforeOpeningAndUnknownAccounts() {
+        long accountId = openAccountAt("2026-01-01T08:00:00Z");
+
+        assertThat(balanceAsOf(accountId, "2025-12-31T23:59:59Z").getSuccess()).isFalse();
+        assertThat(balanceAsOf(-1, "2026-01-02T00:00:00Z").getSuccess()).isFalse();
+    }
+
+    private long openAccountAt(String openedAt) {
+        long id = openAccount("0.00");
+        openedAt(id, openedAt);
+        return id;
+    }
+
+    private void deposit(long accountId, String amount, String at) {
+        TransactionResponse response = call(observer -> transactionGrpcService.deposit(
+                DepositRequest.newBuilder()
+                        .setAccountId(accountId)
+                        .setAmount(amount)
+                        .build(),
+                observer));
+        jdbcTemplate.update(
+                "UPDATE transactions SET created_at = ? WHERE id = ?",
+                Timestamp.from(Instant.parse(at)),
+                response.getTransaction().getId());
+    }
+
+    private BalanceAsOfResponse balanceAsOf(long accountId, String asOf) {
+        return call(observer -> accountGrpcService.getBalanceAsOf(
+                GetBalanceAsOfRequest.newBuilder()
+                        .setAccountId(accountId)
+                        .setAsOf(asOf)
+                        .build(),
+                observer));
+    }
+}
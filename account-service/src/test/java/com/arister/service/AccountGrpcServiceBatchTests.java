@@ -0,0 +1,42 @@
+package com.arister.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.arister.proto.ListAccountsByCustomersRequest;
+import com.arister.proto.ListAccountsResponse;
+import java.util.List;
+import java.util.stream.LongStream;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class AccountGrpcServiceBatchTests extends ServiceTestSupport {
+
+    @Autowired
+    private AccountGrpcService accountGrpcService;
+
+    @Test
+    void listsAccountsOfManyCustomersInOneQuery() {
+        LongStream.rangeClosed(1, 5).forEach(customerId -> {
+            open(account("10.00").customerId(customerId));
+            open(account("10.00").customerId(customerId));
+        });
+        Statistics statistics = statistics();
+        statistics.clear();
+
+        ListAccountsResponse response = call(observer -> accountGrpcService.listAccountsByCustomers(
+                ListAccountsByCustomersRequest.newBuilder()
+                        .addAllCustomerIds(List.of(1L, 3L, 5L, 3L, 42L))
+                        .build(),
+                observer));
+
+        assertThat(response.getSuccess()).isTrue();
+        assertThat(response.getAccountsList())
+                .extracting(com.arister.proto.Account::getCustomerId)
+                .containsExactlyInAnyOrder(1L, 1L, 3L, 3L, 5L, 5L);
+        assertThat(response.getTotalCount()).isEqualTo(6);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
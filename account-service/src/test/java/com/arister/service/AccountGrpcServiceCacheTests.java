@@ -0,0 +1,132 @@
+package com.arister.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.arister.proto.AccountResponse;
+import com.arister.proto.AccountStatus;
+import com.arister.proto.CreateAccountRequest;
+import com.arister.proto.CreateTransferRequest;
+import com.arister.proto.DeleteAccountRequest;
+import com.arister.proto.DepositRequest;
+import com.arister.proto.GetAccountRequest;
+import com.arister.proto.ListAccountsByCustomerRequest;
+import com.arister.proto.ListAccountsResponse;
+import com.arister.proto.UpdateAccountRequest;
+import java.util.ArrayList;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class AccountGrpcServiceCacheTests extends ServiceTestSupport {
+
+    private static final long CUSTOMER_ID = 7L;
+
+    @Autowired
+    private AccountGrpcService accountGrpcService;
+
+    @Autowired
+    private TransactionGrpcService transactionGrpcService;
+
+    @Autowired
+    private TransferGrpcService transferGrpcService;
+
+    @Test
+    void repeatedLookupsDoNotTouchTheDatabase() {
+        long id = openCustomerAccount("10.00");
+        Statistics statistics = statistics();
+
+        getAccount(id);
+        listByCustomer();
+        statistics.clear();
+        for (int i = 0; i < 10; i++) {
+            getAccount(id);
+            listByCustomer();
+        }
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void writesThatBypassedThisInstanceShowOnceEvicted() {
+        long id = openCustomerAccount("10.00");
+        openCustomerAccount("10.00");
+        assertThat(getAccount(id).getAccount().getBalance()).isEqualTo("10.00");
+        assertThat(listByCustomer().getAccountsCount()).isEqualTo(2);
+
+        // another instance's writes evict only its own cache, so this one serves its snapshot until
+        // the TTL or a write of its own evicts it
+        jdbcTemplate.update("UPDATE accounts SET balance = 25.00 WHERE id = ?", id);
+        assertThat(getAccount(id).getAccount().getBalance()).isEqualTo("10.00");
+        assertThat(listByCustomer().getAccountsList())
+                .extracting(com.arister.proto.Account::getBalance)
+                .containsExactlyInAnyOrder("10.00", "10.00");
+
+        transactionGrpcService.deposit(
+                DepositRequest.newBuilder().setAccountId(id).setAmount("1.00").build(), observer(new ArrayList<>()));
+        assertThat(getAccount(id).getAccount().getBalance()).isEqualTo("26.00");
+        assertThat(getAccount(id).getAccount().getBalanceMinor()).isEqualTo(2600);
+        assertThat(listByCustomer().getAccountsList())
+                .extracting(com.arister.proto.Account::getBalance)
+                .containsExactlyInAnyOrder("26.00", "10.00");
+    }
+
+    @Test
+    void writesEvictTheCachedSnapshots() {
+        long id = openCustomerAccount("10.00");
+        long other = openCustomerAccount("10.00");
+        assertThat(getAccount(id).getAccount().getBalance()).isEqualTo("10.00");
+        assertThat(listByCustomer().getAccountsCount()).isEqualTo(2);
+
+        transactionGrpcService.deposit(
+                DepositRequest.newBuilder().setAccountId(id).setAmount("5.00").build(), observer(new ArrayList<>()));
+        assertThat(getAccount(id).getAccount().getBalance()).isEqualTo("15.00");
+
+        transferGrpcService.createTransfer(
+                CreateTransferRequest.newBuilder()
+                        .setFromAccountId(id)
+                        .setToAccountId(other)
+                        .setAmount("3.00")
+                        .build(),
+                observer(new ArrayList<>()));
+        assertThat(getAccount(id).getAccount().getBalance()).isEqualTo("12.00");
+        assertThat(listByCustomer().getAccountsList())
+                .extracting(com.arister.proto.Account::getBalance)
+                .containsExactlyInAnyOrder("12.00", "13.00");
+
+        accountGrpcService.updateAccount(
+                UpdateAccountRequest.newBuilder()
+                        .setId(id)
+                        .setStatus(AccountStatus.FROZEN)
+                        .build(),
+                observer(new ArrayList<>()));
+        assertThat(getAccount(id).getAccount().getStatus()).isEqualTo(AccountStatus.FROZEN);
+
+        accountGrpcService.createAccount(
+                CreateAccountRequest.newBuilder()
+                        .setCustomerId(CUSTOMER_ID)
+                        .setBranchId(1L)
+                        .build(),
+                observer(new ArrayList<>()));
+        assertThat(listByCustomer().getAccountsCount()).isEqualTo(3);
+
+        accountGrpcService.deleteAccount(DeleteAccountRequest.newBuilder().setId(other).build(), observer(new ArrayList<>()));
+        assertThat(getAccount(other).getSuccess()).isFalse();
+        assertThat(listByCustomer().getAccountsCount()).isEqualTo(2);
+    }
+
+    private long openCustomerAccount(String balance) {
+        return open(account(balance).customerId(CUSTOMER_ID));
+    }
+
+    private AccountResponse getAccount(long id) {
+        return call(observer ->
+                accountGrpcService.getAccount(GetAccountRequest.newBuilder().setId(id).build(), observer));
+    }
+
+    private ListAccountsResponse listByCustomer() {
+        return call(observer -> accountGrpcService.listAccountsByCustomer(
+                ListAccountsByCustomerRequest.newBuilder().setCustomerId(CUSTOMER_ID).build(), observer));
+    }
+}
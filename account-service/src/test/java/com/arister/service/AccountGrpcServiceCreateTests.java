@@ -0,0 +1,43 @@
+package com.arister.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.arister.proto.AccountResponse;
+import com.arister.proto.AccountType;
+import com.arister.proto.CreateAccountRequest;
+import com.arister.proto.GetAccountByNumberRequest;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class AccountGrpcServiceCreateTests extends ServiceTestSupport {
+
+    @Autowired
+    private AccountGrpcService accountGrpcService;
+
+    @Test
+    void createdAccountsCarryDistinctNumbersAssignedBeforeInsert() {
+        List<String> numbers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            AccountResponse created = call(observer -> accountGrpcService.createAccount(
+                    CreateAccountRequest.newBuilder()
+                            .setCustomerId(1)
+                            .setBranchId(1)
+                            .setAccountType(AccountType.SAVINGS)
+                            .build(),
+                    observer));
+            assertThat(created.getSuccess()).isTrue();
+            numbers.add(created.getAccount().getAccountNumber());
+        }
+
+        assertThat(numbers).doesNotHaveDuplicates().allSatisfy(n -> assertThat(n).matches("ACC-\\d{10}"));
+        for (String number : numbers) {
+            AccountResponse found = call(observer -> accountGrpcService.getAccountByNumber(
+                    GetAccountByNumberRequest.newBuilder().setAccountNumber(number).build(), observer));
+            assertThat(found.getAccount().getAccountNumber()).isEqualTo(number);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.arister.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.arister.proto.AccountResponse;
+import com.arister.proto.AccountType;
+import com.arister.proto.CreateAccountRequest;
+import com.arister.proto.CreateTransferRequest;
+import com.arister.proto.CurrencyTotal;
+import com.arister.proto.CustomerPortfolioResponse;
+import com.arister.proto.DepositRequest;
+import com.arister.proto.GetCustomerPortfolioRequest;
+import com.arister.proto.PortfolioTotal;
+import com.arister.proto.WithdrawRequest;
+import java.util.ArrayList;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class AccountGrpcServicePortfolioTests extends ServiceTestSupport {
+
+    private static final long CUSTOMER_ID = 11L;
+
+    @Autowired
+    private AccountGrpcService accountGrpcService;
+
+    @Autowired
+    private TransactionGrpcService transactionGrpcService;
+
+    @Autowired
+    private TransferGrpcService transferGrpcService;
+
+    @Test
+    void postingsUpdateTheCachedPortfolioWithoutRequerying() {
+        long usdSavings = openAccount(AccountType.SAVINGS, "USD");
+        long usdCurrent = openAccount(AccountType.CURRENT, "USD");
+        long eurSavings = openAccount(AccountType.SAVINGS, "EUR");
+        deposit(usdSavings, "100.00");
+        deposit(usdCurrent, "40.00");
+        deposit(eurSavings, "7.50");
+
+        assertThat(portfolio().getTotalsList())
+                .extracting(PortfolioTotal::getCurrency, PortfolioTotal::getAccountType, PortfolioTotal::getBalance)
+                .containsExactly(
+                        tuple("EUR", AccountType.SAVINGS, "7.50"),
+                        tuple("USD", AccountType.SAVINGS, "100.00"),
+                        tuple("USD", AccountType.CURRENT, "40.00"));
+
+        Statistics statistics = statistics();
+        deposit(usdSavings, "0.25");
+        withdraw(usdCurrent, "10.00");
+        transfer(usdSavings, usdCurrent, "20.00", "1.00");
+        statistics.clear();
+        CustomerPortfolioResponse updated = portfolio();
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        assertThat(updated.getTotalsList())
+                .extracting(PortfolioTotal::getBalance)
+                .containsExactly("7.50", "79.25", "50.00");
+        assertThat(updated.getCurrencyTotalsList())
+                .extracting(CurrencyTotal::getCurrency, CurrencyTotal::getAccountCount, CurrencyTotal::getBalance)
+                .containsExactly(
+                        tuple("EUR", 1, "7.50"),
+                        tuple("USD", 2, "129.25"));
+
+        // a new account drops the cached portfolio, and the next call reloads it
+        openAccount(AccountType.FIXED_DEPOSIT, "USD");
+        assertThat(portfolio().getCurrencyTotalsList())
+                .extracting(CurrencyTotal::getAccountCount)
+                .containsExactly(1, 3);
+    }
+
+    private long openAccount(AccountType type, String currency) {
+        AccountResponse created = call(observer -> accountGrpcService.createAccount(
+                CreateAccountRequest.newBuilder()
+                        .setCustomerId(CUSTOMER_ID)
+                        .setBranchId(1)
+                        .setAccountType(type)
+                        .setCurrency(currency)
+                        .build(),
+                observer));
+        return created.getAccount().getId();
+    }
+
+    private void deposit(long accountId, String amount) {
+        transactionGrpcService.deposit(
+                DepositRequest.newBuilder()
+                        .setAccountId(accountId)
+                        .setAmount(amount)
+                        .build(),
+                observer(new ArrayList<>()));
+    }
+
+    private void withdraw(long accountId, String amount) {
+        transactionGrpcService.withdraw(
+                WithdrawRequest.newBuilder()
+                        .setAccountId(accountId)
+                        .setAmount(amount)
+                        .build(),
+                observer(new ArrayList<>()));
+    }
+
+    private void transfer(long from, long to, String amount, String fee) {
+        transferGrpcService.createTransfer(
+                CreateTransferRequest.newBuilder()
+                        .setFromAccountId(from)
+                        .setToAccountId(to)
+                        .setAmount(amount)
+                        .setFee(fee)
+                        .build(),
+                observer(new ArrayList<>()));
+    }
+
+    private CustomerPortfolioResponse portfolio() {
+        return call(observer -> accountGrpcService.getCustomerPortfolio(
+                GetCustomerPortfolioRequest.newBuilder().setCustomerId(CUSTOMER_ID).build(), observer));
+    }
+}
@@ -0,0 +1,77 @@
+package com.arister.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.arister.proto.DepositRequest;
+import com.arister.proto.ListAccountsRequest;
+import com.arister.proto.ListAccountsResponse;
+import com.arister.proto.ListTransactionsByAccountRequest;
+import com.arister.proto.ListTransactionsResponse;
+import com.arister.proto.TransactionResponse;
+import io.grpc.stub.StreamObserver;
+import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/** List RPCs read their page and count in one read-only session that is never flushed. */
+@SpringBootTest
+class AccountGrpcServiceReadOnlyListTests extends ServiceTestSupport {
+
+    @Autowired
+    private AccountGrpcService accountGrpcService;
+
+    @Autowired
+    private TransactionGrpcService transactionGrpcService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void pagedListsRespondFromAReadOnlySession() {
+        long accountId = openAccount("10.00");
+        for (int i = 0; i < 3; i++) {
+            transactionGrpcService.deposit(
+                    DepositRequest.newBuilder().setAccountId(accountId).setAmount("1.00").build(),
+                    observer(new ArrayList<TransactionResponse>()));
+        }
+
+        List<ListTransactionsResponse> transactions = new ArrayList<>();
+        transactionGrpcService.listTransactionsByAccount(
+                ListTransactionsByAccountRequest.newBuilder().setAccountId(accountId).setSize(2).build(),
+                readOnlyObserver(transactions));
+        assertThat(transactions.getFirst().getTransactionsCount()).isEqualTo(2);
+        assertThat(transactions.getFirst().getTotalCount()).isEqualTo(3);
+
+        List<ListAccountsResponse> accounts = new ArrayList<>();
+        accountGrpcService.listAccounts(ListAccountsRequest.newBuilder().setSize(10).build(), readOnlyObserver(accounts));
+        assertThat(accounts.getFirst().getAccountsCount()).isEqualTo(1);
+    }
+
+    /** Checks that the response is sent from inside a read-only, never-flushed session. */
+    private <T> StreamObserver<T> readOnlyObserver(List<T> responses) {
+        return new StreamObserver<>() {
+            @Override
+            public void onNext(T response) {
+                Session session = entityManager.unwrap(Session.class);
+                assertThat(TransactionSynchronizationManager.isCurrentTransactionReadOnly()).isTrue();
+                assertThat(session.isDefaultReadOnly()).isTrue();
+                assertThat(session.getHibernateFlushMode()).isEqualTo(FlushMode.MANUAL);
+                responses.add(response);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                throw new AssertionError(t);
+            }
+
+            @Override
+            public void onCompleted() {}
+        };
+    }
+}
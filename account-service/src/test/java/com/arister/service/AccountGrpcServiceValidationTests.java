@@ -0,0 +1,50 @@
+package com.arister.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.arister.proto.GetBalanceAsOfRequest;
+import com.arister.proto.ListAccountsByCustomersRequest;
+import com.arister.proto.ListAccountsResponse;
+import io.grpc.Status;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+
+/** Requests that the account service rejects before touching the database, so it runs without one here. */
+class AccountGrpcServiceValidationTests {
+
+    private final AccountGrpcService accountGrpcService = new AccountGrpcService(null, null, null, null, null, null);
+
+    @Test
+    void rejectsOversizedBatches() {
+        List<Long> customerIds = LongStream.rangeClosed(1, AccountGrpcService.MAX_CUSTOMERS_PER_BATCH + 1)
+                .boxed()
+                .toList();
+        List<ListAccountsResponse> responses = new ArrayList<>();
+
+        accountGrpcService.listAccountsByCustomers(
+                ListAccountsByCustomersRequest.newBuilder()
+                        .addAllCustomerIds(customerIds)
+                        .build(),
+                ServiceTestSupport.observer(responses));
+
+        assertThat(responses).singleElement().satisfies(r -> assertThat(r.getSuccess()).isFalse());
+    }
+
+    @Test
+    void rejectsUnparseableInstants() {
+        List<Throwable> errors = new ArrayList<>();
+
+        accountGrpcService.getBalanceAsOf(
+                GetBalanceAsOfRequest.newBuilder()
+                        .setAccountId(1)
+                        .setAsOf("yesterday")
+                        .build(),
+                ServiceTestSupport.observer(new ArrayList<>(), errors));
+
+        assertThat(errors)
+                .singleElement()
+                .satisfies(e -> assertThat(Status.fromThrowable(e).getCode()).isEqualTo(Status.Code.INVALID_ARGUMENT));
+    }
+}
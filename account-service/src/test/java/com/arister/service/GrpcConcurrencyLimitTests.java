@@ -0,0 +1,211 @@
+package com.arister.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.arister.common.grpc.ConcurrencyLimitInterceptor;
+import com.arister.common.metrics.PrometheusEndpoint;
+import com.arister.proto.AccountResponse;
+import com.arister.proto.AccountServiceGrpc;
+import com.arister.proto.BulkTransferRequest;
+import com.arister.proto.BulkTransferResult;
+import com.arister.proto.GetAccountRequest;
+import com.arister.proto.StreamTransactionsRequest;
+import com.arister.proto.TransactionServiceGrpc;
+import com.arister.proto.TransferServiceGrpc;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.grpc.ForwardingServerCallListener.SimpleForwardingServerCallListener;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.stub.MetadataUtils;
+import io.grpc.stub.StreamObserver;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import net.devh.boot.grpc.server.interceptor.GrpcGlobalServerInterceptor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Runs calls through the starter's in-process server, so the concurrency limiter and the executor are
+ * wired exactly as in production, with room for a single call at a time. A call sent with the
+ * {@code hold} header keeps its permit until {@link #RELEASE} is counted down.
+ */
+@SpringBootTest(
+        properties = {
+            "grpc.server.in-process-name=" + GrpcConcurrencyLimitTests.SERVER_NAME,
+            "grpc.concurrency.max-calls=1",
+            "grpc.concurrency.queue-timeout=200ms",
+            "spring.threads.virtual.enabled=true"
+        })
+class GrpcConcurrencyLimitTests {
+
+    static final String SERVER_NAME = "concurrency-limit-tests";
+
+    private static final Metadata.Key<String> HOLD = Metadata.Key.of("hold", Metadata.ASCII_STRING_MARSHALLER);
+    private static final AtomicBoolean HANDLED_ON_VIRTUAL_THREAD = new AtomicBoolean();
+    private static final CountDownLatch RELEASE = new CountDownLatch(1);
+
+    @TestConfiguration
+    static class ThreadProbe {
+
+        @Bean
+        @GrpcGlobalServerInterceptor
+        ServerInterceptor threadProbe() {
+            return new ServerInterceptor() {
+                @Override
+                public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+                        ServerCall<ReqT, RespT> call,
+                        Metadata headers,
+                        ServerCallHandler<ReqT, RespT> next) {
+                    HANDLED_ON_VIRTUAL_THREAD.set(Thread.currentThread().isVirtual());
+                    ServerCall.Listener<ReqT> listener = next.startCall(call, headers);
+                    if (!headers.containsKey(HOLD)) {
+                        return listener;
+                    }
+                    return new SimpleForwardingServerCallListener<>(listener) {
+                        @Override
+                        public void onHalfClose() {
+                            try {
+                                RELEASE.await(5, TimeUnit.SECONDS);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                            super.onHalfClose();
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+    @Autowired
+    private ConcurrencyLimitInterceptor limiter;
+
+    @Autowired
+    private PrometheusEndpoint metrics;
+
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void openChannel() {
+        channel = InProcessChannelBuilder.forName(SERVER_NAME).build();
+    }
+
+    @AfterEach
+    void closeChannel() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void callsBeyondTheLimitAreRejectedUntilAPermitFreesUp() throws Exception {
+        AccountServiceGrpc.AccountServiceBlockingStub accounts = AccountServiceGrpc.newBlockingStub(channel);
+        assertThat(accounts.getAccount(GetAccountRequest.newBuilder().setId(-1).build()).getSuccess())
+                .isFalse();
+        assertThat(HANDLED_ON_VIRTUAL_THREAD).isTrue();
+
+        Metadata hold = new Metadata();
+        hold.put(HOLD, "true");
+        ListenableFuture<AccountResponse> held = AccountServiceGrpc.newFutureStub(channel)
+                .withInterceptors(MetadataUtils.newAttachHeadersInterceptor(hold))
+                .getAccount(GetAccountRequest.newBuilder().setId(-1).build());
+        waitUntil(() -> limiter.inFlight() == 1);
+
+        assertThatThrownBy(() -> accounts.getAccount(
+                        GetAccountRequest.newBuilder().setId(-1).build()))
+                .isInstanceOf(StatusRuntimeException.class)
+                .extracting(e -> ((StatusRuntimeException) e).getStatus().getCode())
+                .isEqualTo(Status.Code.RESOURCE_EXHAUSTED);
+
+        // a statement export waits on the pool, not on a permit
+        assertThat(TransactionServiceGrpc.newBlockingStub(channel)
+                        .streamTransactions(StreamTransactionsRequest.newBuilder()
+                                .setAccountId(-1)
+                                .build()))
+                .toIterable()
+                .isEmpty();
+
+        // a bulk transfer needs a permit for each leg it receives
+        BulkResults rejectedBulk = new BulkResults();
+        TransferServiceGrpc.newStub(channel).bulkTransfer(rejectedBulk).onNext(leg(1));
+        assertThat(rejectedBulk.done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(Status.fromThrowable(rejectedBulk.error).getCode()).isEqualTo(Status.Code.RESOURCE_EXHAUSTED);
+
+        RELEASE.countDown();
+        assertThat(held.get(5, TimeUnit.SECONDS).getSuccess()).isFalse();
+        waitUntil(() -> limiter.inFlight() == 0);
+
+        // and holds none between legs
+        BulkResults bulkResults = new BulkResults();
+        StreamObserver<BulkTransferRequest> bulk = TransferServiceGrpc.newStub(channel).bulkTransfer(bulkResults);
+        bulk.onNext(leg(2));
+        assertThat(accounts.getAccount(GetAccountRequest.newBuilder().setId(-1).build()).getSuccess())
+                .isFalse();
+        bulk.onCompleted();
+        assertThat(bulkResults.done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(bulkResults.error).isNull();
+        assertThat(bulkResults.results).singleElement().satisfies(r -> assertThat(r.getLegId()).isEqualTo(2));
+
+        // the client can see the response before the server has released the permit
+        waitUntil(() -> limiter.inFlight() == 0);
+        assertThat(metrics.scrape())
+                .contains("grpc_server_calls_rejected_total 2\n")
+                .contains("grpc_server_calls_total{service=\"account.AccountService\","
+                        + "method=\"GetAccount\",code=\"RESOURCE_EXHAUSTED\"} 1\n")
+                .contains("grpc_server_calls_total{service=\"transfer.TransferService\","
+                        + "method=\"BulkTransfer\",code=\"RESOURCE_EXHAUSTED\"} 1\n");
+    }
+
+    private static BulkTransferRequest leg(long legId) {
+        return BulkTransferRequest.newBuilder()
+                .setLegId(legId)
+                .setFromAccountId(-1)
+                .setToAccountId(-2)
+                .setAmount("1.00")
+                .build();
+    }
+
+    private static final class BulkResults implements StreamObserver<BulkTransferResult> {
+        final List<BulkTransferResult> results = new CopyOnWriteArrayList<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile Throwable error;
+
+        @Override
+        public void onNext(BulkTransferResult result) {
+            results.add(result);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+            done.countDown();
+        }
+
+        @Override
+        public void onCompleted() {
+            done.countDown();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
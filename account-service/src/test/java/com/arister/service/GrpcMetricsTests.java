@@ -0,0 +1,91 @@
+package com.arister.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.arister.proto.AccountServiceGrpc;
+import com.arister.proto.DepositRequest;
+import com.arister.proto.GetAccountRequest;
+import com.arister.proto.TransactionServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.env.Environment;
+
+/**
+ * Calls go through the starter's in-process server and the scrape is fetched over HTTP, as Prometheus
+ * would, so both the interceptor wiring and the endpoint mapping are covered.
+ */
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "grpc.server.in-process-name=" + GrpcMetricsTests.SERVER_NAME)
+class GrpcMetricsTests extends ServiceTestSupport {
+
+    static final String SERVER_NAME = "metrics-tests";
+
+    @Autowired
+    private Environment environment;
+
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void openChannel() {
+        channel = InProcessChannelBuilder.forName(SERVER_NAME).build();
+    }
+
+    @AfterEach
+    void closeChannel() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void scrapeCountsCallsByStatusAndResponsesBySuccessFlag() throws Exception {
+        long accountId = openAccount("0.00");
+        TransactionServiceGrpc.TransactionServiceBlockingStub transactions =
+                TransactionServiceGrpc.newBlockingStub(channel);
+        AccountServiceGrpc.AccountServiceBlockingStub accounts = AccountServiceGrpc.newBlockingStub(channel);
+
+        transactions.deposit(DepositRequest.newBuilder()
+                .setAccountId(accountId)
+                .setAmount("10.00")
+                .build());
+        transactions.deposit(DepositRequest.newBuilder()
+                .setAccountId(accountId)
+                .setAmount("10.00")
+                .build());
+        accounts.getAccount(GetAccountRequest.newBuilder().setId(accountId).build());
+        accounts.getAccount(GetAccountRequest.newBuilder().setId(-1).build());
+
+        HttpResponse<String> response = HttpClient.newHttpClient()
+                .send(
+                        HttpRequest.newBuilder(URI.create("http://localhost:"
+                                        + environment.getProperty("local.server.port") + "/actuator/prometheus"))
+                                .build(),
+                        HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Type")).hasValueSatisfying(type -> assertThat(type)
+                .startsWith("text/plain;version=0.0.4"));
+        String scrape = response.body();
+        String deposit = "service=\"transaction.TransactionService\",method=\"Deposit\"";
+        String getAccount = "service=\"account.AccountService\",method=\"GetAccount\"";
+        assertThat(scrape)
+                .contains("grpc_server_calls_total{" + deposit + ",code=\"OK\"} 2\n")
+                .contains("grpc_server_responses_total{" + deposit + ",outcome=\"success\"} 2\n")
+                .contains("grpc_server_responses_total{" + getAccount + ",outcome=\"success\"} 1\n")
+                .contains("grpc_server_responses_total{" + getAccount + ",outcome=\"failure\"} 1\n")
+                .contains("grpc_server_call_duration_seconds_count{" + deposit + "} 2\n")
+                .contains("grpc_server_call_duration_seconds_bucket{" + deposit + ",le=\"+Inf\"} 2\n")
+                .contains("grpc_server_calls_in_flight{" + deposit + "} 0\n")
+                .contains("grpc_server_calls_admitted 0\n")
+                .contains("account_cache_misses_total{cache=\"id\"}");
+    }
+}
@@ -0,0 +1,176 @@
+package com.arister.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.arister.common.money.Money;
+import com.arister.enums.AccountStatus;
+import com.arister.enums.AccountType;
+import com.arister.model.Account;
+import com.arister.proto.AccountResponse;
+import com.arister.proto.DepositRequest;
+import com.arister.proto.GetAccountRequest;
+import com.arister.proto.TransactionResponse;
+import com.arister.repository.InterestAccrualStore;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Daily interest is posted once per account and day on that day's closing balance, sub-cent interest
+ * carries over to the next day, and a day's run resumes from its checkpoints without posting any
+ * account twice.
+ */
+@SpringBootTest(
+        properties = {
+            "interest-accrual.partitions=" + InterestAccrualJobTests.PARTITIONS,
+            "interest-accrual.chunk-size=" + InterestAccrualJobTests.CHUNK_SIZE
+        })
+class InterestAccrualJobTests extends ServiceTestSupport {
+
+    static final int PARTITIONS = 3;
+    static final int CHUNK_SIZE = 4;
+
+    private static final LocalDate DAY = LocalDate.parse("2026-01-01");
+
+    @Autowired
+    private InterestAccrualJob interestAccrualJob;
+
+    @Autowired
+    private InterestAccrualStore interestAccrualStore;
+
+    @Autowired
+    private BalanceSnapshotJob balanceSnapshotJob;
+
+    @Autowired
+    private AccountGrpcService accountGrpcService;
+
+    @Autowired
+    private TransactionGrpcService transactionGrpcService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void postsEachDayOnceAndCarriesSubCentInterest() {
+        long savings = openAccount(AccountType.SAVINGS, "1000.00", "3.65");
+        long deposit = openAccount(AccountType.FIXED_DEPOSIT, "10.00", "3.65");
+        long current = openAccount(AccountType.CURRENT, "1000.00", "3.65");
+        assertThat(getAccount(savings).getBalance()).isEqualTo("1000.00");
+
+        assertThat(interestAccrualJob.catchUp(Instant.parse("2026-01-02T00:30:00Z"))).isEqualTo(1);
+        assertThat(interestAccrualJob.catchUp(Instant.parse("2026-01-11T00:30:00Z"))).isEqualTo(9);
+        assertThat(interestAccrualJob.catchUp(Instant.parse("2026-01-11T00:30:00Z"))).isZero();
+
+        // 0.10 a day, plus a carry that stays below a cent over ten days
+        assertThat(interestPostings(savings))
+                .hasSize(10)
+                .allSatisfy(amount -> assertThat(amount).isEqualByComparingTo("0.10"));
+        assertThat(getAccount(savings).getBalance()).isEqualTo("1001.00");
+        // 0.001 a day is carried until it makes a cent on the tenth day
+        assertThat(interestPostings(deposit))
+                .singleElement()
+                .satisfies(amount -> assertThat(amount).isEqualByComparingTo("0.01"));
+        Account fixed = accountRepository.findById(deposit).orElseThrow();
+        assertThat(fixed.getBalance()).isEqualTo(Money.parseMinor("10.01"));
+        assertThat(fixed.getAccruedInterest()).isZero();
+        assertThat(fixed.getInterestAccruedThrough()).isEqualTo(LocalDate.parse("2026-01-10"));
+        assertThat(interestPostings(current)).isEmpty();
+    }
+
+    @Test
+    void caughtUpDaysAccrueOnTheirOwnClosingBalance() {
+        long savings = openAccount(AccountType.SAVINGS, "1000.00", "3.65");
+        assertThat(interestAccrualJob.catchUp(Instant.parse("2026-01-02T00:30:00Z"))).isEqualTo(1);
+        jdbcTemplate.update(
+                "UPDATE transactions SET created_at = ? WHERE account_id = ?",
+                Timestamp.from(Instant.parse("2026-01-02T00:30:00Z")),
+                savings);
+
+        // the run of 3 January is missed, and 1000.00 arrives later that day
+        TransactionResponse deposited = call(observer -> transactionGrpcService.deposit(
+                DepositRequest.newBuilder()
+                        .setAccountId(savings)
+                        .setAmount("1000.00")
+                        .build(),
+                observer));
+        assertThat(deposited.getSuccess()).isTrue();
+        jdbcTemplate.update(
+                "UPDATE transactions SET created_at = ? WHERE account_id = ? AND transaction_type = 'DEPOSIT'",
+                Timestamp.from(Instant.parse("2026-01-03T10:00:00Z")),
+                savings);
+        // 2 January is snapshotted at 1000.10; 3 January is not snapshotted yet
+        assertThat(balanceSnapshotJob.catchUp(Instant.parse("2026-01-03T00:30:00Z"))).isEqualTo(1);
+
+        assertThat(interestAccrualJob.catchUp(Instant.parse("2026-01-04T00:30:00Z"))).isEqualTo(2);
+
+        // 2 January on its snapshot, 3 January on 2000.10 worked back from today's balance
+        assertThat(interestPostings(savings))
+                .extracting(BigDecimal::toPlainString)
+                .containsExactly("0.10", "0.10", "0.20");
+        assertThat(getAccount(savings).getBalance()).isEqualTo("2000.40");
+    }
+
+    @Test
+    void resumesFromCheckpointsAndNeverPostsADayTwice() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            ids.add(openAccount(AccountType.SAVINGS, "100.00", "3.65"));
+        }
+        long closed = openAccount(AccountType.SAVINGS, "100.00", "3.65");
+        jdbcTemplate.update("UPDATE accounts SET status = ? WHERE id = ?", AccountStatus.CLOSED.name(), closed);
+
+        // an earlier run committed the first chunk of the first partition and stopped
+        new TransactionTemplate(transactionManager)
+                .executeWithoutResult(status -> interestAccrualStore.plan(DAY, PARTITIONS));
+        List<Long> firstChunk = ids.subList(0, CHUNK_SIZE);
+        firstChunk.forEach(id -> jdbcTemplate.update(
+                "UPDATE accounts SET interest_accrued_through = ? WHERE id = ?", Date.valueOf(DAY), id));
+        jdbcTemplate.update(
+                "UPDATE interest_accrual_checkpoints SET checkpoint_id = ? WHERE partition_no = 0",
+                firstChunk.getLast());
+
+        assertThat(interestAccrualJob.accrueDay(DAY)).isEqualTo(ids.size() - CHUNK_SIZE);
+        assertThat(jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM interest_accrual_checkpoints WHERE completed_at IS NOT NULL",
+                        Integer.class))
+                .isEqualTo(PARTITIONS);
+        assertThat(interestAccrualStore.lastCompletedDay()).contains(DAY);
+
+        // rerunning the day from scratch finds every account already accrued
+        jdbcTemplate.update("DELETE FROM interest_accrual_checkpoints");
+        assertThat(interestAccrualJob.accrueDay(DAY)).isZero();
+
+        for (long id : ids) {
+            assertThat(interestPostings(id)).hasSize(firstChunk.contains(id) ? 0 : 1);
+        }
+        assertThat(interestPostings(closed)).isEmpty();
+    }
+
+    private long openAccount(AccountType type, String balance, String interestRate) {
+        long id = open(account(balance).accountType(type).interestRate(new BigDecimal(interestRate)));
+        openedAt(id, "2025-12-31T08:00:00Z");
+        return id;
+    }
+
+    private List<BigDecimal> interestPostings(long accountId) {
+        return jdbcTemplate.queryForList(
+                "SELECT amount FROM transactions WHERE account_id = ? AND transaction_type = 'INTEREST' ORDER BY id",
+                BigDecimal.class,
+                accountId);
+    }
+
+    private com.arister.proto.Account getAccount(long id) {
+        AccountResponse response = call(observer ->
+                accountGrpcService.getAccount(GetAccountRequest.newBuilder().setId(id).build(), observer));
+        return response.getAccount();
+    }
+}
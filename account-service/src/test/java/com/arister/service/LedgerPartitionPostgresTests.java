@@ -0,0 +1,148 @@
+package com.arister.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+import com.arister.common.metrics.PrometheusWriter;
+import com.arister.model.Transaction;
+import com.arister.repository.BalanceSnapshotStore;
+import com.arister.repository.LedgerPartitionStore;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import javax.sql.DataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * The migrations on a real PostgreSQL server, which the H2 schema of the other tests cannot stand in
+ * for: V13 carries rows written before it into the partitioned ledger and keeps refs and transfer legs
+ * consistent, and {@link LedgerPartitionJob} keeps partitions ahead or fails. initdb refuses to run as
+ * root, so the class is skipped there.
+ */
+class LedgerPartitionPostgresTests {
+
+    private static EmbeddedPostgres postgres;
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void migrate() throws IOException {
+        assumeFalse("root".equals(System.getProperty("user.name")), "initdb refuses to run as root");
+        postgres = EmbeddedPostgres.start();
+        DataSource dataSource = postgres.getPostgresDatabase();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        // customers belongs to customer-service, whose V1 and V2 run first on the shared database
+        jdbcTemplate.execute("CREATE TABLE customers (id BIGSERIAL PRIMARY KEY)");
+        flyway(dataSource, "12").migrate();
+
+        jdbcTemplate.update("INSERT INTO customers (id) VALUES (1)");
+        jdbcTemplate.update(
+                "INSERT INTO branches (id, branch_code, branch_name, city) VALUES (1, 'BR001', 'Main', 'London')");
+        jdbcTemplate.update("INSERT INTO accounts (id, account_number, customer_id, branch_id, account_type, balance)"
+                + " VALUES (1, 'ACC1', 1, 1, 'SAVINGS', 900.00), (2, 'ACC2', 1, 1, 'SAVINGS', 100.00)");
+        // a transfer from before V13 whose legs are microseconds apart across a month end, with refs
+        // from the old column default
+        jdbcTemplate.update("INSERT INTO transactions (id, account_id, transaction_type, amount, balance_before,"
+                + " balance_after, related_txn_id, created_at) VALUES"
+                + " (1, 1, 'TRANSFER_OUT', 100.00, 1000.00, 900.00, 2, '2026-08-31 23:59:59.999998+00'),"
+                + " (2, 2, 'TRANSFER_IN', 100.00, 0.00, 100.00, 1, '2026-09-01 00:00:00.000001+00')");
+        flyway(dataSource, "latest").migrate();
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    @Test
+    void copiesTransferLegsWithTheCreationTimeOfTheirPartner() {
+        assertThat(jdbcTemplate.queryForList(
+                        "SELECT related_txn_created_at FROM transactions WHERE id <= 2 ORDER BY id", Timestamp.class))
+                .extracting(Timestamp::toInstant)
+                .containsExactly(
+                        Instant.parse("2026-09-01T00:00:00.000001Z"), Instant.parse("2026-08-31T23:59:59.999998Z"));
+        assertThat(jdbcTemplate.queryForList(
+                        "SELECT tableoid::regclass::text FROM transactions WHERE id <= 2 ORDER BY id", String.class))
+                .containsExactly("transactions_y2026m08", "transactions_y2026m09");
+    }
+
+    @Test
+    void rejectsDuplicateAndMisdatedRefsAndDanglingLegs() {
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        insert(1001, Transaction.ref(now, 1001), now, null);
+
+        assertThatThrownBy(() -> insert(1002, Transaction.ref(now, 1001), now, null))
+                .isInstanceOf(DataIntegrityViolationException.class)
+                .hasMessageContaining("_transaction_ref_key");
+        assertThatThrownBy(() -> insert(1003, Transaction.ref(now.plusDays(1), 1003), now, null))
+                .isInstanceOf(DataIntegrityViolationException.class)
+                .hasMessageContaining("chk_transaction_ref_day");
+        assertThatThrownBy(() -> insert(1004, Transaction.ref(now, 1004), now, 999L))
+                .isInstanceOf(DataIntegrityViolationException.class)
+                .hasMessageContaining("transactions_related_txn_fkey");
+    }
+
+    @Test
+    void keepsPartitionsAheadAndFailsWhenItCannot() {
+        LedgerPartitionStore store = new LedgerPartitionStore(jdbcTemplate);
+        LedgerPartitionJob job = new LedgerPartitionJob(store, new BalanceSnapshotStore(jdbcTemplate), 5, 0);
+        job.start();
+
+        YearMonth through = YearMonth.now(ZoneOffset.UTC).plusMonths(5);
+        for (String table : LedgerPartitionStore.TABLES) {
+            assertThat(store.attached(table).lastKey()).isEqualTo(through);
+        }
+        assertThat(jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM pg_index WHERE indisunique AND indexrelid = to_regclass(?)",
+                        Integer.class,
+                        store.attached("transfers").get(through) + "_transfer_ref_key"))
+                .isEqualTo(1);
+        PrometheusWriter out = new PrometheusWriter();
+        job.writeTo(out);
+        assertThat(out.toString()).contains("ledger_partitions_months_ahead 5\n");
+
+        LedgerPartitionStore stalled = new LedgerPartitionStore(jdbcTemplate) {
+            @Override
+            public int create(YearMonth from, YearMonth through) {
+                return 0;
+            }
+        };
+        assertThatThrownBy(() -> new LedgerPartitionJob(stalled, new BalanceSnapshotStore(jdbcTemplate), 6, 0).start())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("only reach " + through);
+    }
+
+    private static void insert(long id, String ref, ZonedDateTime createdAt, Long relatedTxnId) {
+        jdbcTemplate.update(
+                "INSERT INTO transactions (id, transaction_ref, account_id, transaction_type, amount, balance_before,"
+                        + " balance_after, related_txn_id, related_txn_created_at, created_at)"
+                        + " VALUES (?, ?, 1, 'DEPOSIT', 1.00, 0.00, 1.00, ?, ?, ?)",
+                id,
+                ref,
+                relatedTxnId,
+                relatedTxnId == null ? null : Timestamp.from(createdAt.toInstant()),
+                Timestamp.from(createdAt.toInstant()));
+    }
+
+    private static Flyway flyway(DataSource dataSource, String target) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .ignoreMigrationPatterns("*:missing")
+                .baselineOnMigrate(true)
+                .baselineVersion("2")
+                .target(target)
+                .load();
+    }
+}
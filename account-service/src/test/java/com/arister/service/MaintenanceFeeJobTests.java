@@ -0,0 +1,142 @@
+package com.arister.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.arister.common.money.Money;
+import com.arister.enums.AccountStatus;
+import com.arister.model.Account;
+import com.arister.proto.AccountResponse;
+import com.arister.proto.GetAccountRequest;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * The fee run charges accounts below their minimum balance once per month, in chunks, and resumes
+ * after its checkpoint.
+ */
+@SpringBootTest(
+        properties = {
+            "maintenance-fee.amount=10.00",
+            "maintenance-fee.chunk-size=" + MaintenanceFeeJobTests.CHUNK_SIZE
+        })
+class MaintenanceFeeJobTests extends ServiceTestSupport {
+
+    static final int CHUNK_SIZE = 2;
+
+    private static final Instant RUN = Instant.parse("2026-02-01T01:00:00Z");
+
+    @Autowired
+    private MaintenanceFeeJob maintenanceFeeJob;
+
+    @Autowired
+    private AccountGrpcService accountGrpcService;
+
+    @Test
+    void chargesAccountsBelowMinimumOncePerMonth() {
+        long below = openAccount("100.00", 0);
+        long above = openAccount("600.00", 0);
+        long cannotCover = openAccount("5.00", 0);
+        long overdrawn = openAccount("5.00", Money.parseMinor("100.00"));
+        long closed = openAccount("100.00", 0);
+        jdbcTemplate.update("UPDATE accounts SET status = ? WHERE id = ?", AccountStatus.CLOSED.name(), closed);
+        // 400.00 on the row and 200.00 in a stripe is above the minimum
+        long striped = openAccount("400.00", 0);
+        jdbcTemplate.update("UPDATE accounts SET balance_stripes = 1 WHERE id = ?", striped);
+        jdbcTemplate.update(
+                "INSERT INTO account_balance_stripes (account_id, slot, amount) VALUES (?, 1, 200.00)", striped);
+        assertThat(getAccount(below).getBalance()).isEqualTo("100.00");
+
+        assertThat(maintenanceFeeJob.charge(RUN)).isEqualTo(2);
+        assertThat(maintenanceFeeJob.charge(RUN.plusSeconds(86_400))).isZero();
+
+        assertThat(fees(below))
+                .singleElement()
+                .satisfies(f -> assertThat((BigDecimal) f.get("amount")).isEqualByComparingTo("10.00"))
+                .satisfies(f -> assertThat((BigDecimal) f.get("balance_before")).isEqualByComparingTo("100.00"))
+                .satisfies(f -> assertThat((BigDecimal) f.get("balance_after")).isEqualByComparingTo("90.00"))
+                .satisfies(f -> assertThat((String) f.get("transaction_ref")).startsWith("TXN-"));
+        assertThat(getAccount(below).getBalance()).isEqualTo("90.00");
+        Account charged = accountRepository.findById(overdrawn).orElseThrow();
+        assertThat(charged.getBalance()).isEqualTo(Money.parseMinor("-5.00"));
+        assertThat(charged.getMaintenanceFeePeriod()).isEqualTo(LocalDate.parse("2026-01-01"));
+        for (long id : List.of(above, cannotCover, closed, striped)) {
+            assertThat(fees(id)).isEmpty();
+        }
+
+        // a rerun of the month from scratch charges nobody again
+        jdbcTemplate.update("DELETE FROM maintenance_fee_checkpoints");
+        assertThat(maintenanceFeeJob.charge(RUN)).isZero();
+        // the next month charges again
+        assertThat(maintenanceFeeJob.charge(Instant.parse("2026-03-01T01:00:00Z"))).isEqualTo(2);
+    }
+
+    @Test
+    void stripedCreditsCountTowardsCoveringTheFee() {
+        // -95.00 on the row cannot cover the fee within a 100.00 overdraft; -45.00 with the stripe can
+        long striped = openAccount("0.00", Money.parseMinor("100.00"));
+        jdbcTemplate.update("UPDATE accounts SET balance = -95.00, balance_stripes = 1 WHERE id = ?", striped);
+        jdbcTemplate.update(
+                "INSERT INTO account_balance_stripes (account_id, slot, amount) VALUES (?, 1, 50.00)", striped);
+
+        assertThat(maintenanceFeeJob.charge(RUN)).isEqualTo(1);
+
+        assertThat(fees(striped))
+                .singleElement()
+                .satisfies(f -> assertThat((BigDecimal) f.get("balance_before")).isEqualByComparingTo("-45.00"))
+                .satisfies(f -> assertThat((BigDecimal) f.get("balance_after")).isEqualByComparingTo("-55.00"));
+        assertThat(accountRepository.findById(striped).orElseThrow().getBalance())
+                .isEqualTo(Money.parseMinor("-55.00"));
+        assertThat(jdbcTemplate.queryForObject(
+                        "SELECT amount FROM account_balance_stripes WHERE account_id = ?", BigDecimal.class, striped))
+                .isEqualByComparingTo("0.00");
+        assertThat(getAccount(striped).getBalance()).isEqualTo("-55.00");
+    }
+
+    @Test
+    void resumesAfterTheCheckpoint() {
+        long first = openAccount("100.00", 0);
+        long second = openAccount("100.00", 0);
+        long third = openAccount("100.00", 0);
+        jdbcTemplate.update(
+                "INSERT INTO maintenance_fee_checkpoints (fee_period, checkpoint_id) VALUES (?, ?)",
+                Date.valueOf("2026-01-01"),
+                first);
+
+        assertThat(maintenanceFeeJob.charge(RUN)).isEqualTo(2);
+        assertThat(fees(first)).isEmpty();
+        assertThat(fees(second)).hasSize(1);
+        assertThat(fees(third)).hasSize(1);
+        assertThat(jdbcTemplate.queryForObject(
+                        "SELECT completed_at FROM maintenance_fee_checkpoints WHERE fee_period = ?",
+                        Timestamp.class,
+                        Date.valueOf("2026-01-01")))
+                .isNotNull();
+    }
+
+    private long openAccount(String balance, long overdraftLimit) {
+        long id = open(account(balance).overdraftLimit(overdraftLimit));
+        openedAt(id, "2025-12-31T08:00:00Z");
+        return id;
+    }
+
+    private List<Map<String, Object>> fees(long accountId) {
+        return jdbcTemplate.queryForList(
+                "SELECT transaction_ref, amount, balance_before, balance_after FROM transactions"
+                        + " WHERE account_id = ? AND transaction_type = 'FEE' ORDER BY id",
+                accountId);
+    }
+
+    private com.arister.proto.Account getAccount(long id) {
+        AccountResponse response = call(observer ->
+                accountGrpcService.getAccount(GetAccountRequest.newBuilder().setId(id).build(), observer));
+        return response.getAccount();
+    }
+}
@@ -0,0 +1,132 @@
+package com.arister.service;
+
+import com.arister.common.money.Money;
+import com.arister.enums.AccountType;
+import com.arister.model.Account;
+import com.arister.repository.AccountRepository;
+import com.arister.repository.TransactionRepository;
+import com.arister.repository.TransferRepository;
+import io.grpc.stub.StreamObserver;
+import jakarta.persistence.EntityManagerFactory;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Fixture of the tests that run the gRPC services inside the application context: account opening,
+ * response collection, and a clean-up that empties every ledger table and the account cache after
+ * each test. Subclasses keep their own {@code @SpringBootTest}, so those with the same properties
+ * share one context.
+ */
+abstract class ServiceTestSupport {
+
+    @Autowired
+    protected AccountRepository accountRepository;
+
+    @Autowired
+    protected TransactionRepository transactionRepository;
+
+    @Autowired
+    protected TransferRepository transferRepository;
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private AccountCache accountCache;
+
+    @AfterEach
+    void cleanUpLedger() {
+        jdbcTemplate.update("DELETE FROM idempotency_keys");
+        jdbcTemplate.update("DELETE FROM interest_accrual_checkpoints");
+        jdbcTemplate.update("DELETE FROM maintenance_fee_checkpoints");
+        jdbcTemplate.update("DELETE FROM balance_snapshots");
+        jdbcTemplate.update("UPDATE balance_snapshot_progress SET snapshot_through = NULL");
+        jdbcTemplate.update("DELETE FROM account_balance_stripes");
+        jdbcTemplate.update("DELETE FROM transfers");
+        jdbcTemplate.update("DELETE FROM transactions");
+        jdbcTemplate.update("DELETE FROM accounts");
+        accountCache.invalidateAll();
+    }
+
+    /** A savings account of customer 1 at branch 1, to adjust before {@link #open}. */
+    protected static Account.AccountBuilder<?, ?> account(String balance) {
+        return Account.builder()
+                .customerId(1L)
+                .branchId(1L)
+                .accountType(AccountType.SAVINGS)
+                .balance(Money.parseMinor(balance));
+    }
+
+    protected long open(Account.AccountBuilder<?, ?> account) {
+        return accountRepository.save(account.build()).getId();
+    }
+
+    protected long openAccount(String balance) {
+        return open(account(balance));
+    }
+
+    /** Backdates the account's opening, which the entity otherwise stamps with the current time. */
+    protected void openedAt(long accountId, String instant) {
+        jdbcTemplate.update(
+                "UPDATE accounts SET created_at = ? WHERE id = ?", Timestamp.from(Instant.parse(instant)), accountId);
+    }
+
+    /** Hibernate's statistics, for tests whose context sets {@code hibernate.generate_statistics}. */
+    protected Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /** The single response of a unary call; an error fails the test. */
+    protected static <T> T call(Consumer<StreamObserver<T>> rpc) {
+        List<T> responses = new ArrayList<>();
+        rpc.accept(observer(responses));
+        return responses.getFirst();
+    }
+
+    /** Collects responses; an error fails the test. */
+    protected static <T> StreamObserver<T> observer(List<T> responses) {
+        return new StreamObserver<>() {
+            @Override
+            public void onNext(T response) {
+                responses.add(response);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                throw new AssertionError(t);
+            }
+
+            @Override
+            public void onCompleted() {}
+        };
+    }
+
+    /** Collects responses and errors, for tests that expect a call to fail. */
+    protected static <T> StreamObserver<T> observer(List<T> responses, List<Throwable> errors) {
+        return new StreamObserver<>() {
+            @Override
+            public void onNext(T response) {
+                responses.add(response);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                errors.add(t);
+            }
+
+            @Override
+            public void onCompleted() {}
+        };
+    }
+}
@@ -0,0 +1,108 @@
+package com.arister.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.arister.proto.DepositRequest;
+import com.arister.proto.TransactionResponse;
+import com.arister.proto.WithdrawRequest;
+import com.arister.repository.IdempotencyStore;
+import io.grpc.Status;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * The in-memory cache holds a single key here, so alternating between two keys makes every second
+ * retry fall through to the {@code idempotency_keys} table.
+ */
+@SpringBootTest(properties = "idempotency.cache-size=1")
+class TransactionGrpcServiceIdempotencyTests extends ServiceTestSupport {
+
+    @Autowired
+    private TransactionGrpcService transactionGrpcService;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Test
+    void retriedDepositIsAnsweredWithTheOriginalResponse() {
+        long accountId = openAccount("0.00");
+        DepositRequest first = deposit(accountId, "key-1");
+        DepositRequest second = deposit(accountId, "key-2");
+
+        TransactionResponse original = call(first);
+        TransactionResponse other = call(second);
+        for (int i = 0; i < 3; i++) {
+            assertThat(call(first)).isEqualTo(original);
+            assertThat(call(second)).isEqualTo(other);
+        }
+
+        assertThat(transactionRepository.count()).isEqualTo(2);
+        assertThat(accountRepository.findById(accountId).orElseThrow().getBalance())
+                .isEqualTo(20_000);
+
+        idempotencyStore.purgeExpired();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM idempotency_keys", Long.class))
+                .isEqualTo(2);
+    }
+
+    @Test
+    void keyReusedForADifferentRequestIsRejected() {
+        long accountId = openAccount("0.00");
+        DepositRequest first = deposit(accountId, "reused-1");
+        DepositRequest second = deposit(accountId, "reused-2");
+        call(first);
+        call(second);
+
+        // reused-1 has left the in-memory cache, reused-2 has not
+        for (DepositRequest reused : List.of(first, second)) {
+            List<Throwable> errors = new ArrayList<>();
+            transactionGrpcService.deposit(
+                    reused.toBuilder().setAmount("90.00").build(), observer(new ArrayList<>(), errors));
+            assertThat(errors)
+                    .singleElement()
+                    .satisfies(e -> assertThat(Status.fromThrowable(e).getCode())
+                            .isEqualTo(Status.Code.FAILED_PRECONDITION));
+        }
+
+        assertThat(transactionRepository.count()).isEqualTo(2);
+        assertThat(call(first).getSuccess()).isTrue();
+    }
+
+    @Test
+    void failedWithdrawalReleasesItsKey() {
+        long accountId = openAccount("50.00");
+        WithdrawRequest request = WithdrawRequest.newBuilder()
+                .setAccountId(accountId)
+                .setAmount("80.00")
+                .setIdempotencyKey("withdraw-1")
+                .build();
+
+        List<Throwable> errors = new ArrayList<>();
+        transactionGrpcService.withdraw(request, observer(new ArrayList<>(), errors));
+        assertThat(errors).hasSize(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM idempotency_keys", Long.class))
+                .isZero();
+
+        call(deposit(accountId, "top-up"));
+        List<TransactionResponse> responses = new ArrayList<>();
+        transactionGrpcService.withdraw(request, observer(responses, errors));
+        assertThat(responses).singleElement().satisfies(r -> assertThat(r.getSuccess()).isTrue());
+        assertThat(accountRepository.findById(accountId).orElseThrow().getBalance())
+                .isEqualTo(7_000);
+    }
+
+    private static DepositRequest deposit(long accountId, String key) {
+        return DepositRequest.newBuilder()
+                .setAccountId(accountId)
+                .setAmount("100.00")
+                .setIdempotencyKey(key)
+                .build();
+    }
+
+    private TransactionResponse call(DepositRequest request) {
+        return call(observer -> transactionGrpcService.deposit(request, observer));
+    }
+}
@@ -0,0 +1,176 @@
+package com.arister.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.arister.proto.CreateTransferRequest;
+import com.arister.proto.DepositRequest;
+import com.arister.proto.LedgerEvent;
+import com.arister.proto.SubscribeLedgerEventsRequest;
+import com.arister.proto.TransactionServiceGrpc;
+import com.arister.proto.TransactionType;
+import com.arister.proto.TransferServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Postings reach subscribers through the outbox and relay in the order they committed, and
+ * a subscriber that reconnects with its last offset continues where it left off.
+ */
+@SpringBootTest
+class TransactionGrpcServiceLedgerEventTests extends ServiceTestSupport {
+
+    @Autowired
+    private TransactionGrpcService transactionGrpcService;
+
+    @Autowired
+    private TransferGrpcService transferGrpcService;
+
+    @Autowired
+    private LedgerEventRelay ledgerEventRelay;
+
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+                .addService(transactionGrpcService)
+                .addService(transferGrpcService)
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).build();
+    }
+
+    @AfterEach
+    void stopServer() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void subscribersReceivePostingsInOrderAndResumeFromTheirOffset() throws Exception {
+        long start = jdbcTemplate.queryForObject("SELECT last_offset FROM ledger_event_head WHERE id = 1", Long.class);
+        long from = openAccount("0.00");
+        long to = openAccount("0.00");
+        deposit(from, "100.00");
+        deposit(to, "5.00");
+        TransferServiceGrpc.newBlockingStub(channel)
+                .createTransfer(CreateTransferRequest.newBuilder()
+                        .setFromAccountId(from)
+                        .setToAccountId(to)
+                        .setAmount("30.00")
+                        .setFee("1.00")
+                        .build());
+        ledgerEventRelay.relay();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ledger_outbox", Long.class)).isZero();
+
+        List<LedgerEvent> events = subscribe(
+                SubscribeLedgerEventsRequest.newBuilder().setAfterOffset(start).build(), Set.of(from, to), 4);
+
+        assertThat(events)
+                .extracting(e -> e.getTransaction().getTransactionType())
+                .containsExactly(
+                        TransactionType.DEPOSIT,
+                        TransactionType.DEPOSIT,
+                        TransactionType.TRANSFER_OUT,
+                        TransactionType.TRANSFER_IN);
+        assertThat(events).extracting(LedgerEvent::getOffset).isSorted().doesNotHaveDuplicates();
+        assertThat(events.get(2).getTransaction().getBalanceAfter()).isEqualTo("69.00");
+        assertThat(events.get(2).getCounterpartyAccountId()).isEqualTo(to);
+        assertThat(events.get(3).getCounterpartyAccountId()).isEqualTo(from);
+        assertThat(events.get(3).getTransferId()).isEqualTo(events.get(2).getTransferId()).isPositive();
+
+        // reconnecting after the second event replays only the transfer legs
+        List<LedgerEvent> resumed = subscribe(
+                SubscribeLedgerEventsRequest.newBuilder()
+                        .setAfterOffset(events.get(1).getOffset())
+                        .build(),
+                Set.of(from, to),
+                2);
+        assertThat(resumed).containsExactlyElementsOf(events.subList(2, 4));
+    }
+
+    @Test
+    void caughtUpSubscriberReceivesNewPostings() throws Exception {
+        long accountId = openAccount("0.00");
+        long head = jdbcTemplate.queryForObject("SELECT last_offset FROM ledger_event_head WHERE id = 1", Long.class);
+        CompletableFuture<List<LedgerEvent>> live = CompletableFuture.supplyAsync(() -> {
+            try {
+                return subscribe(
+                        SubscribeLedgerEventsRequest.newBuilder().setAfterOffset(head).build(), Set.of(accountId), 1);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        deposit(accountId, "7.00");
+        ledgerEventRelay.relay();
+
+        assertThat(live.get(30, TimeUnit.SECONDS))
+                .singleElement()
+                .satisfies(e -> assertThat(e.getTransaction().getAmount()).isEqualTo("7.00"));
+    }
+
+    /**
+     * Collects the first {@code count} events of {@code accountIds} and then cancels the stream. Events
+     * of other tests' accounts, relayed into the same log, are skipped.
+     */
+    private List<LedgerEvent> subscribe(SubscribeLedgerEventsRequest request, Set<Long> accountIds, int count)
+            throws Exception {
+        CompletableFuture<List<LedgerEvent>> done = new CompletableFuture<>();
+        TransactionServiceGrpc.newStub(channel)
+                .subscribeLedgerEvents(request, new ClientResponseObserver<SubscribeLedgerEventsRequest, LedgerEvent>() {
+                    private final List<LedgerEvent> received = new ArrayList<>();
+                    private ClientCallStreamObserver<SubscribeLedgerEventsRequest> call;
+
+                    @Override
+                    public void beforeStart(ClientCallStreamObserver<SubscribeLedgerEventsRequest> call) {
+                        this.call = call;
+                    }
+
+                    @Override
+                    public void onNext(LedgerEvent event) {
+                        if (accountIds.contains(event.getTransaction().getAccountId())) {
+                            received.add(event);
+                        }
+                        if (received.size() == count) {
+                            done.complete(received);
+                            call.cancel("done", null);
+                        }
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        done.completeExceptionally(t);
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                        done.complete(received);
+                    }
+                });
+        return done.get(30, TimeUnit.SECONDS);
+    }
+
+    private void deposit(long accountId, String amount) {
+        TransactionServiceGrpc.newBlockingStub(channel)
+                .deposit(DepositRequest.newBuilder()
+                        .setAccountId(accountId)
+                        .setAmount(amount)
+                        .build());
+    }
+}
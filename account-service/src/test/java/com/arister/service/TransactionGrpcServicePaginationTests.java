@@ -0,0 +1,114 @@
+package com.arister.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.arister.proto.DepositRequest;
+import com.arister.proto.ListTransactionsByAccountRequest;
+import com.arister.proto.ListTransactionsResponse;
+import com.arister.proto.Transaction;
+import com.arister.proto.TransactionResponse;
+import com.google.protobuf.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class TransactionGrpcServicePaginationTests extends ServiceTestSupport {
+
+    private static final int ROWS = 53;
+
+    @Autowired
+    private TransactionGrpcService transactionGrpcService;
+
+    @Test
+    void pageTokensWalkEveryTransactionOnceNewestFirst() {
+        long accountId = openAccount("0.00");
+        for (int i = 0; i < ROWS; i++) {
+            transactionGrpcService.deposit(
+                    DepositRequest.newBuilder()
+                            .setAccountId(accountId)
+                            .setAmount("1.00")
+                            .build(),
+                    observer(new ArrayList<TransactionResponse>()));
+        }
+        // half the rows share one timestamp, so the id has to break ties
+        jdbcTemplate.update(
+                "UPDATE transactions SET created_at = (SELECT MAX(created_at) FROM transactions) WHERE MOD(id, 2) = 0");
+
+        ListTransactionsResponse first = list(ListTransactionsByAccountRequest.newBuilder()
+                .setAccountId(accountId)
+                .setSize(10)
+                .build());
+        assertThat(first.getTotalCount()).isEqualTo(ROWS);
+
+        List<Transaction> walked = new ArrayList<>(first.getTransactionsList());
+        String token = first.getNextPageToken();
+        while (!token.isEmpty()) {
+            ListTransactionsResponse next = list(ListTransactionsByAccountRequest.newBuilder()
+                    .setAccountId(accountId)
+                    .setSize(10)
+                    .setPageToken(token)
+                    .setSkipTotalCount(true)
+                    .build());
+            assertThat(next.getTotalCount()).isZero();
+            walked.addAll(next.getTransactionsList());
+            token = next.getNextPageToken();
+        }
+
+        List<Long> expected = jdbcTemplate.queryForList(
+                "SELECT id FROM transactions WHERE account_id = ? ORDER BY created_at DESC, id DESC",
+                Long.class,
+                accountId);
+        assertThat(walked).extracting(Transaction::getId).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void dateRangeBoundsPagesAndTotalCount() {
+        long accountId = openAccount("0.00");
+        for (int i = 0; i < 6; i++) {
+            transactionGrpcService.deposit(
+                    DepositRequest.newBuilder()
+                            .setAccountId(accountId)
+                            .setAmount("1.00")
+                            .build(),
+                    observer(new ArrayList<TransactionResponse>()));
+        }
+        // two transactions in each of January, February and March
+        jdbcTemplate.update("UPDATE transactions SET created_at = CASE MOD(id, 3)"
+                + " WHEN 0 THEN TIMESTAMP WITH TIME ZONE '2026-01-15 10:00:00+00'"
+                + " WHEN 1 THEN TIMESTAMP WITH TIME ZONE '2026-02-15 10:00:00+00'"
+                + " ELSE TIMESTAMP WITH TIME ZONE '2026-03-15 10:00:00+00' END");
+
+        ListTransactionsResponse first = list(ListTransactionsByAccountRequest.newBuilder()
+                .setAccountId(accountId)
+                .setSize(1)
+                .setFrom("2026-02-01T00:00:00Z")
+                .setTo("2026-03-01T00:00:00Z")
+                .build());
+        assertThat(first.getTotalCount()).isEqualTo(2);
+        ListTransactionsResponse second = list(ListTransactionsByAccountRequest.newBuilder()
+                .setAccountId(accountId)
+                .setSize(1)
+                .setPageToken(first.getNextPageToken())
+                .setFrom("2026-02-01T00:00:00Z")
+                .setTo("2026-03-01T00:00:00Z")
+                .build());
+        assertThat(second.getNextPageToken()).isEmpty();
+
+        List<Long> february = jdbcTemplate.queryForList(
+                "SELECT id FROM transactions WHERE MOD(id, 3) = 1 ORDER BY id DESC", Long.class);
+        assertThat(List.of(first.getTransactions(0).getId(), second.getTransactions(0).getId()))
+                .containsExactlyElementsOf(february);
+        assertThat(first.getTransactions(0).getCreatedAt())
+                .isEqualTo(Timestamp.newBuilder()
+                        .setSeconds(Instant.parse("2026-02-15T10:00:00Z").getEpochSecond())
+                        .build());
+    }
+
+    private ListTransactionsResponse list(ListTransactionsByAccountRequest request) {
+        return call(observer -> transactionGrpcService.listTransactionsByAccount(request, observer));
+    }
+}
@@ -0,0 +1,125 @@
+package com.arister.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.arister.proto.DepositRequest;
+import com.arister.proto.StreamTransactionsRequest;
+import com.arister.proto.Transaction;
+import com.arister.proto.TransactionServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Streams a statement to a client that requests one message at a time, so the server spends most
+ * of the call waiting for the transport to become ready again.
+ */
+@SpringBootTest
+class TransactionGrpcServiceStreamTests extends ServiceTestSupport {
+
+    private static final int ROWS = 1_200;
+
+    @Autowired
+    private TransactionGrpcService transactionGrpcService;
+
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+                .addService(transactionGrpcService)
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).build();
+    }
+
+    @AfterEach
+    void stopServer() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void streamsTransactionsInRangeOldestFirst() throws Exception {
+        long accountId = openAccount("0.00");
+        long otherAccountId = openAccount("0.00");
+        for (int i = 0; i < ROWS; i++) {
+            deposit(accountId);
+        }
+        deposit(otherAccountId);
+        // spread the account's rows over ROWS days so the range cuts some off at each end
+        jdbcTemplate.update(
+                "UPDATE transactions SET created_at = TIMESTAMP WITH TIME ZONE '2026-01-01 00:00:00+00'"
+                        + " + id * INTERVAL '1' DAY WHERE account_id = ?",
+                accountId);
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM transactions WHERE account_id = ? ORDER BY id", Long.class, accountId);
+        ZonedDateTime start = ZonedDateTime.parse("2026-01-01T00:00:00Z");
+        ZonedDateTime from = start.plusDays(ids.get(100));
+        ZonedDateTime to = start.plusDays(ids.get(ROWS - 100));
+
+        List<Transaction> streamed = stream(StreamTransactionsRequest.newBuilder()
+                .setAccountId(accountId)
+                .setFrom(from.toString())
+                .setTo(to.withZoneSameInstant(ZoneOffset.ofHours(5)).toString())
+                .build());
+
+        assertThat(streamed).extracting(Transaction::getId).containsExactlyElementsOf(ids.subList(100, ROWS - 100));
+    }
+
+    private List<Transaction> stream(StreamTransactionsRequest request) throws Exception {
+        CompletableFuture<List<Transaction>> done = new CompletableFuture<>();
+        TransactionServiceGrpc.newStub(channel).streamTransactions(request, new ClientResponseObserver<
+                StreamTransactionsRequest, Transaction>() {
+            private final List<Transaction> received = new ArrayList<>();
+            private ClientCallStreamObserver<StreamTransactionsRequest> call;
+
+            @Override
+            public void beforeStart(ClientCallStreamObserver<StreamTransactionsRequest> call) {
+                this.call = call;
+                call.disableAutoRequestWithInitial(1);
+            }
+
+            @Override
+            public void onNext(Transaction txn) {
+                received.add(txn);
+                call.request(1);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                done.completeExceptionally(t);
+            }
+
+            @Override
+            public void onCompleted() {
+                done.complete(received);
+            }
+        });
+        return done.get(60, TimeUnit.SECONDS);
+    }
+
+    private void deposit(long accountId) {
+        TransactionServiceGrpc.newBlockingStub(channel)
+                .deposit(DepositRequest.newBuilder()
+                        .setAccountId(accountId)
+                        .setAmount("1.00")
+                        .build());
+    }
+}
@@ -0,0 +1,105 @@
+package com.arister.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.arister.proto.DepositRequest;
+import com.arister.proto.ListTransactionsByAccountRequest;
+import com.arister.proto.ListTransactionsResponse;
+import com.arister.proto.SubscribeLedgerEventsRequest;
+import com.arister.proto.TransactionResponse;
+import com.arister.proto.WithdrawRequest;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Requests that the transaction service rejects before touching the database, so it runs without its
+ * repositories here.
+ */
+class TransactionGrpcServiceValidationTests {
+
+    private final TransactionGrpcService transactionGrpcService =
+            new TransactionGrpcService(null, null, null, null, null, null, null, null, null, null);
+
+    @ParameterizedTest
+    @CsvSource({
+        "0, 0",
+        ", 0",
+        "-5.00, 0",
+        ", -500",
+        "1e3, 0",
+        "10.001, 0",
+        "ten, 0",
+        ", 1000000000000000"
+    })
+    void amountMustBePositive(String amount, long amountMinor) {
+        String text = amount == null ? "" : amount;
+        assertThat(reject(
+                        transactionGrpcService::deposit,
+                        DepositRequest.newBuilder()
+                                .setAccountId(1)
+                                .setAmount(text)
+                                .setAmountMinor(amountMinor)
+                                .setIdempotencyKey("deposit-1")
+                                .build()))
+                .isEqualTo(Status.Code.INVALID_ARGUMENT);
+        assertThat(reject(
+                        transactionGrpcService::withdraw,
+                        WithdrawRequest.newBuilder()
+                                .setAccountId(1)
+                                .setAmount(text)
+                                .setAmountMinor(amountMinor)
+                                .build()))
+                .isEqualTo(Status.Code.INVALID_ARGUMENT);
+    }
+
+    @Test
+    void negativeOffsetIsRejected() {
+        List<Throwable> errors = new ArrayList<>();
+        transactionGrpcService.subscribeLedgerEvents(
+                SubscribeLedgerEventsRequest.newBuilder().setAfterOffset(-1).build(),
+                ServiceTestSupport.observer(new ArrayList<>(), errors));
+
+        assertThat(errors)
+                .singleElement()
+                .satisfies(e -> assertThat(Status.fromThrowable(e).getCode()).isEqualTo(Status.Code.INVALID_ARGUMENT));
+    }
+
+    @Test
+    void malformedPageTokenIsRejected() {
+        List<ListTransactionsResponse> responses = new ArrayList<>();
+        transactionGrpcService.listTransactionsByAccount(
+                ListTransactionsByAccountRequest.newBuilder()
+                        .setAccountId(1)
+                        .setPageToken("not-a-token")
+                        .build(),
+                ServiceTestSupport.observer(responses));
+
+        assertThat(responses).singleElement().satisfies(r -> assertThat(r.getSuccess()).isFalse());
+    }
+
+    private static <R> Status.Code reject(BiConsumer<R, StreamObserver<TransactionResponse>> rpc, R request) {
+        List<Throwable> errors = new ArrayList<>();
+        rpc.accept(request, new StreamObserver<>() {
+            @Override
+            public void onNext(TransactionResponse response) {
+                throw new AssertionError("Unexpected response: " + response);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                errors.add(t);
+            }
+
+            @Override
+            public void onCompleted() {}
+        });
+        assertThat(errors).hasSize(1);
+        return Status.fromThrowable(errors.getFirst()).getCode();
+    }
+}
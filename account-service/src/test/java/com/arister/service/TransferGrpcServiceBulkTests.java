@@ -0,0 +1,175 @@
+package com.arister.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.arister.enums.AccountType;
+import com.arister.proto.BulkTransferRequest;
+import com.arister.proto.BulkTransferResult;
+import com.arister.proto.CreateTransferRequest;
+import com.arister.proto.TransferServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Drives {@code BulkTransfer} through an in-process gRPC channel, so flow control and chunking run
+ * exactly as they would for a remote client, and compares it with the same legs sent as unary calls.
+ */
+@Slf4j
+@SpringBootTest(properties = "transfer.bulk.chunk-size=" + TransferGrpcServiceBulkTests.CHUNK_SIZE)
+class TransferGrpcServiceBulkTests extends ServiceTestSupport {
+
+    static final int CHUNK_SIZE = 250;
+    private static final int LEGS = 2_000;
+    private static final int PAYEES = 50;
+
+    @Autowired
+    private TransferGrpcService transferGrpcService;
+
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+                .addService(transferGrpcService)
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).build();
+    }
+
+    @AfterEach
+    void stopServer() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void bulkTransferReportsEveryLegInOrder() throws Exception {
+        long payer = openCurrentAccount("1000.00");
+        long payee = openCurrentAccount("0.00");
+        List<BulkTransferRequest> legs = new ArrayList<>();
+        for (int i = 0; i < 2 * CHUNK_SIZE + 10; i++) {
+            legs.add(leg(i, payer, payee, "1.00"));
+        }
+        legs.set(3, leg(3, payer, -1L, "1.00"));
+        legs.set(4, leg(4, payer, payee, "5000.00"));
+        legs.set(5, leg(5, payer, payee, "abc"));
+        legs.set(CHUNK_SIZE + 1, leg(CHUNK_SIZE + 1, payer, payer, "1.00"));
+
+        List<BulkTransferResult> results = bulkTransfer(legs);
+
+        assertThat(results).extracting(BulkTransferResult::getLegId)
+                .containsExactlyElementsOf(legs.stream().map(BulkTransferRequest::getLegId).toList());
+        assertThat(results).filteredOn(r -> !r.getSuccess())
+                .extracting(BulkTransferResult::getLegId)
+                .containsExactly(3L, 4L, 5L, (long) CHUNK_SIZE + 1);
+        assertThat(results.get(4).getMessage()).startsWith("Insufficient funds");
+
+        int posted = legs.size() - 4;
+        assertThat(accountRepository.findById(payer).orElseThrow().getBalance())
+                .isEqualTo((1000L - posted) * 100);
+        assertThat(accountRepository.findById(payee).orElseThrow().getBalance())
+                .isEqualTo(posted * 100L);
+        assertThat(transferRepository.count()).isEqualTo(posted);
+        assertThat(transactionRepository.count()).isEqualTo(2L * posted);
+    }
+
+    @Test
+    void bulkTransferOutrunsUnaryCalls() throws Exception {
+        long payer = openCurrentAccount("1000000.00");
+        List<Long> payees = new ArrayList<>();
+        for (int i = 0; i < PAYEES; i++) {
+            payees.add(openCurrentAccount("0.00"));
+        }
+        List<BulkTransferRequest> legs = new ArrayList<>();
+        for (int i = 0; i < LEGS; i++) {
+            legs.add(leg(i, payer, payees.get(i % PAYEES), "1.00"));
+        }
+        TransferServiceGrpc.TransferServiceBlockingStub blocking = TransferServiceGrpc.newBlockingStub(channel);
+
+        // warm both paths before timing them
+        bulkTransfer(legs.subList(0, CHUNK_SIZE));
+        legs.subList(0, CHUNK_SIZE).forEach(leg -> blocking.createTransfer(unary(leg)));
+
+        long start = System.nanoTime();
+        for (BulkTransferRequest leg : legs) {
+            assertThat(blocking.createTransfer(unary(leg)).getSuccess()).isTrue();
+        }
+        long unaryNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        List<BulkTransferResult> results = bulkTransfer(legs);
+        long bulkNanos = System.nanoTime() - start;
+
+        assertThat(results).allMatch(BulkTransferResult::getSuccess);
+        log.info(
+                "{} legs: unary {} legs/s, bulk {} legs/s ({}x)",
+                LEGS,
+                LEGS * 1_000_000_000L / unaryNanos,
+                LEGS * 1_000_000_000L / bulkNanos,
+                String.format("%.1f", (double) unaryNanos / bulkNanos));
+        assertThat(bulkNanos).isLessThan(unaryNanos);
+    }
+
+    private List<BulkTransferResult> bulkTransfer(List<BulkTransferRequest> legs) throws Exception {
+        List<BulkTransferResult> results = new ArrayList<>();
+        CompletableFuture<List<BulkTransferResult>> done = new CompletableFuture<>();
+        StreamObserver<BulkTransferRequest> requests =
+                TransferServiceGrpc.newStub(channel).bulkTransfer(new StreamObserver<>() {
+                    @Override
+                    public void onNext(BulkTransferResult result) {
+                        results.add(result);
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        done.completeExceptionally(t);
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                        done.complete(results);
+                    }
+                });
+        legs.forEach(requests::onNext);
+        requests.onCompleted();
+        return done.get(60, TimeUnit.SECONDS);
+    }
+
+    private long openCurrentAccount(String balance) {
+        return open(account(balance).accountType(AccountType.CURRENT));
+    }
+
+    private static BulkTransferRequest leg(long legId, long from, long to, String amount) {
+        return BulkTransferRequest.newBuilder()
+                .setLegId(legId)
+                .setFromAccountId(from)
+                .setToAccountId(to)
+                .setAmount(amount)
+                .setDescription("payroll")
+                .build();
+    }
+
+    private static CreateTransferRequest unary(BulkTransferRequest leg) {
+        return CreateTransferRequest.newBuilder()
+                .setFromAccountId(leg.getFromAccountId())
+                .setToAccountId(leg.getToAccountId())
+                .setAmount(leg.getAmount())
+                .setDescription(leg.getDescription())
+                .build();
+    }
+}
@@ -0,0 +1,92 @@
+package com.arister.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.arister.common.money.Money;
+import com.arister.enums.AccountType;
+import com.arister.model.Account;
+import com.arister.proto.CreateTransferRequest;
+import com.arister.proto.TransferResponse;
+import io.grpc.stub.StreamObserver;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class TransferGrpcServiceConcurrencyTests extends ServiceTestSupport {
+
+    private static final int ACCOUNTS = 8;
+    private static final int TRANSFERS = 4_000;
+    private static final int THREADS = 8;
+    private static final long OPENING_BALANCE = 100_000;
+
+    @Autowired
+    private TransferGrpcService transferGrpcService;
+
+    @Test
+    void parallelTransfersConserveTotalBalance() throws InterruptedException {
+        List<Long> ids = IntStream.range(0, ACCOUNTS)
+                .mapToObj(i -> open(account("0.00").accountType(AccountType.CURRENT).balance(OPENING_BALANCE)))
+                .toList();
+
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        for (int i = 0; i < TRANSFERS; i++) {
+            pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int from = random.nextInt(ACCOUNTS);
+                int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                long amount = random.nextInt(1, 20_000);
+                CreateTransferRequest.Builder request = CreateTransferRequest.newBuilder()
+                        .setFromAccountId(ids.get(from))
+                        .setToAccountId(ids.get(to))
+                        .setDescription("stress");
+                // half the requests give the amount in minor units
+                if (random.nextBoolean()) {
+                    request.setAmountMinor(amount);
+                } else {
+                    request.setAmount(Money.format(amount));
+                }
+                try {
+                    transferGrpcService.createTransfer(request.build(), new StreamObserver<>() {
+                        @Override
+                        public void onNext(TransferResponse response) {
+                            (response.getSuccess() ? completed : failed).incrementAndGet();
+                        }
+
+                        @Override
+                        public void onError(Throwable t) {
+                            rejected.incrementAndGet();
+                        }
+
+                        @Override
+                        public void onCompleted() {}
+                    });
+                } catch (RuntimeException e) {
+                    failed.incrementAndGet();
+                }
+            });
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(5, TimeUnit.MINUTES)).isTrue();
+
+        List<Account> accounts = accountRepository.findAllById(ids);
+        long total = accounts.stream().mapToLong(Account::getBalance).sum();
+
+        assertThat(failed.get()).isZero();
+        assertThat(completed.get() + rejected.get()).isEqualTo(TRANSFERS);
+        assertThat(total).isEqualTo(OPENING_BALANCE * ACCOUNTS);
+        assertThat(accounts).allSatisfy(a -> assertThat(a.getBalance()).isNotNegative());
+        assertThat(transferRepository.count()).isEqualTo(completed.get());
+    }
+}
@@ -0,0 +1,87 @@
+package com.arister.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.arister.enums.AccountType;
+import com.arister.proto.CreateTransferRequest;
+import com.arister.proto.ListTransfersByAccountRequest;
+import com.arister.proto.ListTransfersResponse;
+import com.arister.proto.Transfer;
+import com.arister.proto.TransferResponse;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class TransferGrpcServicePaginationTests extends ServiceTestSupport {
+
+    @Autowired
+    private TransferGrpcService transferGrpcService;
+
+    @Test
+    void tokensAndPageNumbersMergeBothDirectionsNewestFirst() {
+        long account = openCurrentAccount("1000.00");
+        long other = openCurrentAccount("1000.00");
+        long unrelated = openCurrentAccount("1000.00");
+        for (int i = 0; i < 20; i++) {
+            transfer(account, other);
+            transfer(other, account);
+            transfer(other, unrelated);
+        }
+        // a third of the rows share one timestamp, so the id has to break ties across both branches
+        jdbcTemplate.update(
+                "UPDATE transfers SET created_at = (SELECT MAX(created_at) FROM transfers) WHERE MOD(id, 3) = 0");
+        List<Long> expected = jdbcTemplate.queryForList(
+                "SELECT id FROM transfers WHERE from_account_id = ? OR to_account_id = ? ORDER BY created_at DESC, id DESC",
+                Long.class,
+                account,
+                account);
+
+        List<Transfer> byToken = new ArrayList<>();
+        String token = "";
+        do {
+            ListTransfersResponse response = list(ListTransfersByAccountRequest.newBuilder()
+                    .setAccountId(account)
+                    .setSize(7)
+                    .setPageToken(token)
+                    .setSkipTotalCount(true)
+                    .build());
+            byToken.addAll(response.getTransfersList());
+            token = response.getNextPageToken();
+        } while (!token.isEmpty());
+
+        List<Transfer> byPage = new ArrayList<>();
+        for (int page = 0; page * 7 < expected.size(); page++) {
+            ListTransfersResponse response = list(ListTransfersByAccountRequest.newBuilder()
+                    .setAccountId(account)
+                    .setPage(page)
+                    .setSize(7)
+                    .build());
+            assertThat(response.getTotalCount()).isEqualTo(expected.size());
+            byPage.addAll(response.getTransfersList());
+        }
+
+        assertThat(byToken).extracting(Transfer::getId).containsExactlyElementsOf(expected);
+        assertThat(byPage).extracting(Transfer::getId).containsExactlyElementsOf(expected);
+    }
+
+    private long openCurrentAccount(String balance) {
+        return open(account(balance).accountType(AccountType.CURRENT));
+    }
+
+    private void transfer(long from, long to) {
+        transferGrpcService.createTransfer(
+                CreateTransferRequest.newBuilder()
+                        .setFromAccountId(from)
+                        .setToAccountId(to)
+                        .setAmount("1.00")
+                        .build(),
+                observer(new ArrayList<TransferResponse>()));
+    }
+
+    private ListTransfersResponse list(ListTransfersByAccountRequest request) {
+        return call(observer -> transferGrpcService.listTransfersByAccount(request, observer));
+    }
+}
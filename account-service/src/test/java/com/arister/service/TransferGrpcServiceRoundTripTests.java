@@ -0,0 +1,54 @@
+package com.arister.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.arister.enums.AccountType;
+import com.arister.proto.CreateTransferRequest;
+import com.arister.proto.TransferResponse;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * JDBC round trips of a single {@code createTransfer}, counted as prepared statements, so a JDBC batch
+ * counts once no matter how many rows it carries. Latency and the amortised count are measured by
+ * {@code TransferRoundTripBenchmark} in banking-benchmarks.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class TransferGrpcServiceRoundTripTests extends ServiceTestSupport {
+
+    @Autowired
+    private TransferGrpcService transferGrpcService;
+
+    @Test
+    void transferUsesFourRoundTrips() {
+        long from = openCurrentAccount("100.00");
+        long to = openCurrentAccount("0.00");
+        CreateTransferRequest request = CreateTransferRequest.newBuilder()
+                .setFromAccountId(from)
+                .setToAccountId(to)
+                .setAmount("1.00")
+                .build();
+        Statistics statistics = statistics();
+
+        // measured after a first transfer, so work done once on first use is left out
+        transfer(request);
+        statistics.clear();
+        transfer(request);
+
+        // lock both accounts, one two-row ledger batch, the transfer row and one two-row account update
+        // batch; the id sequence fetches and the ledger event outbox insert go through JdbcTemplate and
+        // are not counted by Hibernate
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+    }
+
+    private long openCurrentAccount(String balance) {
+        return open(account(balance).accountType(AccountType.CURRENT));
+    }
+
+    private void transfer(CreateTransferRequest request) {
+        TransferResponse response = call(observer -> transferGrpcService.createTransfer(request, observer));
+        assertThat(response.getSuccess()).isTrue();
+    }
+}
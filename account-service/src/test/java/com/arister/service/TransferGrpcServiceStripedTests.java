@@ -0,0 +1,198 @@
+package com.arister.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.arister.enums.AccountType;
+import com.arister.model.Account;
+import com.arister.model.Transaction;
+import com.arister.proto.AccountResponse;
+import com.arister.proto.AccountStatus;
+import com.arister.proto.CreateTransferRequest;
+import com.arister.proto.DepositRequest;
+import com.arister.proto.GetAccountRequest;
+import com.arister.proto.TransactionResponse;
+import com.arister.proto.TransferResponse;
+import com.arister.proto.UpdateAccountRequest;
+import com.arister.proto.WithdrawRequest;
+import com.arister.repository.BalanceSnapshotStore;
+import io.grpc.stub.StreamObserver;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Credits to a striped account land on its stripes without losing any, and debits still see every
+ * committed credit before the overdraft check.
+ */
+@SpringBootTest
+class TransferGrpcServiceStripedTests extends ServiceTestSupport {
+
+    private static final int PAYERS = 8;
+    private static final int TRANSFERS_PER_PAYER = 50;
+
+    @Autowired
+    private AccountGrpcService accountGrpcService;
+
+    @Autowired
+    private TransactionGrpcService transactionGrpcService;
+
+    @Autowired
+    private TransferGrpcService transferGrpcService;
+
+    @Autowired
+    private BalanceStripes balanceStripes;
+
+    @Autowired
+    private BalanceSnapshotStore balanceSnapshotStore;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void concurrentTransfersIntoStripedAccountAreAllCredited() throws InterruptedException {
+        long hot = openCurrentAccount("0.00");
+        stripe(hot, 4);
+        List<Long> payers = IntStream.range(0, PAYERS).mapToObj(i -> openCurrentAccount("1000.00")).toList();
+
+        AtomicInteger completed = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(PAYERS);
+        for (long payer : payers) {
+            pool.submit(() -> {
+                for (int i = 0; i < TRANSFERS_PER_PAYER; i++) {
+                    List<TransferResponse> responses = new ArrayList<>();
+                    transferGrpcService.createTransfer(
+                            CreateTransferRequest.newBuilder()
+                                    .setFromAccountId(payer)
+                                    .setToAccountId(hot)
+                                    .setAmount("1.25")
+                                    .build(),
+                            observer(responses));
+                    if (responses.getFirst().getSuccess()) {
+                        completed.incrementAndGet();
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(5, TimeUnit.MINUTES)).isTrue();
+
+        assertThat(completed.get()).isEqualTo(PAYERS * TRANSFERS_PER_PAYER);
+        assertThat(getAccount(hot).getBalance()).isEqualTo("500.00");
+        assertThat(transactionRepository.findAll())
+                .filteredOn(t -> t.getAccountId() == hot)
+                .extracting(Transaction::getBalanceSlot)
+                .containsOnly(1, 2, 3, 4);
+
+        // the snapshot of an account with striped credits is worked back from its current balance
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            balanceSnapshotStore.snapshotDay(LocalDate.now(ZoneOffset.UTC));
+            assertThat(jdbcTemplate.queryForObject(
+                            "SELECT balance FROM balance_snapshots WHERE account_id = ?", BigDecimal.class, hot))
+                    .isEqualByComparingTo("500.00");
+            status.setRollbackOnly();
+        });
+
+        balanceStripes.fold();
+        Account folded = accountRepository.findById(hot).orElseThrow();
+        assertThat(folded.getBalance()).isEqualTo(50_000);
+        assertThat(folded.getStripedCredits()).isZero();
+    }
+
+    @Test
+    void withdrawalSettlesStripesBeforeTheOverdraftCheck() {
+        long hot = openCurrentAccount("10.00");
+        stripe(hot, 2);
+        deposit(hot, "30.00");
+        deposit(hot, "5.00");
+        assertThat(accountRepository.findById(hot).orElseThrow().getBalance()).isEqualTo(1_000);
+
+        List<TransactionResponse> rejected = new ArrayList<>();
+        AtomicInteger errors = new AtomicInteger();
+        transactionGrpcService.withdraw(
+                WithdrawRequest.newBuilder().setAccountId(hot).setAmount("45.01").build(),
+                new StreamObserver<>() {
+                    @Override
+                    public void onNext(TransactionResponse response) {
+                        rejected.add(response);
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        errors.incrementAndGet();
+                    }
+
+                    @Override
+                    public void onCompleted() {}
+                });
+        assertThat(rejected).isEmpty();
+        assertThat(errors.get()).isEqualTo(1);
+
+        List<TransactionResponse> withdrawn = new ArrayList<>();
+        transactionGrpcService.withdraw(
+                WithdrawRequest.newBuilder().setAccountId(hot).setAmount("45.00").build(), observer(withdrawn));
+        assertThat(withdrawn.getFirst().getTransaction().getBalanceBefore()).isEqualTo("45.00");
+        assertThat(withdrawn.getFirst().getTransaction().getBalanceAfter()).isEqualTo("0.00");
+        assertThat(withdrawn.getFirst().getTransaction().getBalanceSlot()).isZero();
+    }
+
+    @Test
+    void turningStripingOffKeepsTheBalance() {
+        long hot = openCurrentAccount("0.00");
+        stripe(hot, 3);
+        deposit(hot, "12.34");
+        assertThat(getAccount(hot).getBalanceStripes()).isEqualTo(3);
+
+        stripe(hot, 0);
+        assertThat(jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM account_balance_stripes WHERE account_id = ?", Long.class, hot))
+                .isZero();
+        assertThat(getAccount(hot).getBalance()).isEqualTo("12.34");
+
+        // credits go to the account row again
+        deposit(hot, "0.66");
+        assertThat(accountRepository.findById(hot).orElseThrow().getBalance()).isEqualTo(1_300);
+    }
+
+    private void stripe(long accountId, int stripes) {
+        List<AccountResponse> responses = new ArrayList<>();
+        accountGrpcService.updateAccount(
+                UpdateAccountRequest.newBuilder()
+                        .setId(accountId)
+                        .setStatus(AccountStatus.ACTIVE)
+                        .setBalanceStripes(stripes)
+                        .build(),
+                observer(responses));
+        assertThat(responses.getFirst().getSuccess()).isTrue();
+    }
+
+    private com.arister.proto.Account getAccount(long accountId) {
+        AccountResponse response = call(observer ->
+                accountGrpcService.getAccount(GetAccountRequest.newBuilder().setId(accountId).build(), observer));
+        return response.getAccount();
+    }
+
+    private void deposit(long accountId, String amount) {
+        transactionGrpcService.deposit(
+                DepositRequest.newBuilder()
+                        .setAccountId(accountId)
+                        .setAmount(amount)
+                        .build(),
+                observer(new ArrayList<>()));
+    }
+
+    private long openCurrentAccount(String balance) {
+        return open(account(balance).accountType(AccountType.CURRENT));
+    }
+}
@@ -0,0 +1,77 @@
+package com.arister.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.arister.proto.CreateTransferRequest;
+import com.arister.proto.TransferResponse;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Requests that {@code CreateTransfer} rejects before touching the database, so the service runs
+ * without its repositories here.
+ */
+class TransferGrpcServiceValidationTests {
+
+    private final TransferGrpcService transferGrpcService = new TransferGrpcService(null, null, null, null, null);
+
+    @Test
+    void transferToTheSameAccountIsAnInvalidArgument() {
+        assertThat(reject(CreateTransferRequest.newBuilder()
+                        .setFromAccountId(1)
+                        .setToAccountId(1)
+                        .setAmount("10.00")
+                        .setIdempotencyKey("same-account")
+                        .build()))
+                .isEqualTo(Status.Code.INVALID_ARGUMENT);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "0, 0, , 0",
+        "-5.00, 0, , 0",
+        ", -500, , 0",
+        "1e3, 0, , 0",
+        "10.001, 0, , 0",
+        "10.00, 0, -1.00, 0",
+        "10.00, 0, , -100",
+        "10.00, 0, 1e2, 0",
+        ", 1000000000000000, , 0"
+    })
+    void amountMustBePositiveAndFeeNotNegative(String amount, long amountMinor, String fee, long feeMinor) {
+        assertThat(reject(CreateTransferRequest.newBuilder()
+                        .setFromAccountId(1)
+                        .setToAccountId(2)
+                        .setAmount(amount == null ? "" : amount)
+                        .setAmountMinor(amountMinor)
+                        .setFee(fee == null ? "" : fee)
+                        .setFeeMinor(feeMinor)
+                        .build()))
+                .isEqualTo(Status.Code.INVALID_ARGUMENT);
+    }
+
+    private Status.Code reject(CreateTransferRequest request) {
+        List<Throwable> errors = new ArrayList<>();
+        transferGrpcService.createTransfer(request, new StreamObserver<>() {
+            @Override
+            public void onNext(TransferResponse response) {
+                throw new AssertionError("Unexpected response: " + response);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                errors.add(t);
+            }
+
+            @Override
+            public void onCompleted() {}
+        });
+        assertThat(errors).hasSize(1);
+        return Status.fromThrowable(errors.getFirst()).getCode();
+    }
+}
@@ -0,0 +1,70 @@
+-- Objects the tests need that Hibernate's create-drop does not generate (see db/migration).
+CREATE SEQUENCE IF NOT EXISTS transactions_id_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS transfers_id_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS account_number_seq START WITH 1000000001 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    operation       VARCHAR(20)   NOT NULL,
+    idempotency_key VARCHAR(100)  NOT NULL,
+    response        BYTEA,
+    request_hash    BYTEA,
+    created_at      TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (operation, idempotency_key)
+);
+
+CREATE TABLE IF NOT EXISTS balance_snapshots (
+    account_id  BIGINT        NOT NULL,
+    as_of_date  DATE          NOT NULL,
+    balance     DECIMAL(15,2) NOT NULL,
+    created_at  TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (account_id, as_of_date)
+);
+
+CREATE TABLE IF NOT EXISTS balance_snapshot_progress (
+    id               SMALLINT PRIMARY KEY CHECK (id = 1),
+    snapshot_through DATE
+);
+-- INIT runs on every new connection, so the row is only added when missing
+INSERT INTO balance_snapshot_progress (id, snapshot_through)
+    SELECT 1, NULL WHERE NOT EXISTS (SELECT 1 FROM balance_snapshot_progress);
+
+CREATE TABLE IF NOT EXISTS ledger_outbox (
+    id          BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    payload     BYTEA  NOT NULL,
+    created_at  TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS ledger_events (
+    event_offset BIGINT PRIMARY KEY,
+    payload      BYTEA  NOT NULL,
+    published_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS ledger_event_head (
+    id          SMALLINT PRIMARY KEY CHECK (id = 1),
+    last_offset BIGINT   NOT NULL
+);
+INSERT INTO ledger_event_head (id, last_offset)
+    SELECT 1, 0 WHERE NOT EXISTS (SELECT 1 FROM ledger_event_head);
+
+CREATE TABLE IF NOT EXISTS account_balance_stripes (
+    account_id  BIGINT        NOT NULL,
+    slot        SMALLINT      NOT NULL,
+    amount      DECIMAL(15,2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (account_id, slot)
+);
+
+CREATE TABLE IF NOT EXISTS interest_accrual_checkpoints (
+    accrual_date  DATE     NOT NULL,
+    partition_no  SMALLINT NOT NULL,
+    upper_id      BIGINT   NOT NULL,
+    checkpoint_id BIGINT   NOT NULL,
+    completed_at  TIMESTAMP WITH TIME ZONE,
+    PRIMARY KEY (accrual_date, partition_no)
+);
+
+CREATE TABLE IF NOT EXISTS maintenance_fee_checkpoints (
+    fee_period    DATE   PRIMARY KEY,
+    checkpoint_id BIGINT NOT NULL DEFAULT 0,
+    completed_at  TIMESTAMP WITH TIME ZONE
+);
@@ -0,0 +1,479 @@
+package com.arister.load;
+
+import com.arister.proto.AccountServiceGrpc;
+import com.arister.proto.AccountType;
+import com.arister.proto.AddCustomerKycRequest;
+import com.arister.proto.CreateAccountRequest;
+import com.arister.proto.CreateCustomerRequest;
+import com.arister.proto.CreateTransferRequest;
+import com.arister.proto.CustomerKycServiceGrpc;
+import com.arister.proto.CustomerResponse;
+import com.arister.proto.CustomerServiceGrpc;
+import com.arister.proto.DepositRequest;
+import com.arister.proto.ListTransactionsByAccountRequest;
+import com.arister.proto.TransactionServiceGrpc;
+import com.arister.proto.TransferServiceGrpc;
+import com.arister.proto.WithdrawRequest;
+import com.arister.service.AccountServiceFixture;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.sql.DataSource;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * Load generator that simulates a banking day against account-service, and customer-service when one
+ * is given: onboarding, account opening, deposits, withdrawals, transfers between Zipf-distributed hot
+ * accounts and statement reads, in a configurable mix. It reports throughput, latency percentiles per
+ * operation (full HdrHistogram distributions are written to {@code --histogram-dir}), approximate
+ * lock-wait time, and checks {@link LedgerInvariants} at the end; a violated invariant makes the
+ * process exit with status 1.
+ *
+ * <p>Runs are reproducible for a given {@code --seed} and thread count: each worker draws from its
+ * own split of one seeded random source. Timing still varies, so interleavings and latencies do too.
+ *
+ * <p>By default account-service runs in this JVM on H2. customer-service cannot share the JVM (it is
+ * built on a different Spring Boot generation), so onboarding needs {@code --customer-service}.
+ */
+public final class BankingDayLoad {
+
+    private static final int STATEMENT_PAGE_SIZE = 20;
+
+    private final LoadOptions options;
+    private final Target target;
+    private final ZipfSampler zipf;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+    private final Map<String, LongAdder> errorsByStatus = new ConcurrentHashMap<>();
+    private final List<Long> pool = new ArrayList<>();
+    private final List<Long> openedAccounts = new CopyOnWriteArrayList<>();
+    private final List<Long> onboardedCustomers = new CopyOnWriteArrayList<>();
+    private final LongAdder depositedCents = new LongAdder();
+    private final LongAdder withdrawnCents = new LongAdder();
+    private final AtomicLong sequence = new AtomicLong();
+    private final long runId = System.currentTimeMillis();
+    private volatile boolean recording;
+
+    private BankingDayLoad(LoadOptions options, Target target) {
+        this.options = options;
+        this.target = target;
+        this.zipf = new ZipfSampler(options.accounts(), options.zipfExponent());
+        Map<Operation, Integer> mix = new EnumMap<>(options.mix());
+        if (target.customers == null) {
+            mix.remove(Operation.ONBOARD);
+        }
+        mix.values().removeIf(weight -> weight <= 0);
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("The operation mix is empty");
+        }
+        operations = mix.keySet().toArray(Operation[]::new);
+        cumulativeWeights = new int[operations.length];
+        int sum = 0;
+        for (int i = 0; i < operations.length; i++) {
+            sum += mix.get(operations[i]);
+            cumulativeWeights[i] = sum;
+            stats.put(operations[i], new Stats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options = LoadOptions.parse(args);
+        boolean consistent;
+        try (Target target = Target.connect(options)) {
+            consistent = new BankingDayLoad(options, target).run();
+        }
+        System.exit(consistent ? 0 : 1);
+    }
+
+    private boolean run() throws Exception {
+        System.out.printf("Opening %d accounts with %s each%n", options.accounts(), options.openingBalance());
+        for (int i = 0; i < options.accounts(); i++) {
+            long id = openAccount(options.customerId());
+            pool.add(id);
+            deposit(id, new BigDecimal(options.openingBalance()).movePointRight(2).longValueExact());
+        }
+
+        SplittableRandom root = new SplittableRandom(options.seed());
+        SplittableRandom[] randoms = new SplittableRandom[options.threads()];
+        for (int i = 0; i < randoms.length; i++) {
+            randoms[i] = root.split();
+        }
+
+        System.out.printf("Warming up for %s%n", options.warmup());
+        drive(randoms, options.warmup());
+        recording = true;
+        System.out.printf("Measuring for %s with %d threads%n", options.duration(), options.threads());
+        long lockWaitMillis = -1;
+        long peakWaiters = -1;
+        long started = System.nanoTime();
+        if (target.dataSource != null) {
+            try (LockWaitSampler sampler = new LockWaitSampler(target.dataSource)) {
+                drive(randoms, options.duration());
+                lockWaitMillis = sampler.waitMillis();
+                peakWaiters = sampler.peakWaiters();
+            }
+        } else {
+            drive(randoms, options.duration());
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        recording = false;
+
+        report(seconds, lockWaitMillis, peakWaiters);
+        writeHistograms();
+        return checkInvariants();
+    }
+
+    /** Runs every worker for {@code duration}; the random sources carry over between phases. */
+    private void drive(SplittableRandom[] randoms, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService workers = Executors.newFixedThreadPool(randoms.length);
+        try {
+            List<Future<?>> running = new ArrayList<>();
+            for (SplittableRandom random : randoms) {
+                running.add(workers.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        step(random);
+                    }
+                }));
+            }
+            for (Future<?> worker : running) {
+                worker.get();
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private void step(SplittableRandom random) {
+        Operation operation = pick(random);
+        long started = System.nanoTime();
+        Outcome outcome;
+        try {
+            outcome = execute(operation, random) ? Outcome.OK : Outcome.REJECTED;
+        } catch (StatusRuntimeException e) {
+            Status.Code code = e.getStatus().getCode();
+            // insufficient funds and the like are business outcomes, not failures
+            outcome = code == Status.Code.FAILED_PRECONDITION ? Outcome.REJECTED : Outcome.ERROR;
+            if (outcome == Outcome.ERROR) {
+                errorsByStatus.computeIfAbsent(code.name(), c -> new LongAdder()).increment();
+            }
+        }
+        if (recording) {
+            stats.get(operation).record(outcome, System.nanoTime() - started);
+        }
+    }
+
+    private Operation pick(SplittableRandom random) {
+        int draw = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int i = 0;
+        while (cumulativeWeights[i] <= draw) {
+            i++;
+        }
+        return operations[i];
+    }
+
+    /** Performs one operation; returns whether the service accepted it. */
+    private boolean execute(Operation operation, SplittableRandom random) {
+        return switch (operation) {
+            case ONBOARD -> onboard();
+            case OPEN -> {
+                long customerId = onboardedCustomers.isEmpty()
+                        ? options.customerId()
+                        : onboardedCustomers.get(random.nextInt(onboardedCustomers.size()));
+                openedAccounts.add(openAccount(customerId));
+                yield true;
+            }
+            case DEPOSIT -> deposit(hotAccount(random), amountCents(random));
+            case WITHDRAW -> withdraw(hotAccount(random), amountCents(random));
+            case TRANSFER -> transfer(random);
+            case STATEMENT -> target.transactions
+                    .listTransactionsByAccount(ListTransactionsByAccountRequest.newBuilder()
+                            .setAccountId(hotAccount(random))
+                            .setSize(STATEMENT_PAGE_SIZE)
+                            .setSkipTotalCount(true)
+                            .build())
+                    .getSuccess();
+        };
+    }
+
+    private boolean onboard() {
+        long n = sequence.incrementAndGet();
+        CustomerResponse customer = target.customers.createCustomer(CreateCustomerRequest.newBuilder()
+                .setFirstName("Load")
+                .setLastName("Customer " + n)
+                .setEmail("load-" + runId + "-" + n + "@example.com")
+                .build());
+        if (!customer.getSuccess()) {
+            return false;
+        }
+        long customerId = customer.getCustomer().getId();
+        boolean kyc = target.kyc
+                .addCustomerKyc(AddCustomerKycRequest.newBuilder()
+                        .setCustomerId(customerId)
+                        .setDocumentType("PASSPORT")
+                        .setDocumentNumber("L" + runId + "-" + n)
+                        .setIssueDate("2020-01-01")
+                        .setExpiryDate("2030-01-01")
+                        .setIssuingCountry("MY")
+                        .build())
+                .getSuccess();
+        onboardedCustomers.add(customerId);
+        return kyc;
+    }
+
+    private long openAccount(long customerId) {
+        return target.accounts
+                .createAccount(CreateAccountRequest.newBuilder()
+                        .setCustomerId(customerId)
+                        .setBranchId(options.branchId())
+                        .setAccountType(AccountType.SAVINGS)
+                        .build())
+                .getAccount()
+                .getId();
+    }
+
+    private boolean deposit(long accountId, long cents) {
+        boolean ok = target.transactions
+                .deposit(DepositRequest.newBuilder()
+                        .setAccountId(accountId)
+                        .setAmountMinor(cents)
+                        .build())
+                .getSuccess();
+        if (ok) {
+            depositedCents.add(cents);
+        }
+        return ok;
+    }
+
+    private boolean withdraw(long accountId, long cents) {
+        boolean ok = target.transactions
+                .withdraw(WithdrawRequest.newBuilder()
+                        .setAccountId(accountId)
+                        .setAmountMinor(cents)
+                        .build())
+                .getSuccess();
+        if (ok) {
+            withdrawnCents.add(cents);
+        }
+        return ok;
+    }
+
+    private boolean transfer(SplittableRandom random) {
+        long from = hotAccount(random);
+        long to = hotAccount(random);
+        while (to == from && pool.size() > 1) {
+            to = hotAccount(random);
+        }
+        return target.transfers
+                .createTransfer(CreateTransferRequest.newBuilder()
+                        .setFromAccountId(from)
+                        .setToAccountId(to)
+                        .setAmountMinor(amountCents(random))
+                        .build())
+                .getSuccess();
+    }
+
+    private long hotAccount(SplittableRandom random) {
+        return pool.get(zipf.next(random));
+    }
+
+    private static long amountCents(SplittableRandom random) {
+        return 100 + random.nextInt(9_900);
+    }
+
+    private void report(double seconds, long lockWaitMillis, long peakWaiters) {
+        int hot = Math.max(1, options.accounts() / 100);
+        System.out.printf(
+                "%nBanking day: %.1f s, %d threads, %d accounts (zipf %.2f: hottest %d get %.0f%% of picks)%n",
+                seconds,
+                options.threads(),
+                options.accounts(),
+                options.zipfExponent(),
+                hot,
+                zipf.headShare(hot) * 100);
+        System.out.printf(
+                "%-10s %9s %9s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "ok", "rejected", "errors", "ops/s", "p50 ms", "p90 ms", "p99 ms",
+                "p99.9 ms", "max ms");
+        Stats total = new Stats();
+        stats.forEach((operation, s) -> {
+            print(operation.name().toLowerCase(), s, seconds);
+            total.add(s);
+        });
+        print("total", total, seconds);
+        if (lockWaitMillis >= 0) {
+            System.out.printf(
+                    "Lock wait: ~%.1f session-seconds (sampled every %d ms), peak %d waiting sessions%n",
+                    lockWaitMillis / 1000.0, LockWaitSampler.INTERVAL_MILLIS, peakWaiters);
+        }
+        if (!errorsByStatus.isEmpty()) {
+            System.out.println("Errors by status: " + errorsByStatus);
+        }
+    }
+
+    private static void print(String name, Stats s, double seconds) {
+        Histogram h = s.latency;
+        long count = h.getTotalCount();
+        System.out.printf(
+                "%-10s %9d %9d %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                name,
+                count,
+                s.ok.sum(),
+                s.rejected.sum(),
+                s.errors.sum(),
+                count / seconds,
+                millis(h, 50),
+                millis(h, 90),
+                millis(h, 99),
+                millis(h, 99.9),
+                h.getMaxValue() / 1e6);
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1e6;
+    }
+
+    private void writeHistograms() throws IOException {
+        Path dir = Path.of(options.histogramDir());
+        Files.createDirectories(dir);
+        for (Map.Entry<Operation, Stats> entry : stats.entrySet()) {
+            Path file = dir.resolve(entry.getKey().name().toLowerCase() + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+                entry.getValue().latency.outputPercentileDistribution(out, 1e6);
+            }
+        }
+        System.out.println("Latency distributions (ms) written to " + dir.toAbsolutePath());
+    }
+
+    private boolean checkInvariants() throws SQLException {
+        if (target.dataSource == null) {
+            System.out.println("Invariants: not checked, pass --jdbc-url for an external account-service");
+            return true;
+        }
+        List<Long> accounts = new ArrayList<>(pool);
+        accounts.addAll(openedAccounts);
+        BigDecimal expected = BigDecimal.valueOf(depositedCents.sum() - withdrawnCents.sum(), 2);
+        List<String> violations = new LedgerInvariants(target.dataSource).violations(accounts, expected);
+        if (violations.isEmpty()) {
+            System.out.printf("Invariants: OK over %d accounts holding %s%n", accounts.size(), expected);
+            return true;
+        }
+        System.out.println("Invariants: VIOLATED");
+        violations.forEach(v -> System.out.println("  " + v));
+        return false;
+    }
+
+    private enum Outcome {
+        OK,
+        REJECTED,
+        ERROR
+    }
+
+    private static final class Stats {
+        // nanoseconds, three significant digits, resized as needed
+        final Histogram latency = new ConcurrentHistogram(3);
+        final LongAdder ok = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder errors = new LongAdder();
+
+        void record(Outcome outcome, long nanos) {
+            latency.recordValue(nanos);
+            switch (outcome) {
+                case OK -> ok.increment();
+                case REJECTED -> rejected.increment();
+                case ERROR -> errors.increment();
+            }
+        }
+
+        void add(Stats other) {
+            latency.add(other.latency);
+            ok.add(other.ok.sum());
+            rejected.add(other.rejected.sum());
+            errors.add(other.errors.sum());
+        }
+    }
+
+    /** Stubs for the services under load, and the database behind account-service if reachable. */
+    private static final class Target implements AutoCloseable {
+        private final AccountServiceFixture fixture;
+        private final List<ManagedChannel> channels = new ArrayList<>();
+        private final DataSource dataSource;
+        private AccountServiceGrpc.AccountServiceBlockingStub accounts;
+        private TransactionServiceGrpc.TransactionServiceBlockingStub transactions;
+        private TransferServiceGrpc.TransferServiceBlockingStub transfers;
+        private CustomerServiceGrpc.CustomerServiceBlockingStub customers;
+        private CustomerKycServiceGrpc.CustomerKycServiceBlockingStub kyc;
+
+        private Target(AccountServiceFixture fixture, DataSource dataSource) {
+            this.fixture = fixture;
+            this.dataSource = dataSource;
+        }
+
+        static Target connect(LoadOptions options) {
+            Target target;
+            ManagedChannel accountChannel;
+            if (options.inProcess()) {
+                AccountServiceFixture fixture = AccountServiceFixture.start();
+                target = new Target(fixture, fixture.bean(DataSource.class));
+                accountChannel = fixture.channel();
+            } else {
+                target = new Target(
+                        null,
+                        options.jdbcUrl() == null
+                                ? null
+                                : new DriverManagerDataSource(
+                                        options.jdbcUrl(), options.jdbcUser(), options.jdbcPassword()));
+                accountChannel = target.open(options.accountService());
+            }
+            target.accounts = AccountServiceGrpc.newBlockingStub(accountChannel);
+            target.transactions = TransactionServiceGrpc.newBlockingStub(accountChannel);
+            target.transfers = TransferServiceGrpc.newBlockingStub(accountChannel);
+            if (options.customerService() != null) {
+                ManagedChannel customerChannel = target.open(options.customerService());
+                target.customers = CustomerServiceGrpc.newBlockingStub(customerChannel);
+                target.kyc = CustomerKycServiceGrpc.newBlockingStub(customerChannel);
+            }
+            return target;
+        }
+
+        private ManagedChannel open(String address) {
+            ManagedChannel channel = ManagedChannelBuilder.forTarget(address).usePlaintext().build();
+            channels.add(channel);
+            return channel;
+        }
+
+        @Override
+        public void close() throws InterruptedException {
+            for (ManagedChannel channel : channels) {
+                channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+            }
+            if (fixture != null) {
+                fixture.close();
+            }
+        }
+    }
+}
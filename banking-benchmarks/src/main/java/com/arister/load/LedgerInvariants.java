@@ -0,0 +1,100 @@
+package com.arister.load;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.sql.DataSource;
+
+/**
+ * Correctness checks run once the load has stopped, over the accounts the run opened. Every account
+ * starts at zero, so:
+ *
+ * <ul>
+ *   <li>money is conserved: the accounts hold exactly what was deposited minus what was withdrawn,
+ *       since transfers only move money between them;
+ *   <li>the ledger explains every balance: an account's balance, including any credits held in its
+ *       balance stripes, is the sum of its transactions' {@code balance_after - balance_before};
+ *   <li>every transaction moved exactly its {@code amount};
+ *   <li>no account is below its overdraft limit.
+ * </ul>
+ */
+final class LedgerInvariants {
+
+    private static final int CHUNK = 500;
+
+    /** Credits held in the balance stripes of account {@code a}, which are part of its balance. */
+    private static final String STRIPED =
+            "COALESCE((SELECT SUM(s.amount) FROM account_balance_stripes s WHERE s.account_id = a.id), 0)";
+
+    private final DataSource dataSource;
+
+    LedgerInvariants(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    List<String> violations(List<Long> accountIds, BigDecimal expectedTotal) throws SQLException {
+        List<String> violations = new ArrayList<>();
+        BigDecimal total = BigDecimal.ZERO;
+        try (Connection connection = dataSource.getConnection()) {
+            for (int from = 0; from < accountIds.size(); from += CHUNK) {
+                List<Long> chunk = accountIds.subList(from, Math.min(from + CHUNK, accountIds.size()));
+                String in = String.join(",", Collections.nCopies(chunk.size(), "?"));
+
+                try (PreparedStatement ps = prepare(
+                                connection,
+                                "SELECT a.id, a.balance + " + STRIPED + ","
+                                        + " COALESCE(SUM(t.balance_after - t.balance_before), 0)"
+                                        + " FROM accounts a LEFT JOIN transactions t ON t.account_id = a.id"
+                                        + " WHERE a.id IN (" + in + ") GROUP BY a.id, a.balance",
+                                chunk);
+                        ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        BigDecimal balance = rs.getBigDecimal(2);
+                        BigDecimal ledger = rs.getBigDecimal(3);
+                        total = total.add(balance);
+                        if (balance.compareTo(ledger) != 0) {
+                            violations.add("Account " + rs.getLong(1) + " balance " + balance
+                                    + " does not match its ledger " + ledger);
+                        }
+                    }
+                }
+                count(connection, violations, chunk, "transactions moving other than their amount",
+                        "SELECT COUNT(*) FROM transactions WHERE account_id IN (" + in + ")"
+                                + " AND ABS(balance_after - balance_before) <> amount");
+                count(connection, violations, chunk, "accounts below their overdraft limit",
+                        "SELECT COUNT(*) FROM accounts a WHERE a.id IN (" + in + ")"
+                                + " AND a.balance + " + STRIPED + " < -a.overdraft_limit");
+            }
+        }
+        if (total.compareTo(expectedTotal) != 0) {
+            violations.add("Money not conserved: accounts hold " + total + " but net deposits are " + expectedTotal);
+        }
+        return violations;
+    }
+
+    private static void count(
+            Connection connection, List<String> violations, List<Long> ids, String what, String sql)
+            throws SQLException {
+        try (PreparedStatement ps = prepare(connection, sql, ids);
+                ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            if (rs.getLong(1) > 0) {
+                violations.add(rs.getLong(1) + " " + what);
+            }
+        }
+    }
+
+    private static PreparedStatement prepare(Connection connection, String sql, List<Long> ids)
+            throws SQLException {
+        PreparedStatement ps = connection.prepareStatement(sql);
+        for (int i = 0; i < ids.size(); i++) {
+            ps.setLong(i + 1, ids.get(i));
+        }
+        return ps;
+    }
+}
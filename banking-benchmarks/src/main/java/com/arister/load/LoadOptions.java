@@ -0,0 +1,88 @@
+package com.arister.load;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Command-line options of {@link BankingDayLoad}, given as {@code --name=value}. Every option has a
+ * default, so a bare run drives an in-process account-service on H2 for a minute.
+ *
+ * @param accountService {@code in-process}, or {@code host:port} of a running account-service
+ * @param customerService {@code host:port} of a running customer-service; onboarding is skipped without it
+ * @param jdbcUrl database of an external account-service, for lock-wait sampling and invariant checks
+ */
+record LoadOptions(
+        Duration warmup,
+        Duration duration,
+        int threads,
+        int accounts,
+        double zipfExponent,
+        Map<Operation, Integer> mix,
+        long seed,
+        String openingBalance,
+        long customerId,
+        long branchId,
+        String accountService,
+        String customerService,
+        String jdbcUrl,
+        String jdbcUser,
+        String jdbcPassword,
+        String histogramDir) {
+
+    static final String IN_PROCESS = "in-process";
+    private static final String DEFAULT_MIX =
+            "onboard:2,open:3,deposit:25,withdraw:20,transfer:35,statement:15";
+    private static final Set<String> KNOWN = Set.of(
+            "warmup", "duration", "threads", "accounts", "zipf", "mix", "seed", "opening-balance", "customer-id",
+            "branch-id", "account-service", "customer-service", "jdbc-url", "jdbc-user", "jdbc-password",
+            "histogram-dir");
+
+    static LoadOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            values.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        LoadOptions options = new LoadOptions(
+                Duration.parse(values.getOrDefault("warmup", "PT10S")),
+                Duration.parse(values.getOrDefault("duration", "PT60S")),
+                Integer.parseInt(values.getOrDefault("threads", "32")),
+                Integer.parseInt(values.getOrDefault("accounts", "1000")),
+                Double.parseDouble(values.getOrDefault("zipf", "1.1")),
+                parseMix(values.getOrDefault("mix", DEFAULT_MIX)),
+                Long.parseLong(values.getOrDefault("seed", "42")),
+                values.getOrDefault("opening-balance", "1000000.00"),
+                Long.parseLong(values.getOrDefault("customer-id", "1")),
+                Long.parseLong(values.getOrDefault("branch-id", "1")),
+                values.getOrDefault("account-service", IN_PROCESS),
+                values.get("customer-service"),
+                values.get("jdbc-url"),
+                values.getOrDefault("jdbc-user", "postgres"),
+                values.getOrDefault("jdbc-password", "root"),
+                values.getOrDefault("histogram-dir", "target/load"));
+        values.keySet().removeAll(KNOWN);
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options: " + values.keySet());
+        }
+        return options;
+    }
+
+    boolean inProcess() {
+        return IN_PROCESS.equals(accountService);
+    }
+
+    private static Map<Operation, Integer> parseMix(String spec) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String part : spec.split(",")) {
+            String[] weight = part.split(":");
+            mix.put(Operation.valueOf(weight[0].trim().toUpperCase()), Integer.parseInt(weight[1].trim()));
+        }
+        return mix;
+    }
+}
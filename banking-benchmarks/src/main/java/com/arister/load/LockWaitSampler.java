@@ -0,0 +1,72 @@
+package com.arister.load;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+
+/**
+ * Estimates time spent waiting for row locks by counting, every {@link #INTERVAL_MILLIS}, the database
+ * sessions that are blocked on a lock. The sum of those counts times the interval approximates the
+ * total session time lost to lock waits; the peak shows how deep the queue on a hot row got.
+ */
+final class LockWaitSampler implements AutoCloseable {
+
+    static final long INTERVAL_MILLIS = 10;
+
+    private static final String POSTGRES_QUERY =
+            "SELECT count(*) FROM pg_stat_activity WHERE wait_event_type = 'Lock'";
+    private static final String H2_QUERY =
+            "SELECT COUNT(*) FROM INFORMATION_SCHEMA.SESSIONS WHERE BLOCKER_ID IS NOT NULL";
+
+    private final DataSource dataSource;
+    private final AtomicLong waitingSamples = new AtomicLong();
+    private final AtomicLong peak = new AtomicLong();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    LockWaitSampler(DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.thread = Thread.ofPlatform().daemon().name("lock-wait-sampler").start(this::run);
+    }
+
+    /** Approximate session-milliseconds spent waiting for locks so far. */
+    long waitMillis() {
+        return waitingSamples.get() * INTERVAL_MILLIS;
+    }
+
+    long peakWaiters() {
+        return peak.get();
+    }
+
+    private void run() {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement()) {
+            String query = connection.getMetaData().getDatabaseProductName().startsWith("H2")
+                    ? H2_QUERY
+                    : POSTGRES_QUERY;
+            while (running) {
+                try (ResultSet rs = statement.executeQuery(query)) {
+                    rs.next();
+                    long waiting = rs.getLong(1);
+                    waitingSamples.addAndGet(waiting);
+                    peak.accumulateAndGet(waiting, Math::max);
+                }
+                TimeUnit.MILLISECONDS.sleep(INTERVAL_MILLIS);
+            }
+        } catch (SQLException e) {
+            System.err.println("Lock-wait sampling stopped: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        thread.join();
+    }
+}
@@ -0,0 +1,15 @@
+package com.arister.load;
+
+/** The kinds of request in a simulated banking day; their weights come from {@code --mix}. */
+enum Operation {
+    /** {@code CreateCustomer} followed by {@code AddCustomerKyc}, against customer-service. */
+    ONBOARD,
+    /** {@code CreateAccount} for an onboarded customer, or {@code --customer-id} without onboarding. */
+    OPEN,
+    DEPOSIT,
+    WITHDRAW,
+    /** {@code CreateTransfer} between two Zipf-drawn accounts. */
+    TRANSFER,
+    /** First page of {@code ListTransactionsByAccount} for a Zipf-drawn account. */
+    STATEMENT
+}
@@ -0,0 +1,49 @@
+package com.arister.load;
+
+import java.util.SplittableRandom;
+
+/**
+ * Draws ranks {@code 0..n-1} with probability proportional to {@code 1 / (rank + 1)^exponent}, so a
+ * few low ranks (the hot accounts) receive most of the traffic. An exponent of 0 is uniform; around 1
+ * matches the skew usually seen in retail banking. Sampling is a binary search over a precomputed
+ * cumulative distribution and is safe from any number of threads, each with its own random source.
+ */
+final class ZipfSampler {
+
+    private final double[] cumulative;
+
+    ZipfSampler(int n, double exponent) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be positive: " + n);
+        }
+        cumulative = new double[n];
+        double sum = 0;
+        for (int rank = 0; rank < n; rank++) {
+            sum += 1.0 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < n; rank++) {
+            cumulative[rank] /= sum;
+        }
+    }
+
+    int next(SplittableRandom random) {
+        double u = random.nextDouble();
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulative[mid] < u) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /** Share of draws that land on the hottest {@code k} ranks. */
+    double headShare(int k) {
+        return cumulative[Math.min(k, cumulative.length) - 1];
+    }
+}
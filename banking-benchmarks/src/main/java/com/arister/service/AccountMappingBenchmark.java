@@ -0,0 +1,74 @@
+package com.arister.service;
+
+import com.arister.common.money.Money;
+import com.arister.enums.AccountStatus;
+import com.arister.enums.AccountType;
+import com.arister.model.Account;
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Entity-to-proto mapping and amount parsing: the per-row CPU cost of every account RPC, without any
+ * database or transport in the way.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class AccountMappingBenchmark {
+
+    @Param({"0.00", "1234.56", "98765432109.99"})
+    public String amount;
+
+    private AccountGrpcService accountGrpcService;
+    private Account account;
+
+    @Setup
+    public void setUp() {
+        // toProto touches no collaborators
+        accountGrpcService = new AccountGrpcService(null, null, null, null, null, null);
+        account = Account.builder()
+                .id(42L)
+                .accountNumber("ACC-0000000042")
+                .customerId(7L)
+                .branchId(1L)
+                .accountType(AccountType.SAVINGS)
+                .balance(Money.parseMinor(amount))
+                .currency("USD")
+                .interestRate(new BigDecimal("3.25"))
+                .minBalance(Account.DEFAULT_MIN_BALANCE)
+                .overdraftLimit(0)
+                .status(AccountStatus.ACTIVE)
+                .createdAt(ZonedDateTime.now())
+                .build();
+    }
+
+    @Benchmark
+    public com.arister.proto.Account toProto() {
+        return accountGrpcService.toProto(account);
+    }
+
+    @Benchmark
+    public long parseAmount() {
+        return Money.parseMinor(amount);
+    }
+
+    @Benchmark
+    public String formatAmount() {
+        return Money.format(account.getBalance());
+    }
+}
@@ -0,0 +1,148 @@
+package com.arister.service;
+
+import com.arister.AccountServiceApplication;
+import com.arister.enums.AccountType;
+import com.arister.model.Account;
+import com.arister.proto.AccountResponse;
+import com.arister.proto.AccountStatus;
+import com.arister.proto.UpdateAccountRequest;
+import com.arister.repository.AccountRepository;
+import io.grpc.ManagedChannel;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.stub.StreamObserver;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * account-service booted for one benchmark trial against its own in-memory H2 database, configured
+ * like the module's tests. The gRPC services are reachable as beans, for measuring the service layer
+ * alone, and through an in-process server, for measuring a full call including (de)serialisation.
+ * Also the default target of the {@code com.arister.load} harness.
+ *
+ * <p>{@link #start(String...)} takes extra {@code name=value} settings for properties the fixture does
+ * not already set, e.g. {@code spring.threads.virtual.enabled=false}.
+ */
+public final class AccountServiceFixture implements AutoCloseable {
+
+    /** Large enough that no benchmark iteration can drain an account. */
+    static final long OPENING_BALANCE = 100_000_000_000L;
+
+    private final ConfigurableApplicationContext context;
+    private final String serverName;
+    private ManagedChannel channel;
+
+    private AccountServiceFixture(ConfigurableApplicationContext context, String serverName) {
+        this.context = context;
+        this.serverName = serverName;
+    }
+
+    public static AccountServiceFixture start(String... settings) {
+        String database = "bench-" + UUID.randomUUID();
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.main.web-application-type=none",
+                "--spring.main.banner-mode=off",
+                "--spring.datasource.url=jdbc:h2:mem:" + database
+                        + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL;NON_KEYWORDS=VALUE"
+                        + ";INIT=RUNSCRIPT FROM 'classpath:h2-init.sql'",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.flyway.enabled=false",
+                "--grpc.server.port=-1",
+                "--grpc.server.in-process-name=" + database,
+                "--logging.level.root=WARN"));
+        for (String setting : settings) {
+            args.add("--" + setting);
+        }
+        // passed as arguments so they take precedence over the service's application.yaml
+        return new AccountServiceFixture(
+                new SpringApplicationBuilder(AccountServiceApplication.class).run(args.toArray(String[]::new)),
+                database);
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public long openAccount() {
+        return bean(AccountRepository.class)
+                .save(Account.builder()
+                        .customerId(1L)
+                        .branchId(1L)
+                        .accountType(AccountType.SAVINGS)
+                        .balance(OPENING_BALANCE)
+                        .build())
+                .getId();
+    }
+
+    /** Gives the account {@code stripes} balance stripes through {@code UpdateAccount}. */
+    public void stripe(long accountId, int stripes) {
+        bean(AccountGrpcService.class)
+                .updateAccount(
+                        UpdateAccountRequest.newBuilder()
+                                .setId(accountId)
+                                .setStatus(AccountStatus.ACTIVE)
+                                .setBalanceStripes(stripes)
+                                .build(),
+                        new StreamObserver<>() {
+                            @Override
+                            public void onNext(AccountResponse response) {
+                                if (!response.getSuccess()) {
+                                    throw new IllegalStateException(response.getMessage());
+                                }
+                            }
+
+                            @Override
+                            public void onError(Throwable t) {
+                                throw new IllegalStateException(t);
+                            }
+
+                            @Override
+                            public void onCompleted() {}
+                        });
+    }
+
+    /**
+     * A channel to the service's in-process gRPC server, which the starter builds like the network one:
+     * same executor, same interceptors. Opened on first use.
+     */
+    public synchronized ManagedChannel channel() {
+        if (channel == null) {
+            channel = InProcessChannelBuilder.forName(serverName).build();
+        }
+        return channel;
+    }
+
+    /** An observer that hands every response to JMH, so the work producing it cannot be optimised away. */
+    static <T> StreamObserver<T> consume(Blackhole blackhole) {
+        return new StreamObserver<>() {
+            @Override
+            public void onNext(T response) {
+                blackhole.consume(response);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                throw new IllegalStateException(t);
+            }
+
+            @Override
+            public void onCompleted() {}
+        };
+    }
+
+    @Override
+    public synchronized void close() throws InterruptedException {
+        if (channel != null) {
+            channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+        context.close();
+    }
+}
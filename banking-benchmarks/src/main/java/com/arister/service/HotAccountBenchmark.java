@@ -0,0 +1,96 @@
+package com.arister.service;
+
+import com.arister.proto.CreateTransferRequest;
+import com.arister.proto.DepositRequest;
+import com.arister.proto.TransactionResponse;
+import com.arister.proto.TransferResponse;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Credits from many threads into one account, like payments into a merchant's settlement account.
+ * With {@code stripes=0} every credit queues on the account's row lock; otherwise the account has that
+ * many balance stripes and credits only contend when they hash to the same one. Transfers each come
+ * from a source account of their own thread, so the destination is the only shared row.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(8)
+public class HotAccountBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Service {
+
+        @Param({"0", "16"})
+        public int stripes;
+
+        AccountServiceFixture fixture;
+        TransactionGrpcService transactions;
+        TransferGrpcService transfers;
+        long hotAccountId;
+
+        @Setup(Level.Trial)
+        public void start() {
+            fixture = AccountServiceFixture.start();
+            transactions = fixture.bean(TransactionGrpcService.class);
+            transfers = fixture.bean(TransferGrpcService.class);
+            hotAccountId = fixture.openAccount();
+            if (stripes > 0) {
+                fixture.stripe(hotAccountId, stripes);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() throws InterruptedException {
+            fixture.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Payer {
+        long accountId;
+
+        @Setup(Level.Trial)
+        public void open(Service service) {
+            accountId = service.fixture.openAccount();
+        }
+    }
+
+    @Benchmark
+    public void deposit(Service service, Blackhole blackhole) {
+        service.transactions.deposit(
+                DepositRequest.newBuilder()
+                        .setAccountId(service.hotAccountId)
+                        .setAmount("1.00")
+                        .build(),
+                AccountServiceFixture.<TransactionResponse>consume(blackhole));
+    }
+
+    @Benchmark
+    public void transferIn(Service service, Payer payer, Blackhole blackhole) {
+        service.transfers.createTransfer(
+                CreateTransferRequest.newBuilder()
+                        .setFromAccountId(payer.accountId)
+                        .setToAccountId(service.hotAccountId)
+                        .setAmount("1.00")
+                        .build(),
+                AccountServiceFixture.<TransferResponse>consume(blackhole));
+    }
+}
@@ -0,0 +1,99 @@
+package com.arister.service;
+
+import com.arister.proto.AccountResponse;
+import com.arister.proto.AccountServiceGrpc;
+import com.arister.proto.CreateTransferRequest;
+import com.arister.proto.DepositRequest;
+import com.arister.proto.GetAccountRequest;
+import com.arister.proto.TransactionResponse;
+import com.arister.proto.TransactionServiceGrpc;
+import com.arister.proto.TransferResponse;
+import com.arister.proto.TransferServiceGrpc;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Whole RPCs through an in-process gRPC server: request and response serialisation, the server's
+ * executor hand-off and the service itself. Throughput and sampled latency (percentiles in the JSON
+ * result) are reported for each call; compare against {@link LedgerBenchmark} to see what the transport
+ * adds.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+public class InProcessGrpcBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Client {
+        AccountServiceFixture fixture;
+        AccountServiceGrpc.AccountServiceBlockingStub accounts;
+        TransactionServiceGrpc.TransactionServiceBlockingStub transactions;
+        TransferServiceGrpc.TransferServiceBlockingStub transfers;
+
+        @Setup(Level.Trial)
+        public void start() {
+            fixture = AccountServiceFixture.start();
+            accounts = AccountServiceGrpc.newBlockingStub(fixture.channel());
+            transactions = TransactionServiceGrpc.newBlockingStub(fixture.channel());
+            transfers = TransferServiceGrpc.newBlockingStub(fixture.channel());
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() throws InterruptedException {
+            fixture.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Accounts {
+        long accountId;
+        long counterpartyId;
+        long readOnlyAccountId;
+
+        @Setup(Level.Trial)
+        public void open(Client client) {
+            accountId = client.fixture.openAccount();
+            counterpartyId = client.fixture.openAccount();
+            readOnlyAccountId = client.fixture.openAccount();
+        }
+    }
+
+    /** A read of an account nothing writes to, so it is served from the cache: mostly transport cost. */
+    @Benchmark
+    public AccountResponse getAccount(Client client, Accounts accounts) {
+        return client.accounts.getAccount(
+                GetAccountRequest.newBuilder().setId(accounts.readOnlyAccountId).build());
+    }
+
+    @Benchmark
+    public TransactionResponse deposit(Client client, Accounts accounts) {
+        return client.transactions.deposit(DepositRequest.newBuilder()
+                .setAccountId(accounts.accountId)
+                .setAmount("1.00")
+                .build());
+    }
+
+    @Benchmark
+    public TransferResponse createTransfer(Client client, Accounts accounts) {
+        return client.transfers.createTransfer(CreateTransferRequest.newBuilder()
+                .setFromAccountId(accounts.accountId)
+                .setToAccountId(accounts.counterpartyId)
+                .setAmount("1.00")
+                .build());
+    }
+}
@@ -0,0 +1,106 @@
+package com.arister.service;
+
+import com.arister.proto.CreateTransferRequest;
+import com.arister.proto.DepositRequest;
+import com.arister.proto.TransactionResponse;
+import com.arister.proto.TransferResponse;
+import com.arister.proto.WithdrawRequest;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Deposits, withdrawals and transfers through the service beans against H2: the cost of locking,
+ * ledger writes and cache eviction per posting, without the gRPC transport.
+ *
+ * <p>With {@code hotAccount} every thread posts against the same account, which shows how postings
+ * queue on its row lock; otherwise each thread has accounts of its own. Run with {@code -t} to vary
+ * the thread count.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LedgerBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Service {
+
+        @Param({"false", "true"})
+        public boolean hotAccount;
+
+        AccountServiceFixture fixture;
+        TransactionGrpcService transactions;
+        TransferGrpcService transfers;
+        long sharedAccountId;
+
+        @Setup(Level.Trial)
+        public void start() {
+            fixture = AccountServiceFixture.start();
+            transactions = fixture.bean(TransactionGrpcService.class);
+            transfers = fixture.bean(TransferGrpcService.class);
+            sharedAccountId = fixture.openAccount();
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() throws InterruptedException {
+            fixture.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Accounts {
+        long accountId;
+        long counterpartyId;
+
+        @Setup(Level.Trial)
+        public void open(Service service) {
+            accountId = service.hotAccount ? service.sharedAccountId : service.fixture.openAccount();
+            counterpartyId = service.fixture.openAccount();
+        }
+    }
+
+    @Benchmark
+    public void deposit(Service service, Accounts accounts, Blackhole blackhole) {
+        service.transactions.deposit(
+                DepositRequest.newBuilder()
+                        .setAccountId(accounts.accountId)
+                        .setAmount("1.00")
+                        .build(),
+                AccountServiceFixture.<TransactionResponse>consume(blackhole));
+    }
+
+    @Benchmark
+    public void withdraw(Service service, Accounts accounts, Blackhole blackhole) {
+        service.transactions.withdraw(
+                WithdrawRequest.newBuilder()
+                        .setAccountId(accounts.accountId)
+                        .setAmount("1.00")
+                        .build(),
+                AccountServiceFixture.<TransactionResponse>consume(blackhole));
+    }
+
+    @Benchmark
+    public void createTransfer(Service service, Accounts accounts, Blackhole blackhole) {
+        service.transfers.createTransfer(
+                CreateTransferRequest.newBuilder()
+                        .setFromAccountId(accounts.accountId)
+                        .setToAccountId(accounts.counterpartyId)
+                        .setAmount("1.00")
+                        .build(),
+                AccountServiceFixture.<TransferResponse>consume(blackhole));
+    }
+}
@@ -0,0 +1,76 @@
+package com.arister.service;
+
+import com.arister.common.money.Money;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The amount handling of one posting, before and after amounts moved to {@code long} minor units:
+ * parse the request amount, apply it to the balance, check the overdraft limit and print the
+ * balances for the response. {@code decimal*} is the old {@link BigDecimal} path, {@code minor*} the
+ * {@link Money} one. Run with {@code -prof gc} to compare allocation per posting as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class MoneyBenchmark {
+
+    @Param({"0.01", "1234.56", "98765432109.99"})
+    public String amount;
+
+    private BigDecimal decimalBalance;
+    private BigDecimal decimalOverdraft;
+    private long minorBalance;
+    private long minorOverdraft;
+
+    @Setup
+    public void setUp() {
+        decimalBalance = new BigDecimal("250000.00");
+        decimalOverdraft = new BigDecimal("1000.00");
+        minorBalance = Money.parseMinor("250000.00");
+        minorOverdraft = Money.parseMinor("1000.00");
+    }
+
+    @Benchmark
+    public BigDecimal decimalParse() {
+        return new BigDecimal(amount);
+    }
+
+    @Benchmark
+    public long minorParse() {
+        return Money.parseMinor(amount);
+    }
+
+    @Benchmark
+    public void decimalPosting(Blackhole bh) {
+        BigDecimal debit = new BigDecimal(amount);
+        BigDecimal after = decimalBalance.subtract(debit);
+        bh.consume(after.compareTo(decimalOverdraft.negate()) >= 0);
+        bh.consume(decimalBalance.toPlainString());
+        bh.consume(after.toPlainString());
+    }
+
+    @Benchmark
+    public void minorPosting(Blackhole bh) {
+        long debit = Money.parseMinor(amount);
+        long after = minorBalance - debit;
+        bh.consume(after >= -minorOverdraft);
+        bh.consume(Money.format(minorBalance));
+        bh.consume(Money.format(after));
+    }
+}
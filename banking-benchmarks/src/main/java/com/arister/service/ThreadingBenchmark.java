@@ -0,0 +1,150 @@
+package com.arister.service;
+
+import com.arister.proto.AccountResponse;
+import com.arister.proto.AccountServiceGrpc;
+import com.arister.proto.DepositRequest;
+import com.arister.proto.GetAccountRequest;
+import com.arister.proto.TransactionResponse;
+import com.arister.proto.TransactionServiceGrpc;
+import io.grpc.stub.StreamObserver;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The gRPC server on platform threads against virtual threads: each invocation starts
+ * {@code concurrentCalls} RPCs at once over the in-process channel and waits for all of them. The
+ * concurrency limiter admits as many as the connection pool can serve, so most calls wait for a permit;
+ * on platform threads every waiting call holds a pooled thread, on virtual threads it does not. Besides
+ * the time to drain the burst, the peak number of live platform threads is reported.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ThreadingBenchmark {
+
+    private static final int ACCOUNTS = 100;
+
+    @State(Scope.Benchmark)
+    public static class Server {
+
+        @Param({"platform", "virtual"})
+        String threads;
+
+        @Param("10000")
+        int concurrentCalls;
+
+        AccountServiceFixture fixture;
+        AccountServiceGrpc.AccountServiceStub accounts;
+        TransactionServiceGrpc.TransactionServiceStub transactions;
+        long[] accountIds = new long[ACCOUNTS];
+
+        @Setup(Level.Trial)
+        public void start() {
+            fixture = AccountServiceFixture.start(
+                    "spring.threads.virtual.enabled=" + "virtual".equals(threads),
+                    // the whole burst must get through the limiter, however long it queues
+                    "grpc.concurrency.queue-timeout=PT5M");
+            accounts = AccountServiceGrpc.newStub(fixture.channel());
+            transactions = TransactionServiceGrpc.newStub(fixture.channel());
+            for (int i = 0; i < ACCOUNTS; i++) {
+                accountIds[i] = fixture.openAccount();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() throws InterruptedException {
+            fixture.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Threads {
+
+        private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+        /** Most platform threads alive at once during the invocation. */
+        public long peakPlatformThreads;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            threadBean.resetPeakThreadCount();
+        }
+
+        @TearDown(Level.Iteration)
+        public void record() {
+            peakPlatformThreads = threadBean.getPeakThreadCount();
+        }
+    }
+
+    /** Reads served from the account cache, so the burst mostly measures scheduling. */
+    @Benchmark
+    public int getAccount(Server server, Threads threads) throws InterruptedException {
+        return ThreadingBenchmark.<AccountResponse>burst(
+                server,
+                (accountId, done) -> server.accounts.getAccount(
+                        GetAccountRequest.newBuilder().setId(accountId).build(), done));
+    }
+
+    /** Writes, each holding a connection for its transaction, spread over {@value #ACCOUNTS} accounts. */
+    @Benchmark
+    public int deposit(Server server, Threads threads) throws InterruptedException {
+        return ThreadingBenchmark.<TransactionResponse>burst(
+                server,
+                (accountId, done) -> server.transactions.deposit(
+                        DepositRequest.newBuilder()
+                                .setAccountId(accountId)
+                                .setAmount("1.00")
+                                .build(),
+                        done));
+    }
+
+    private static <T> int burst(Server server, BiConsumer<Long, StreamObserver<T>> call)
+            throws InterruptedException {
+        CountDownLatch remaining = new CountDownLatch(server.concurrentCalls);
+        AtomicInteger failed = new AtomicInteger();
+        StreamObserver<T> done = new StreamObserver<>() {
+            @Override
+            public void onNext(T response) {}
+
+            @Override
+            public void onError(Throwable t) {
+                failed.incrementAndGet();
+                remaining.countDown();
+            }
+
+            @Override
+            public void onCompleted() {
+                remaining.countDown();
+            }
+        };
+        for (int i = 0; i < server.concurrentCalls; i++) {
+            call.accept(server.accountIds[i % ACCOUNTS], done);
+        }
+        remaining.await();
+        if (failed.get() > 0) {
+            throw new IllegalStateException(failed.get() + " of " + server.concurrentCalls + " calls failed");
+        }
+        return server.concurrentCalls;
+    }
+}
@@ -0,0 +1,94 @@
+package com.arister.service;
+
+import com.arister.proto.CreateTransferRequest;
+import com.arister.proto.TransferResponse;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.concurrent.TimeUnit;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Latency of a single uncontended {@code createTransfer}, next to the JDBC round trips it costs. Round
+ * trips are counted as statements Hibernate prepares, so a JDBC batch counts once however many rows it
+ * carries. The expected figure is 4: both account locks, the two-leg ledger batch, the transfer row and
+ * the two-row account update batch. The ledger event outbox insert and the id sequence fetches go
+ * through {@code JdbcTemplate} and are not counted.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(1)
+public class TransferRoundTripBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Service {
+
+        AccountServiceFixture fixture;
+        TransferGrpcService transfers;
+        Statistics statistics;
+        CreateTransferRequest request;
+
+        @Setup(Level.Trial)
+        public void start() {
+            fixture = AccountServiceFixture.start("spring.jpa.properties.hibernate.generate_statistics=true");
+            transfers = fixture.bean(TransferGrpcService.class);
+            statistics = fixture.bean(EntityManagerFactory.class)
+                    .unwrap(SessionFactory.class)
+                    .getStatistics();
+            request = CreateTransferRequest.newBuilder()
+                    .setFromAccountId(fixture.openAccount())
+                    .setToAccountId(fixture.openAccount())
+                    .setAmount("1.00")
+                    .build();
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() throws InterruptedException {
+            fixture.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RoundTrips {
+
+        private long transfers;
+
+        /** Prepared statements per transfer over the iteration. */
+        public double roundTripsPerTransfer;
+
+        @Setup(Level.Iteration)
+        public void reset(Service service) {
+            transfers = 0;
+            service.statistics.clear();
+        }
+
+        @TearDown(Level.Iteration)
+        public void record(Service service) {
+            roundTripsPerTransfer = (double) service.statistics.getPrepareStatementCount() / transfers;
+        }
+    }
+
+    @Benchmark
+    public void createTransfer(Service service, RoundTrips roundTrips, Blackhole blackhole) {
+        service.transfers.createTransfer(service.request, AccountServiceFixture.<TransferResponse>consume(blackhole));
+        roundTrips.transfers++;
+    }
+}
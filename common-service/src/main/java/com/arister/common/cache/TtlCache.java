@@ -0,0 +1,119 @@
+package com.arister.common.cache;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * Small in-process cache with a size bound and a time-to-live. Entries are evicted oldest-first once
+ * {@code maxSize} is exceeded and treated as absent once older than the TTL. Reads never lock; writes
+ * only touch a lock-free queue, so the cache stays cheap under many concurrent callers. Hit, miss and
+ * eviction counts are kept for sizing the cache.
+ */
+public class TtlCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final ConcurrentHashMap<K, Entry<K, V>> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry<K, V>> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public TtlCache(int maxSize, Duration ttl) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public V get(K key) {
+        Entry<K, V> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (System.nanoTime() - entry.storedAt >= ttlNanos) {
+            if (entries.remove(key, entry)) {
+                evictions.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    public void put(K key, V value) {
+        Entry<K, V> entry = new Entry<>(key, value, System.nanoTime());
+        entries.put(key, entry);
+        insertionOrder.add(entry);
+        if (queued.incrementAndGet() > maxSize) {
+            evictOldest();
+        }
+    }
+
+    /**
+     * Replaces the live value for {@code key} with {@code update} applied to it, keeping the entry's
+     * age so it still expires with the TTL of the original put. Does nothing if there is no live
+     * entry, and counts as neither a hit nor a miss.
+     */
+    public void update(K key, UnaryOperator<V> update) {
+        entries.computeIfPresent(key, (k, entry) -> System.nanoTime() - entry.storedAt >= ttlNanos
+                ? entry
+                : new Entry<>(k, update.apply(entry.value), entry.storedAt));
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /** Entries dropped for size or age; explicit invalidations are not counted. */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    private void evictOldest() {
+        while (queued.get() > maxSize) {
+            Entry<K, V> oldest = insertionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            queued.decrementAndGet();
+            // only removes the mapping if it has not been replaced by a newer put for the same key;
+            // an update keeps the storedAt of the put it derives from
+            boolean[] removed = new boolean[1];
+            entries.computeIfPresent(oldest.key, (k, current) -> {
+                removed[0] = current.storedAt == oldest.storedAt;
+                return removed[0] ? null : current;
+            });
+            if (removed[0]) {
+                evictions.increment();
+            }
+        }
+    }
+
+    private record Entry<K, V>(K key, V value, long storedAt) {}
+}
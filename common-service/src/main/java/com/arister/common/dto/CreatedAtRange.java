@@ -0,0 +1,28 @@
+package com.arister.common.dto;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+/**
+ * Half-open {@code [from, to)} bound on {@code created_at}, as sent by clients in the {@code from} /
+ * {@code to} fields of history requests. Bounding a query on the partition key lets the database skip
+ * every month outside the range.
+ */
+public record CreatedAtRange(ZonedDateTime from, ZonedDateTime to) {
+
+    public static final ZonedDateTime EARLIEST = Instant.EPOCH.atZone(ZoneOffset.UTC);
+
+    public static final ZonedDateTime LATEST = ZonedDateTime.of(9999, 12, 31, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    /**
+     * Parses ISO-8601 timestamps with an offset; an empty {@code from} means {@link #EARLIEST} and an
+     * empty {@code to} means {@code openTo}.
+     *
+     * @throws java.time.format.DateTimeParseException if either bound is not a valid timestamp
+     */
+    public static CreatedAtRange parse(String from, String to, ZonedDateTime openTo) {
+        return new CreatedAtRange(
+                from.isEmpty() ? EARLIEST : ZonedDateTime.parse(from), to.isEmpty() ? openTo : ZonedDateTime.parse(to));
+    }
+}
@@ -0,0 +1,37 @@
+package com.arister.common.dto;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Base64;
+
+/**
+ * Continuation token for keyset pagination over rows ordered by {@code (created_at DESC, id DESC)}.
+ * It holds the sort key of the last row returned; the next page starts strictly after it. Clients
+ * get it as an opaque URL-safe string and must not depend on its layout.
+ */
+public record PageToken(ZonedDateTime createdAt, long id) {
+
+    private static final int LENGTH = Long.BYTES + Integer.BYTES + Long.BYTES;
+
+    public String encode() {
+        Instant instant = createdAt.toInstant();
+        ByteBuffer buffer = ByteBuffer.allocate(LENGTH)
+                .putLong(instant.getEpochSecond())
+                .putInt(instant.getNano())
+                .putLong(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /** @throws IllegalArgumentException if {@code token} was not produced by {@link #encode()} */
+    public static PageToken decode(String token) {
+        byte[] bytes = Base64.getUrlDecoder().decode(token);
+        if (bytes.length != LENGTH) {
+            throw new IllegalArgumentException("Malformed page token");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        Instant createdAt = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+        return new PageToken(createdAt.atZone(ZoneOffset.UTC), buffer.getLong());
+    }
+}
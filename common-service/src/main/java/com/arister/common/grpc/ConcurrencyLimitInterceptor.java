@@ -0,0 +1,187 @@
+package com.arister.common.grpc;
+
+import com.arister.common.metrics.MetricsSource;
+import com.arister.common.metrics.PrometheusWriter;
+import io.grpc.ForwardingServerCallListener.SimpleForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps the number of gRPC calls a server works on at once. A call takes a permit before its handler
+ * starts and gives it back when the call completes or is cancelled; when none is free it waits up to
+ * {@code queueTimeout} and is then closed with {@code RESOURCE_EXHAUSTED}, so clients can back off
+ * instead of piling up on a connection pool that cannot serve them.
+ *
+ * <p>Calls are admitted on the server's executor, so a waiting call parks an executor thread. With a
+ * virtual-thread-per-call executor that costs next to nothing; with a fixed pool of platform threads
+ * the queue timeout should be kept short.
+ *
+ * <p>Long-lived streams would otherwise keep a permit for as long as the client stays. Those that
+ * spend their time waiting rather than holding a connection can be listed as exempt. Client-streaming
+ * calls that do their work as messages arrive can instead be listed as per-message: they take a permit
+ * around each message and the end of input, and hold none while waiting for the client.
+ */
+public class ConcurrencyLimitInterceptor implements ServerInterceptor, MetricsSource {
+
+    private final int maxConcurrentCalls;
+    private final long queueTimeoutNanos;
+    private final Semaphore permits;
+    private final Set<String> exemptMethods;
+    private final Set<String> perMessageMethods;
+    private final LongAdder rejected = new LongAdder();
+
+    public ConcurrencyLimitInterceptor(int maxConcurrentCalls, Duration queueTimeout) {
+        this(maxConcurrentCalls, queueTimeout, Set.of(), Set.of());
+    }
+
+    /**
+     * @param exemptMethods full method names of calls that run without taking a permit
+     * @param perMessageMethods full method names of calls that take a permit per inbound message
+     */
+    public ConcurrencyLimitInterceptor(
+            int maxConcurrentCalls, Duration queueTimeout, Set<String> exemptMethods, Set<String> perMessageMethods) {
+        if (maxConcurrentCalls <= 0) {
+            throw new IllegalArgumentException("maxConcurrentCalls must be positive: " + maxConcurrentCalls);
+        }
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.queueTimeoutNanos = queueTimeout.toNanos();
+        this.permits = new Semaphore(maxConcurrentCalls, true);
+        this.exemptMethods = Set.copyOf(exemptMethods);
+        this.perMessageMethods = Set.copyOf(perMessageMethods);
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+            ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+        String method = call.getMethodDescriptor().getFullMethodName();
+        if (exemptMethods.contains(method)) {
+            return next.startCall(call, headers);
+        }
+        if (perMessageMethods.contains(method)) {
+            return perMessage(call, next.startCall(call, headers));
+        }
+        if (!acquire()) {
+            reject(call);
+            return new ServerCall.Listener<>() {};
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        };
+        try {
+            return new SimpleForwardingServerCallListener<>(next.startCall(call, headers)) {
+                @Override
+                public void onComplete() {
+                    try {
+                        super.onComplete();
+                    } finally {
+                        release.run();
+                    }
+                }
+
+                @Override
+                public void onCancel() {
+                    try {
+                        super.onCancel();
+                    } finally {
+                        release.run();
+                    }
+                }
+            };
+        } catch (RuntimeException e) {
+            release.run();
+            throw e;
+        }
+    }
+
+    public int maxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    /** Calls currently holding a permit. */
+    public int inFlight() {
+        return maxConcurrentCalls - permits.availablePermits();
+    }
+
+    /** Approximate number of calls waiting for a permit. */
+    public int queued() {
+        return permits.getQueueLength();
+    }
+
+    @Override
+    public void writeTo(PrometheusWriter out) {
+        out.family("grpc_server_concurrency_limit", "gauge", "Calls the server handles at once");
+        out.sample("grpc_server_concurrency_limit", maxConcurrentCalls);
+        out.family("grpc_server_calls_admitted", "gauge", "Calls holding a concurrency permit");
+        out.sample("grpc_server_calls_admitted", inFlight());
+        out.family("grpc_server_calls_queued", "gauge", "Calls waiting for a concurrency permit");
+        out.sample("grpc_server_calls_queued", queued());
+        out.family(
+                "grpc_server_calls_rejected_total", "counter", "Calls refused after waiting out the queue timeout");
+        out.sample("grpc_server_calls_rejected_total", rejected.sum());
+    }
+
+    private <ReqT> ServerCall.Listener<ReqT> perMessage(ServerCall<ReqT, ?> call, ServerCall.Listener<ReqT> listener) {
+        return new SimpleForwardingServerCallListener<>(listener) {
+            // callbacks of a call never run concurrently
+            private boolean rejectedCall;
+
+            @Override
+            public void onMessage(ReqT message) {
+                admitted(() -> super.onMessage(message));
+            }
+
+            @Override
+            public void onHalfClose() {
+                admitted(super::onHalfClose);
+            }
+
+            private void admitted(Runnable callback) {
+                if (rejectedCall) {
+                    return;
+                }
+                if (!acquire()) {
+                    rejectedCall = true;
+                    reject(call);
+                    return;
+                }
+                try {
+                    callback.run();
+                } finally {
+                    permits.release();
+                }
+            }
+        };
+    }
+
+    private void reject(ServerCall<?, ?> call) {
+        rejected.increment();
+        call.close(
+                Status.RESOURCE_EXHAUSTED.withDescription(
+                        "Server is at its limit of " + maxConcurrentCalls + " concurrent calls"),
+                new Metadata());
+    }
+
+    private boolean acquire() {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        try {
+            return permits.tryAcquire(queueTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
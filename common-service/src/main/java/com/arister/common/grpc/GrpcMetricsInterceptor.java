@@ -0,0 +1,175 @@
+package com.arister.common.grpc;
+
+import com.arister.common.metrics.LatencyHistogram;
+import com.arister.common.metrics.MetricsSource;
+import com.arister.common.metrics.PrometheusWriter;
+import io.grpc.ForwardingServerCall.SimpleForwardingServerCall;
+import io.grpc.ForwardingServerCallListener.SimpleForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-method server metrics: calls in flight, a latency histogram, calls by final {@link Status} code,
+ * and responses by their {@code success} flag, so the {@code success=false} answers the services give
+ * for soft errors are counted even though the call itself ends {@code OK}.
+ *
+ * <p>Recording allocates only the call and listener wrappers; counters are {@link LongAdder}s found
+ * through an identity lookup on the method descriptor, and the {@code success} getter of each response
+ * type is resolved once.
+ */
+public class GrpcMetricsInterceptor implements ServerInterceptor, MetricsSource {
+
+    private static final Status.Code[] CODES = Status.Code.values();
+
+    private static final ClassValue<MethodHandle> SUCCESS_GETTER = new ClassValue<>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> type) {
+            try {
+                return MethodHandles.publicLookup()
+                        .findVirtual(type, "getSuccess", MethodType.methodType(boolean.class))
+                        .asType(MethodType.methodType(boolean.class, Object.class));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                return null;
+            }
+        }
+    };
+
+    private final Map<MethodDescriptor<?, ?>, MethodMetrics> methods = new ConcurrentHashMap<>();
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+            ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+        MethodMetrics metrics = methods.computeIfAbsent(call.getMethodDescriptor(), MethodMetrics::new);
+        RecordingCall<ReqT, RespT> recording = new RecordingCall<>(call, metrics);
+        ServerCall.Listener<ReqT> listener;
+        try {
+            listener = next.startCall(recording, headers);
+        } catch (RuntimeException e) {
+            recording.finish(Status.Code.UNKNOWN);
+            throw e;
+        }
+        return new SimpleForwardingServerCallListener<>(listener) {
+            @Override
+            public void onCancel() {
+                try {
+                    super.onCancel();
+                } finally {
+                    recording.finish(Status.Code.CANCELLED);
+                }
+            }
+        };
+    }
+
+    @Override
+    public void writeTo(PrometheusWriter out) {
+        out.family("grpc_server_calls_in_flight", "gauge", "gRPC calls started and not yet finished");
+        methods.values().forEach(m -> out.sample("grpc_server_calls_in_flight", m.inFlight.get(), m.labels));
+
+        out.family("grpc_server_call_duration_seconds", "histogram", "Time from call start to close");
+        methods.values().forEach(m -> m.latency.writeTo(out, "grpc_server_call_duration_seconds", m.labels));
+
+        out.family("grpc_server_calls_total", "counter", "Finished gRPC calls by status code");
+        methods.values().forEach(m -> {
+            for (Status.Code code : CODES) {
+                long count = m.byCode[code.ordinal()].sum();
+                if (count > 0) {
+                    out.sample(
+                            "grpc_server_calls_total", count,
+                            "service", m.service, "method", m.method, "code", code.name());
+                }
+            }
+        });
+
+        out.family("grpc_server_responses_total", "counter", "Responses carrying a success flag, by its value");
+        methods.values().forEach(m -> {
+            if (m.succeeded.sum() + m.failed.sum() > 0) {
+                out.sample(
+                        "grpc_server_responses_total", m.succeeded.sum(),
+                        "service", m.service, "method", m.method, "outcome", "success");
+                out.sample(
+                        "grpc_server_responses_total", m.failed.sum(),
+                        "service", m.service, "method", m.method, "outcome", "failure");
+            }
+        });
+    }
+
+    private static final class MethodMetrics {
+        final String service;
+        final String method;
+        final String[] labels;
+        final AtomicLong inFlight = new AtomicLong();
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder[] byCode = new LongAdder[CODES.length];
+        final LongAdder succeeded = new LongAdder();
+        final LongAdder failed = new LongAdder();
+
+        MethodMetrics(MethodDescriptor<?, ?> descriptor) {
+            service = String.valueOf(descriptor.getServiceName());
+            method = String.valueOf(descriptor.getBareMethodName());
+            labels = new String[] {"service", service, "method", method};
+            for (int i = 0; i < byCode.length; i++) {
+                byCode[i] = new LongAdder();
+            }
+        }
+    }
+
+    private static final class RecordingCall<ReqT, RespT> extends SimpleForwardingServerCall<ReqT, RespT> {
+
+        private static final AtomicIntegerFieldUpdater<RecordingCall> FINISHED =
+                AtomicIntegerFieldUpdater.newUpdater(RecordingCall.class, "finished");
+
+        private final MethodMetrics metrics;
+        private final long startedAt = System.nanoTime();
+        private volatile int finished;
+
+        RecordingCall(ServerCall<ReqT, RespT> call, MethodMetrics metrics) {
+            super(call);
+            this.metrics = metrics;
+            metrics.inFlight.incrementAndGet();
+        }
+
+        @Override
+        public void sendMessage(RespT message) {
+            MethodHandle success = SUCCESS_GETTER.get(message.getClass());
+            if (success != null) {
+                try {
+                    (((boolean) success.invokeExact((Object) message)) ? metrics.succeeded : metrics.failed)
+                            .increment();
+                } catch (Throwable e) {
+                    // a getter of a generated message does not throw; leave the response uncounted
+                }
+            }
+            super.sendMessage(message);
+        }
+
+        @Override
+        public void close(Status status, Metadata trailers) {
+            try {
+                super.close(status, trailers);
+            } finally {
+                finish(status.getCode());
+            }
+        }
+
+        /** Records the call once, whichever of close or cancellation comes first. */
+        void finish(Status.Code code) {
+            if (FINISHED.compareAndSet(this, 0, 1)) {
+                metrics.latency.record(System.nanoTime() - startedAt);
+                metrics.byCode[code.ordinal()].increment();
+                metrics.inFlight.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.arister.common.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-bucket latency histogram, exported as a Prometheus {@code histogram} in seconds. Recording
+ * scans a short array of bounds and bumps two {@link LongAdder}s, so it allocates nothing and does not
+ * contend between threads.
+ */
+public class LatencyHistogram {
+
+    /** Upper bounds, from half a millisecond to ten seconds. */
+    private static final double[] BOUNDS_SECONDS = {
+        0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+
+    private static final long[] BOUNDS_NANOS = new long[BOUNDS_SECONDS.length];
+    private static final String[] LE = new String[BOUNDS_SECONDS.length + 1];
+
+    static {
+        for (int i = 0; i < BOUNDS_SECONDS.length; i++) {
+            BOUNDS_NANOS[i] = (long) (BOUNDS_SECONDS[i] * 1e9);
+            LE[i] = Double.toString(BOUNDS_SECONDS[i]);
+        }
+        LE[BOUNDS_SECONDS.length] = "+Inf";
+    }
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_SECONDS.length + 1];
+    private final LongAdder sumNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        int bucket = 0;
+        while (bucket < BOUNDS_NANOS.length && nanos > BOUNDS_NANOS[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+        sumNanos.add(nanos);
+    }
+
+    /**
+     * Writes the {@code _bucket}, {@code _sum} and {@code _count} samples of {@code name}; the family
+     * header is the caller's. {@code labels} are added to every sample.
+     */
+    public void writeTo(PrometheusWriter out, String name, String... labels) {
+        String[] withLe = new String[labels.length + 2];
+        System.arraycopy(labels, 0, withLe, 0, labels.length);
+        withLe[labels.length] = "le";
+        long cumulative = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            cumulative += buckets[i].sum();
+            withLe[labels.length + 1] = LE[i];
+            out.sample(name + "_bucket", cumulative, withLe);
+        }
+        out.sample(name + "_sum", sumNanos.sum() / 1e9, labels);
+        out.sample(name + "_count", cumulative, labels);
+    }
+}
@@ -0,0 +1,10 @@
+package com.arister.common.metrics;
+
+/**
+ * A bean that contributes metric families to the {@link PrometheusEndpoint} scrape. Each source writes
+ * whole families, so the samples of one metric name stay together as the exposition format requires.
+ */
+public interface MetricsSource {
+
+    void writeTo(PrometheusWriter out);
+}
@@ -0,0 +1,28 @@
+package com.arister.common.metrics;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Serves every {@link MetricsSource} bean on the service's HTTP port for Prometheus to scrape, at the
+ * path the actuator endpoint would use.
+ */
+@RestController
+public class PrometheusEndpoint {
+
+    public static final String CONTENT_TYPE = "text/plain;version=0.0.4;charset=utf-8";
+
+    private final ObjectProvider<MetricsSource> sources;
+
+    public PrometheusEndpoint(ObjectProvider<MetricsSource> sources) {
+        this.sources = sources;
+    }
+
+    @GetMapping(value = "/actuator/prometheus", produces = CONTENT_TYPE)
+    public String scrape() {
+        PrometheusWriter out = new PrometheusWriter();
+        sources.orderedStream().forEach(source -> source.writeTo(out));
+        return out.toString();
+    }
+}
@@ -0,0 +1,47 @@
+package com.arister.common.model;
+
+import jakarta.persistence.Id;
+import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Transient;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Base for entities whose id is allocated by the application before the row is persisted, e.g. from
+ * a block-reserved database sequence. Knowing the id up front lets related rows reference each other
+ * and still be written in a single JDBC batch. {@link #isNew()} keeps Spring Data's {@code save}
+ * on the {@code persist} path instead of {@code merge}, which would otherwise issue a SELECT first.
+ */
+@MappedSuperclass
+@Data
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public abstract class AssignedIdEntity extends AuditableEntity implements Persistable<Long> {
+
+    @Id
+    private Long id;
+
+    @Transient
+    @Builder.Default
+    private boolean persisted = false;
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    public void markPersisted() {
+        persisted = true;
+    }
+}
@@ -0,0 +1,41 @@
+package com.arister.common.model;
+
+import jakarta.persistence.*;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+/**
+ * Audit timestamps shared by every entity. Most entities extend {@link BaseEntity} for an
+ * IDENTITY-generated id; {@link AssignedIdEntity} is used where ids must be known before insert.
+ */
+@MappedSuperclass
+@Data
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+public abstract class AuditableEntity {
+
+    @Column(name = "created_at")
+    private ZonedDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private ZonedDateTime updatedAt;
+
+    /** Stamps both timestamps with the current time, unless the creation time was set explicitly. */
+    @PrePersist
+    public void prePersist() {
+        if (createdAt == null) {
+            createdAt = ZonedDateTime.now(ZoneId.of("UTC"));
+        }
+        updatedAt = ZonedDateTime.now(ZoneId.of("UTC"));
+    }
+
+    @PreUpdate
+    public void preUpdate() {
+        updatedAt = ZonedDateTime.now(ZoneId.of("UTC"));
+    }
+}
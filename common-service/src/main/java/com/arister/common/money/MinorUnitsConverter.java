@@ -0,0 +1,24 @@
+package com.arister.common.money;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import java.math.BigDecimal;
+
+/**
+ * Maps a {@code long} of minor units to a {@code DECIMAL(15,2)} money column. Not applied
+ * automatically, since most {@code Long} attributes are ids: money attributes name it with
+ * {@code @Convert(converter = MinorUnitsConverter.class)}.
+ */
+@Converter
+public class MinorUnitsConverter implements AttributeConverter<Long, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Long minor) {
+        return minor == null ? null : Money.decimal(minor);
+    }
+
+    @Override
+    public Long convertToEntityAttribute(BigDecimal amount) {
+        return amount == null ? null : Money.minor(amount);
+    }
+}
@@ -0,0 +1,116 @@
+package com.arister.common.money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money amounts as whole numbers of minor units (hundredths), the scale of the {@code DECIMAL(15,2)}
+ * money columns. Entities keep their amounts as bare {@code long} minor units, since their currency is
+ * a column of the account; {@link #parseMinor} and {@link #format} work on those directly, so a
+ * posting parses its amount, applies it and prints the result without creating any
+ * {@link BigDecimal}. {@link #minor(BigDecimal)} and {@link #decimal} convert at the JDBC boundary.
+ */
+public final class Money {
+
+    /** Decimal places of every amount. */
+    public static final int SCALE = 2;
+
+    /** Largest amount a {@code DECIMAL(15,2)} column holds, in minor units. */
+    public static final long MAX_MINOR = 999_999_999_999_999L;
+
+    private static final int MINOR_PER_UNIT = 100;
+
+    private Money() {}
+
+    /**
+     * Parses a plain decimal amount such as {@code 12}, {@code -0.5} or {@code 1234.56} into minor
+     * units. Digits beyond the second decimal place must be zeros.
+     *
+     * @throws NumberFormatException if {@code amount} is not a plain decimal, has a non-zero digit past
+     *     the second decimal place or exceeds {@link #MAX_MINOR}
+     */
+    public static long parseMinor(CharSequence amount) {
+        int length = amount.length();
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (amount.charAt(0) == '-' || amount.charAt(0) == '+')) {
+            negative = amount.charAt(0) == '-';
+            i++;
+        }
+        long units = 0;
+        int unitDigits = 0;
+        for (; i < length && amount.charAt(i) != '.'; i++) {
+            units = units * 10 + digit(amount, i);
+            if (++unitDigits > 13) {
+                throw invalid(amount);
+            }
+        }
+        long fraction = 0;
+        int fractionDigits = 0;
+        if (i < length) {
+            for (i++; i < length; i++) {
+                int d = digit(amount, i);
+                if (fractionDigits < SCALE) {
+                    fraction = fraction * 10 + d;
+                } else if (d != 0) {
+                    throw invalid(amount);
+                }
+                fractionDigits++;
+            }
+        }
+        if (unitDigits == 0 && fractionDigits == 0) {
+            throw invalid(amount);
+        }
+        if (fractionDigits == 1) {
+            fraction *= 10;
+        }
+        long minor = units * MINOR_PER_UNIT + fraction;
+        return negative ? -minor : minor;
+    }
+
+    /** Formats minor units as a plain decimal with two places, e.g. {@code -0.05}. */
+    public static String format(long minor) {
+        if (minor == Long.MIN_VALUE) {
+            return decimal(minor).toPlainString();
+        }
+        long abs = Math.abs(minor);
+        long units = abs / MINOR_PER_UNIT;
+        int cents = (int) (abs % MINOR_PER_UNIT);
+        StringBuilder out = new StringBuilder(24);
+        if (minor < 0) {
+            out.append('-');
+        }
+        return out.append(units)
+                .append('.')
+                .append((char) ('0' + cents / 10))
+                .append((char) ('0' + cents % 10))
+                .toString();
+    }
+
+    /**
+     * Minor units of a decimal amount read from the database.
+     *
+     * @throws ArithmeticException if {@code amount} has a non-zero digit past the second decimal place
+     *     or does not fit a {@code long}
+     */
+    public static long minor(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    /** The amount as a {@link BigDecimal} of scale 2, for binding to a money column. */
+    public static BigDecimal decimal(long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    private static int digit(CharSequence amount, int i) {
+        char c = amount.charAt(i);
+        if (c < '0' || c > '9') {
+            throw invalid(amount);
+        }
+        return c - '0';
+    }
+
+    private static NumberFormatException invalid(CharSequence amount) {
+        return new NumberFormatException("Invalid amount: \"" + amount + "\"");
+    }
+}
@@ -0,0 +1,67 @@
+package com.arister.common.money;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class MoneyTests {
+
+    @ParameterizedTest
+    @CsvSource({
+        "0, 0",
+        "12, 1200",
+        "12.5, 1250",
+        "12.50, 1250",
+        "12.500, 1250",
+        "-0.5, -50",
+        "+3.07, 307",
+        ".25, 25",
+        "7., 700",
+        "1234.56, 123456",
+        "9999999999999.99, 999999999999999"
+    })
+    void parsesPlainDecimals(String amount, long minor) {
+        assertThat(Money.parseMinor(amount)).isEqualTo(minor);
+    }
+
+    @ParameterizedTest
+    @ValueSource(
+            strings = {"", "-", ".", "1e3", "1E3", "1.5e2", "12,50", " 12", "12.345", "0.001", "1.2.3", "--1",
+                "10000000000000", "NaN"})
+    void rejectsAnythingElse(String amount) {
+        assertThatThrownBy(() -> Money.parseMinor(amount))
+                .isInstanceOf(NumberFormatException.class)
+                .hasMessageContaining(amount);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "0, 0.00",
+        "5, 0.05",
+        "-5, -0.05",
+        "1250, 12.50",
+        "-123456, -1234.56",
+        "999999999999999, 9999999999999.99"
+    })
+    void formatsWithTwoPlaces(long minor, String amount) {
+        assertThat(Money.format(minor)).isEqualTo(amount);
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {0, 1, -1, 99, 100, -12_345, Money.MAX_MINOR, -Money.MAX_MINOR})
+    void formatAndParseRoundTrip(long minor) {
+        assertThat(Money.parseMinor(Money.format(minor))).isEqualTo(minor);
+        assertThat(Money.minor(new BigDecimal(Money.format(minor)))).isEqualTo(minor);
+        assertThat(Money.decimal(minor)).isEqualByComparingTo(Money.format(minor));
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {Long.MIN_VALUE, Long.MAX_VALUE})
+    void formatsTheExtremesOfLong(long minor) {
+        assertThat(Money.format(minor)).isEqualTo(BigDecimal.valueOf(minor, 2).toPlainString());
+    }
+}
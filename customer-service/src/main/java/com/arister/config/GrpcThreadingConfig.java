@@ -0,0 +1,58 @@
+package com.arister.config;
+
+import com.arister.common.grpc.ConcurrencyLimitInterceptor;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import net.devh.boot.grpc.client.channelfactory.GrpcChannelConfigurer;
+import net.devh.boot.grpc.common.util.InterceptorOrder;
+import net.devh.boot.grpc.server.interceptor.GrpcGlobalServerInterceptor;
+import net.devh.boot.grpc.server.serverfactory.GrpcServerConfigurer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+
+/**
+ * Threading of the gRPC server and client channels. Every handler blocks on JDBC, so calls are capped
+ * at the size of the Hikari pool: a call past the cap waits for a permit instead of for a connection,
+ * and is turned away with {@code RESOURCE_EXHAUSTED} once {@code grpc.concurrency.queue-timeout} passes.
+ *
+ * <p>With {@code spring.threads.virtual.enabled} each call and each client callback runs on its own
+ * virtual thread; otherwise the starter's default cached pool of platform threads is kept.
+ */
+@Configuration
+public class GrpcThreadingConfig {
+
+    /** Inside the metrics interceptor, so time spent queueing and rejected calls are both recorded. */
+    @Bean
+    @GrpcGlobalServerInterceptor
+    @Order(InterceptorOrder.ORDER_TRACING_METRICS + 1)
+    public ConcurrencyLimitInterceptor concurrencyLimitInterceptor(
+            @Value("${grpc.concurrency.max-calls:${spring.datasource.hikari.maximum-pool-size:10}}") int maxCalls,
+            @Value("${grpc.concurrency.queue-timeout:2s}") Duration queueTimeout) {
+        return new ConcurrencyLimitInterceptor(maxCalls, queueTimeout);
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+    static class VirtualThreads {
+
+        @Bean(destroyMethod = "close")
+        public ExecutorService grpcExecutor() {
+            return Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("grpc-", 0).factory());
+        }
+
+        @Bean
+        public GrpcServerConfigurer virtualThreadServerConfigurer() {
+            return serverBuilder -> serverBuilder.executor(grpcExecutor());
+        }
+
+        @Bean
+        public GrpcChannelConfigurer virtualThreadChannelConfigurer() {
+            return (channelBuilder, name) -> channelBuilder.executor(grpcExecutor());
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package com.arister.repository;
 
 import com.arister.model.CustomerKyc;
+import jakarta.persistence.QueryHint;
 import java.util.List;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 public interface CustomerKycRepository extends JpaRepository<CustomerKyc, Long> {
 
+    /** Read-only, for listing a customer's KYC records. */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
     List<CustomerKyc> findByCustomerId(Long customerId);
 }
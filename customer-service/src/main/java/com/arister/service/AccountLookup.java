@@ -0,0 +1,239 @@
+package com.arister.service;
+
+import com.arister.common.cache.TtlCache;
+import com.arister.common.metrics.MetricsSource;
+import com.arister.common.metrics.PrometheusWriter;
+import com.arister.common.resilience.CircuitBreaker;
+import com.arister.proto.Account;
+import com.arister.proto.AccountServiceGrpc;
+import com.arister.proto.ListAccountsByCustomerRequest;
+import com.arister.proto.ListAccountsByCustomersRequest;
+import com.arister.proto.ListAccountsResponse;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.client.inject.GrpcClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fetches a customer's accounts from account-service without blocking the caller until the answer is
+ * needed. {@link #lookup} issues the call on the future stub with a deadline, so it can overlap the
+ * caller's own database read, and {@link Pending#await} collects it. Several customers are looked up
+ * with a single {@code ListAccountsByCustomers} call.
+ *
+ * <p>Answers are cached per customer: younger than {@code fresh-ttl} they are served without a call;
+ * up to {@code stale-ttl} they are served, flagged stale, when account-service fails or refuses the call
+ * or the circuit breaker is open. With nothing cached the result is flagged unavailable rather than passed off as a
+ * customer without accounts.
+ */
+@Slf4j
+@Component
+public class AccountLookup implements MetricsSource {
+
+    private final TtlCache<Long, Snapshot> snapshots;
+    private final CircuitBreaker breaker;
+    private final long freshNanos;
+    private final Duration deadline;
+
+    @GrpcClient("account-service")
+    private AccountServiceGrpc.AccountServiceFutureStub accountServiceStub;
+
+    public AccountLookup(
+            @Value("${account-lookup.deadline:500ms}") Duration deadline,
+            @Value("${account-lookup.cache-size:10000}") int cacheSize,
+            @Value("${account-lookup.fresh-ttl:5s}") Duration freshTtl,
+            @Value("${account-lookup.stale-ttl:5m}") Duration staleTtl,
+            @Value("${account-lookup.breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${account-lookup.breaker.open-duration:10s}") Duration openDuration) {
+        this.deadline = deadline;
+        this.snapshots = new TtlCache<>(cacheSize, staleTtl);
+        this.freshNanos = freshTtl.toNanos();
+        this.breaker = new CircuitBreaker(failureThreshold, openDuration);
+    }
+
+    public Pending lookup(long customerId) {
+        return lookup(List.of(customerId));
+    }
+
+    public Pending lookup(Collection<Long> customerIds) {
+        Map<Long, CustomerAccounts> resolved = new HashMap<>();
+        List<Long> requested = new ArrayList<>();
+        for (Long customerId : customerIds) {
+            Snapshot cached = snapshots.get(customerId);
+            if (cached != null && System.nanoTime() - cached.fetchedAt() < freshNanos) {
+                resolved.put(customerId, new CustomerAccounts(cached.accounts(), false, false));
+            } else {
+                requested.add(customerId);
+            }
+        }
+        Set<Long> discarded = ConcurrentHashMap.newKeySet();
+        if (requested.isEmpty()) {
+            return new Pending(requested, null, resolved, discarded);
+        }
+        if (!breaker.tryAcquire()) {
+            requested.forEach(customerId -> resolved.put(customerId, fallback(customerId)));
+            return new Pending(List.of(), null, resolved, discarded);
+        }
+        AccountServiceGrpc.AccountServiceFutureStub stub =
+                accountServiceStub.withDeadlineAfter(deadline.toMillis(), TimeUnit.MILLISECONDS);
+        // the single-customer RPC is answered from account-service's own cache; the batch one is not
+        ListenableFuture<ListAccountsResponse> call = requested.size() == 1
+                ? stub.listAccountsByCustomer(ListAccountsByCustomerRequest.newBuilder()
+                        .setCustomerId(requested.getFirst())
+                        .build())
+                : stub.listAccountsByCustomers(ListAccountsByCustomersRequest.newBuilder()
+                        .addAllCustomerIds(requested)
+                        .build());
+        Futures.addCallback(call, new Recorder(requested, discarded), MoreExecutors.directExecutor());
+        return new Pending(requested, call, resolved, discarded);
+    }
+
+    CircuitBreaker.State breakerState() {
+        return breaker.state();
+    }
+
+    boolean isCached(long customerId) {
+        return snapshots.get(customerId) != null;
+    }
+
+    @Override
+    public void writeTo(PrometheusWriter out) {
+        out.family("account_lookup_breaker_state", "gauge", "1 for the current state of the account breaker");
+        CircuitBreaker.State current = breaker.state();
+        for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+            out.sample("account_lookup_breaker_state", state == current ? 1 : 0, "state", state.name());
+        }
+        out.family("account_lookup_cache_size", "gauge", "Customers with cached accounts");
+        out.sample("account_lookup_cache_size", snapshots.size());
+        out.family("account_lookup_cache_hits_total", "counter", "Cache reads that found a customer's accounts");
+        out.sample("account_lookup_cache_hits_total", snapshots.hitCount());
+        out.family("account_lookup_cache_misses_total", "counter", "Cache reads that found nothing");
+        out.sample("account_lookup_cache_misses_total", snapshots.missCount());
+    }
+
+    private CustomerAccounts fallback(long customerId) {
+        Snapshot cached = snapshots.get(customerId);
+        return cached != null
+                ? new CustomerAccounts(cached.accounts(), true, false)
+                : new CustomerAccounts(List.of(), false, true);
+    }
+
+    /** Splits a successful response by customer; every requested customer gets an entry, if only an empty list. */
+    private static Map<Long, List<Account>> byCustomer(List<Long> requested, ListAccountsResponse response) {
+        Map<Long, List<Account>> grouped =
+                response.getAccountsList().stream().collect(Collectors.groupingBy(Account::getCustomerId));
+        Map<Long, List<Account>> accounts = new HashMap<>();
+        requested.forEach(customerId -> accounts.put(customerId, grouped.getOrDefault(customerId, List.of())));
+        return accounts;
+    }
+
+    /** An account lookup in flight, or one already answered from the cache. */
+    public final class Pending {
+        private final List<Long> requested;
+        private final ListenableFuture<ListAccountsResponse> call;
+        private final Map<Long, CustomerAccounts> resolved;
+        private final Set<Long> discarded;
+
+        private Pending(
+                List<Long> requested,
+                ListenableFuture<ListAccountsResponse> call,
+                Map<Long, CustomerAccounts> resolved,
+                Set<Long> discarded) {
+            this.requested = requested;
+            this.call = call;
+            this.resolved = resolved;
+            this.discarded = discarded;
+        }
+
+        /**
+         * Keeps the answers for customers the caller found not to exist out of the cache, where they would
+         * pass for customers without accounts. The call is left to finish; it may already have been cached.
+         */
+        public void discard(Collection<Long> customerIds) {
+            discarded.addAll(customerIds);
+            customerIds.forEach(snapshots::invalidate);
+        }
+
+        public CustomerAccounts await(long customerId) {
+            return awaitAll().get(customerId);
+        }
+
+        /** Waits for the call, never longer than the deadline it was issued with, and answers every customer. */
+        public Map<Long, CustomerAccounts> awaitAll() {
+            if (call == null) {
+                return resolved;
+            }
+            Map<Long, CustomerAccounts> accounts = new HashMap<>(resolved);
+            try {
+                ListAccountsResponse response = call.get();
+                if (!response.getSuccess()) {
+                    requested.forEach(customerId -> accounts.put(customerId, fallback(customerId)));
+                    return accounts;
+                }
+                byCustomer(requested, response)
+                        .forEach((customerId, list) -> accounts.put(customerId, new CustomerAccounts(list, false, false)));
+            } catch (ExecutionException e) {
+                requested.forEach(customerId -> accounts.put(customerId, fallback(customerId)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                requested.forEach(customerId -> accounts.put(customerId, fallback(customerId)));
+            }
+            return accounts;
+        }
+    }
+
+    /** Accounts to show with a customer, and how far to trust them. */
+    public record CustomerAccounts(List<Account> accounts, boolean stale, boolean unavailable) {}
+
+    private record Snapshot(List<Account> accounts, long fetchedAt) {}
+
+    /** Feeds every call outcome to the breaker and the cache, whether or not anyone awaits it. */
+    private final class Recorder implements FutureCallback<ListAccountsResponse> {
+        private final List<Long> requested;
+        private final Set<Long> discarded;
+
+        Recorder(List<Long> requested, Set<Long> discarded) {
+            this.requested = requested;
+            this.discarded = discarded;
+        }
+
+        @Override
+        public void onSuccess(ListAccountsResponse response) {
+            // a refusal says nothing about the customers' accounts, so it is not cached as none
+            if (!response.getSuccess()) {
+                breaker.onFailure();
+                log.warn("Account lookup for {} customer(s) refused: {}", requested.size(), response.getMessage());
+                return;
+            }
+            breaker.onSuccess();
+            long fetchedAt = System.nanoTime();
+            byCustomer(requested, response).forEach((customerId, accounts) -> {
+                if (!discarded.contains(customerId)) {
+                    snapshots.put(customerId, new Snapshot(accounts, fetchedAt));
+                }
+            });
+            // a customer discarded while the answers were being cached may have slipped in
+            discarded.forEach(snapshots::invalidate);
+        }
+
+        @Override
+        public void onFailure(Throwable t) {
+            breaker.onFailure();
+            log.warn("Account lookup for {} customer(s) failed: {}", requested.size(), t.toString());
+        }
+    }
+}
@@ -3,15 +3,16 @@ package com.arister.service;
 import com.arister.enums.CustomerStatus;
 import com.arister.enums.IdType;
 import com.arister.model.Customer;
-import com.arister.proto.AccountServiceGrpc;
+import com.arister.proto.BatchGetCustomersRequest;
+import com.arister.proto.BatchGetCustomersResponse;
 import com.arister.proto.CreateCustomerRequest;
 import com.arister.proto.CustomerResponse;
 import com.arister.proto.CustomerServiceGrpc;
+import com.arister.proto.CustomerWithAccounts;
 import com.arister.proto.DeleteCustomerRequest;
 import com.arister.proto.DeleteCustomerResponse;
 import com.arister.proto.GetCustomerByCodeRequest;
 import com.arister.proto.GetCustomerRequest;
-import com.arister.proto.ListAccountsByCustomerRequest;
 import com.arister.proto.ListCustomersRequest;
 import com.arister.proto.ListCustomersResponse;
 import com.arister.proto.UpdateCustomerRequest;
@@ -19,25 +20,30 @@ import com.arister.repository.CustomerRepository;
 import io.grpc.stub.StreamObserver;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashSet;
 import java.util.List;
-import net.devh.boot.grpc.client.inject.GrpcClient;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import net.devh.boot.grpc.server.service.GrpcService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
 
 @GrpcService
 public class CustomerGrpcService extends CustomerServiceGrpc.CustomerServiceImplBase {
 
     private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ISO_LOCAL_DATE;
     private static final DateTimeFormatter DT_FMT = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    static final int MAX_BATCH_SIZE = 500;
 
     private final CustomerRepository customerRepository;
+    private final AccountLookup accountLookup;
 
-    @GrpcClient("account-service")
-    private AccountServiceGrpc.AccountServiceBlockingStub accountServiceStub;
-
-    public CustomerGrpcService(CustomerRepository customerRepository) {
+    public CustomerGrpcService(CustomerRepository customerRepository, AccountLookup accountLookup) {
         this.customerRepository = customerRepository;
+        this.accountLookup = accountLookup;
     }
 
     @Override
@@ -103,26 +109,22 @@ public class CustomerGrpcService extends CustomerServiceGrpc.CustomerServiceImpl
 
     @Override
     public void getCustomer(GetCustomerRequest request, StreamObserver<CustomerResponse> responseObserver) {
+        // the id is the customer id, so the account lookup can run while the customer row is read; an
+        // unknown id costs a wasted call, whose answer is kept out of the cache
+        AccountLookup.Pending accounts = accountLookup.lookup(request.getId());
         customerRepository
                 .findById(request.getId())
                 .ifPresentOrElse(
-                        customer -> {
-                            List<com.arister.proto.Account> accounts = fetchAccounts(customer.getId());
+                        customer -> respond(responseObserver, found(customer, accounts.await(customer.getId()))),
+                        () -> {
+                            accounts.discard(List.of(request.getId()));
                             respond(
                                     responseObserver,
                                     CustomerResponse.newBuilder()
-                                            .setSuccess(true)
-                                            .setMessage("Customer found")
-                                            .setCustomer(toProto(customer))
-                                            .addAllAccounts(accounts)
+                                            .setSuccess(false)
+                                            .setMessage("Customer not found with id: " + request.getId())
                                             .build());
-                        },
-                        () -> respond(
-                                responseObserver,
-                                CustomerResponse.newBuilder()
-                                        .setSuccess(false)
-                                        .setMessage("Customer not found with id: " + request.getId())
-                                        .build()));
+                        });
     }
 
     @Override
@@ -130,17 +132,9 @@ public class CustomerGrpcService extends CustomerServiceGrpc.CustomerServiceImpl
         customerRepository
                 .findByCustomerCode(request.getCustomerCode())
                 .ifPresentOrElse(
-                        customer -> {
-                            List<com.arister.proto.Account> accounts = fetchAccounts(customer.getId());
-                            respond(
-                                    responseObserver,
-                                    CustomerResponse.newBuilder()
-                                            .setSuccess(true)
-                                            .setMessage("Customer found")
-                                            .setCustomer(toProto(customer))
-                                            .addAllAccounts(accounts)
-                                            .build());
-                        },
+                        customer -> respond(
+                                responseObserver,
+                                found(customer, accountLookup.lookup(customer.getId()).await(customer.getId()))),
                         () -> respond(
                                 responseObserver,
                                 CustomerResponse.newBuilder()
@@ -149,6 +143,49 @@ public class CustomerGrpcService extends CustomerServiceGrpc.CustomerServiceImpl
                                         .build()));
     }
 
+    /**
+     * Loads several customers with their accounts in two round trips: one {@code IN} query for the
+     * customers and one {@code ListAccountsByCustomers} call, issued before the query so they overlap.
+     */
+    @Override
+    public void batchGetCustomers(
+            BatchGetCustomersRequest request, StreamObserver<BatchGetCustomersResponse> responseObserver) {
+        Set<Long> ids = new LinkedHashSet<>(request.getIdsList());
+        if (ids.size() > MAX_BATCH_SIZE) {
+            respond(
+                    responseObserver,
+                    BatchGetCustomersResponse.newBuilder()
+                            .setSuccess(false)
+                            .setMessage("At most " + MAX_BATCH_SIZE + " ids per request")
+                            .build());
+            return;
+        }
+
+        AccountLookup.Pending accounts = accountLookup.lookup(ids);
+        Map<Long, Customer> customers = customerRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Customer::getId, Function.identity()));
+        Map<Long, AccountLookup.CustomerAccounts> accountsByCustomer = accounts.awaitAll();
+
+        BatchGetCustomersResponse.Builder builder = BatchGetCustomersResponse.newBuilder()
+                .setSuccess(true)
+                .setMessage("Customers found");
+        for (Long id : ids) {
+            Customer customer = customers.get(id);
+            if (customer == null) {
+                builder.addMissingIds(id);
+                continue;
+            }
+            AccountLookup.CustomerAccounts customerAccounts = accountsByCustomer.get(id);
+            builder.addCustomers(CustomerWithAccounts.newBuilder()
+                    .setCustomer(toProto(customer))
+                    .addAllAccounts(customerAccounts.accounts())
+                    .setAccountsStale(customerAccounts.stale())
+                    .setAccountsUnavailable(customerAccounts.unavailable()));
+        }
+        accounts.discard(builder.getMissingIdsList());
+        respond(responseObserver, builder.build());
+    }
+
     @Override
     public void updateCustomer(UpdateCustomerRequest request, StreamObserver<CustomerResponse> responseObserver) {
         customerRepository
@@ -198,7 +235,9 @@ public class CustomerGrpcService extends CustomerServiceGrpc.CustomerServiceImpl
                         .build());
     }
 
+    /** Page and count in one read-only transaction, so the customers are loaded without snapshots. */
     @Override
+    @Transactional(readOnly = true)
     public void listCustomers(ListCustomersRequest request, StreamObserver<ListCustomersResponse> responseObserver) {
         int page = request.getPage();
         int size = request.getSize() == 0 ? 20 : request.getSize();
@@ -215,16 +254,15 @@ public class CustomerGrpcService extends CustomerServiceGrpc.CustomerServiceImpl
         respond(responseObserver, builder.build());
     }
 
-    private List<com.arister.proto.Account> fetchAccounts(long customerId) {
-        try {
-            com.arister.proto.ListAccountsResponse response = accountServiceStub.listAccountsByCustomer(
-                    ListAccountsByCustomerRequest.newBuilder()
-                            .setCustomerId(customerId)
-                            .build());
-            return response.getSuccess() ? response.getAccountsList() : List.of();
-        } catch (Exception e) {
-            return List.of();
-        }
+    private CustomerResponse found(Customer customer, AccountLookup.CustomerAccounts accounts) {
+        return CustomerResponse.newBuilder()
+                .setSuccess(true)
+                .setMessage("Customer found")
+                .setCustomer(toProto(customer))
+                .addAllAccounts(accounts.accounts())
+                .setAccountsStale(accounts.stale())
+                .setAccountsUnavailable(accounts.unavailable())
+                .build();
     }
 
     private com.arister.proto.Customer toProto(Customer customer) {
@@ -0,0 +1,302 @@
+package com.arister.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.arister.common.resilience.CircuitBreaker;
+import com.arister.enums.CustomerStatus;
+import com.arister.model.Customer;
+import com.arister.proto.Account;
+import com.arister.proto.AccountServiceGrpc;
+import com.arister.proto.BatchGetCustomersRequest;
+import com.arister.proto.BatchGetCustomersResponse;
+import com.arister.proto.CustomerResponse;
+import com.arister.proto.CustomerWithAccounts;
+import com.arister.proto.GetCustomerRequest;
+import com.arister.proto.ListAccountsByCustomerRequest;
+import com.arister.proto.ListAccountsByCustomersRequest;
+import com.arister.proto.ListAccountsResponse;
+import com.arister.repository.CustomerRepository;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+@SpringBootTest(
+        properties = {
+            "grpc.client.account-service.address=in-process:customer-tests-accounts",
+            "account-lookup.deadline=200ms",
+            "account-lookup.fresh-ttl=0s",
+            "account-lookup.breaker.failure-threshold=3",
+            "account-lookup.breaker.open-duration=1h"
+        })
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class CustomerGrpcServiceAccountLookupTests {
+
+    private static final FakeAccountService accounts = new FakeAccountService();
+    private static Server server;
+
+    @Autowired
+    private CustomerGrpcService customerGrpcService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private AccountLookup accountLookup;
+
+    @BeforeAll
+    static void startAccountService() throws IOException {
+        server = InProcessServerBuilder.forName("customer-tests-accounts")
+                .addService(accounts)
+                .build()
+                .start();
+    }
+
+    @AfterAll
+    static void stopAccountService() {
+        server.shutdownNow();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        customerRepository.deleteAll();
+        accounts.mode = Mode.OK;
+        accounts.calls.set(0);
+        accounts.batchCalls.set(0);
+    }
+
+    @Test
+    void batchGetCustomersMakesOneAccountCallForAllCustomers() {
+        long first = saveCustomer("first@example.com");
+        long second = saveCustomer("second@example.com");
+        long third = saveCustomer("third@example.com");
+        long missing = third + 1000;
+
+        BatchGetCustomersResponse response = batchGetCustomers(List.of(third, first, missing, second, first));
+
+        assertThat(response.getSuccess()).isTrue();
+        assertThat(response.getCustomersList())
+                .extracting(c -> c.getCustomer().getId())
+                .containsExactly(third, first, second);
+        for (CustomerWithAccounts customer : response.getCustomersList()) {
+            assertThat(customer.getAccountsList())
+                    .extracting(Account::getCustomerId)
+                    .containsExactly(customer.getCustomer().getId());
+            assertThat(customer.getAccountsUnavailable()).isFalse();
+        }
+        assertThat(response.getMissingIdsList()).containsExactly(missing);
+        assertThat(accounts.batchCalls.get()).isEqualTo(1);
+        assertThat(accounts.calls.get()).isZero();
+        awaitCached(first);
+        assertThat(accountLookup.isCached(missing)).isFalse();
+    }
+
+    @Test
+    void unknownCustomersAreNotCachedAsCustomersWithoutAccounts() {
+        long known = saveCustomer("known@example.com");
+        long unknown = known + 1000;
+
+        CustomerResponse response = getCustomer(unknown);
+        assertThat(response.getSuccess()).isFalse();
+        // the unknown customer's call is not awaited; a later one's answer being cached lets it land too
+        getCustomer(known);
+        awaitCached(known);
+        assertThat(accountLookup.isCached(unknown)).isFalse();
+    }
+
+    @Test
+    void flagsAccountsInsteadOfReturningAnEmptyListWhenAccountServiceFails() {
+        long cachedId = saveCustomer("cached@example.com");
+        long uncachedId = saveCustomer("uncached@example.com");
+
+        CustomerResponse fresh = getCustomer(cachedId);
+        assertThat(fresh.getAccountsList()).extracting(Account::getCustomerId).containsExactly(cachedId);
+        assertThat(fresh.getAccountsStale()).isFalse();
+        assertThat(fresh.getAccountsUnavailable()).isFalse();
+
+        accounts.mode = Mode.FAIL;
+        CustomerResponse stale = getCustomer(cachedId);
+        assertThat(stale.getSuccess()).isTrue();
+        assertThat(stale.getAccountsList()).isEqualTo(fresh.getAccountsList());
+        assertThat(stale.getAccountsStale()).isTrue();
+
+        CustomerResponse unavailable = getCustomer(uncachedId);
+        assertThat(unavailable.getSuccess()).isTrue();
+        assertThat(unavailable.getAccountsList()).isEmpty();
+        assertThat(unavailable.getAccountsUnavailable()).isTrue();
+    }
+
+    @Test
+    void refusedLookupsAreNotCachedAsCustomersWithoutAccounts() {
+        long cachedId = saveCustomer("cached@example.com");
+        long uncachedId = saveCustomer("uncached@example.com");
+        // the first call of the run loads the gRPC client and may outlast the deadline
+        getCustomer(cachedId);
+        CustomerResponse fresh = getCustomer(cachedId);
+        assertThat(fresh.getAccountsUnavailable()).isFalse();
+
+        accounts.mode = Mode.REFUSE;
+        CustomerResponse stale = getCustomer(cachedId);
+        assertThat(stale.getAccountsList()).isEqualTo(fresh.getAccountsList());
+        assertThat(stale.getAccountsStale()).isTrue();
+        assertThat(getCustomer(uncachedId).getAccountsUnavailable()).isTrue();
+        assertThat(getCustomer(uncachedId).getAccountsUnavailable()).isTrue();
+        awaitBreaker(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void slowAccountServiceIsCutOffAtTheDeadlineAndTripsTheBreaker() {
+        long id = saveCustomer("slow@example.com");
+        accounts.mode = Mode.SLOW;
+
+        for (int i = 0; i < 3; i++) {
+            long started = System.nanoTime();
+            CustomerResponse response = getCustomer(id);
+            assertThat(System.nanoTime() - started).isLessThan(900_000_000L);
+            assertThat(response.getAccountsUnavailable()).isTrue();
+        }
+        awaitBreaker(CircuitBreaker.State.OPEN);
+
+        accounts.mode = Mode.OK;
+        int callsBefore = accounts.calls.get();
+        assertThat(getCustomer(id).getAccountsUnavailable()).isTrue();
+        assertThat(accounts.calls.get()).isEqualTo(callsBefore);
+    }
+
+    /** Waits for the breaker to reach {@code state}; calls report to it in a callback that can outlast their await. */
+    private void awaitBreaker(CircuitBreaker.State state) {
+        long deadline = System.nanoTime() + 1_000_000_000L;
+        while (accountLookup.breakerState() != state && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(1_000_000);
+        }
+        assertThat(accountLookup.breakerState()).isEqualTo(state);
+    }
+
+    private void awaitCached(long customerId) {
+        long deadline = System.nanoTime() + 1_000_000_000L;
+        while (!accountLookup.isCached(customerId) && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(1_000_000);
+        }
+        assertThat(accountLookup.isCached(customerId)).isTrue();
+    }
+
+    private long saveCustomer(String email) {
+        return customerRepository
+                .save(Customer.builder()
+                        .firstName("Ada")
+                        .lastName("Lovelace")
+                        .email(email)
+                        .status(CustomerStatus.ACTIVE)
+                        .build())
+                .getId();
+    }
+
+    private CustomerResponse getCustomer(long id) {
+        CustomerResponse[] holder = new CustomerResponse[1];
+        customerGrpcService.getCustomer(GetCustomerRequest.newBuilder().setId(id).build(), new StreamObserver<>() {
+            @Override
+            public void onNext(CustomerResponse value) {
+                holder[0] = value;
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                throw new AssertionError(t);
+            }
+
+            @Override
+            public void onCompleted() {}
+        });
+        return holder[0];
+    }
+
+    private BatchGetCustomersResponse batchGetCustomers(List<Long> ids) {
+        BatchGetCustomersResponse[] holder = new BatchGetCustomersResponse[1];
+        customerGrpcService.batchGetCustomers(
+                BatchGetCustomersRequest.newBuilder().addAllIds(ids).build(), new StreamObserver<>() {
+                    @Override
+                    public void onNext(BatchGetCustomersResponse value) {
+                        holder[0] = value;
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        throw new AssertionError(t);
+                    }
+
+                    @Override
+                    public void onCompleted() {}
+                });
+        return holder[0];
+    }
+
+    private enum Mode {
+        OK,
+        FAIL,
+        REFUSE,
+        SLOW
+    }
+
+    private static final class FakeAccountService extends AccountServiceGrpc.AccountServiceImplBase {
+        private volatile Mode mode = Mode.OK;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger batchCalls = new AtomicInteger();
+
+        @Override
+        public void listAccountsByCustomer(
+                ListAccountsByCustomerRequest request, StreamObserver<ListAccountsResponse> observer) {
+            calls.incrementAndGet();
+            switch (mode) {
+                case FAIL -> observer.onError(Status.UNAVAILABLE.asRuntimeException());
+                case REFUSE -> {
+                    observer.onNext(ListAccountsResponse.newBuilder()
+                            .setSuccess(false)
+                            .setMessage("Lookup refused")
+                            .build());
+                    observer.onCompleted();
+                }
+                case SLOW -> {
+                    try {
+                        Thread.sleep(1_000);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    observer.onError(Status.UNAVAILABLE.asRuntimeException());
+                }
+                case OK -> {
+                    observer.onNext(ListAccountsResponse.newBuilder()
+                            .setSuccess(true)
+                            .addAccounts(account(request.getCustomerId()))
+                            .setTotalCount(1)
+                            .build());
+                    observer.onCompleted();
+                }
+            }
+        }
+
+        @Override
+        public void listAccountsByCustomers(
+                ListAccountsByCustomersRequest request, StreamObserver<ListAccountsResponse> observer) {
+            batchCalls.incrementAndGet();
+            ListAccountsResponse.Builder response = ListAccountsResponse.newBuilder().setSuccess(true);
+            request.getCustomerIdsList().forEach(customerId -> response.addAccounts(account(customerId)));
+            observer.onNext(response.setTotalCount(response.getAccountsCount()).build());
+            observer.onCompleted();
+        }
+
+        private static Account account(long customerId) {
+            return Account.newBuilder().setId(100 + customerId).setCustomerId(customerId).build();
+        }
+    }
+}